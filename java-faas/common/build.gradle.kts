@@ -8,6 +8,7 @@ plugins {
 
 dependencies {
         implementation(libs.spring.boot.starter.data.jpa)
+        implementation(libs.micrometer.core)
         compileOnly(libs.lombok)
         annotationProcessor(libs.lombok)
 
@@ -0,0 +1,83 @@
+package com.projectnil.common.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed compiled WASM binary.
+ *
+ * <p>Keyed by the lowercase hex SHA-256 of {@code data}, so identical binaries are stored
+ * once no matter how many functions reference them via {@link Function#getArtifactHash()}.
+ * Artifacts are immutable; unreferenced ones are garbage-collected after a grace period.
+ */
+@Entity
+@Table(name = "artifacts")
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Artifact {
+
+    /**
+     * Length of a hex-encoded SHA-256 digest.
+     */
+    public static final int HASH_LENGTH = 64;
+
+    @Id
+    @Column(name = "hash", updatable = false, nullable = false, length = HASH_LENGTH)
+    private String hash;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "data", updatable = false, nullable = false)
+    private byte[] data;
+
+    @Column(name = "size_bytes", updatable = false, nullable = false)
+    private long sizeBytes;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Compute the content address of a binary.
+     *
+     * @param data the binary
+     * @return lowercase hex SHA-256 of {@code data}
+     */
+    public static String hashOf(byte[] data) {
+        return hashOf(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Compute the content address of a binary held in a buffer, e.g. a mapped file, without
+     * copying it. The buffer's position is not changed.
+     *
+     * @param data the binary, from its position to its limit
+     * @return lowercase hex SHA-256 of the remaining bytes of {@code data}
+     */
+    public static String hashOf(ByteBuffer data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data.duplicate());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
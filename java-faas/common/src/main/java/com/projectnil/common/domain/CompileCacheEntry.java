@@ -0,0 +1,59 @@
+package com.projectnil.common.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Maps a compile input to the artifact it produced.
+ *
+ * <p>The key covers everything that determines the output: language, compiler toolchain
+ * fingerprint (version and flags, see {@link CompilerToolchain}) and source. Both the API and
+ * the compiler compute it with {@link #keyOf}, so either side can resolve a hit.
+ * Only successful compilations are cached.
+ */
+@Entity
+@Table(name = "compile_cache")
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CompileCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", updatable = false, nullable = false, length = Artifact.HASH_LENGTH)
+    private String cacheKey;
+
+    @Column(name = "language", updatable = false, nullable = false, length = 50)
+    private String language;
+
+    @Column(name = "artifact_hash", updatable = false, nullable = false, length = Artifact.HASH_LENGTH)
+    private String artifactHash;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Compute the compile cache key for a source.
+     *
+     * @param language the source language
+     * @param toolchainFingerprint the compiler's toolchain fingerprint
+     * @param source the source code
+     * @return lowercase hex SHA-256 over all three inputs
+     */
+    public static String keyOf(String language, String toolchainFingerprint, String source) {
+        String material = language + '\0' + toolchainFingerprint + '\0' + source;
+        return Artifact.hashOf(material.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,38 @@
+package com.projectnil.common.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The toolchain currently compiling a language, as registered by the compiler at startup.
+ *
+ * <p>The fingerprint identifies compiler version and flags. The API uses it to compute
+ * {@link CompileCacheEntry} keys without asking the compiler.
+ */
+@Entity
+@Table(name = "compiler_toolchains")
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CompilerToolchain {
+
+    @Id
+    @Column(name = "language", updatable = false, nullable = false, length = 50)
+    private String language;
+
+    @Column(name = "fingerprint", nullable = false, columnDefinition = "text")
+    private String fingerprint;
+
+    @Column(name = "registered_at", nullable = false)
+    private LocalDateTime registeredAt;
+}
@@ -45,6 +45,14 @@ public class Execution {
     @Column(name = "output", columnDefinition = "jsonb")
     private String output;
 
+    @Column(name = "input_offloaded", nullable = false)
+    @Builder.Default
+    private boolean inputOffloaded = false;
+
+    @Column(name = "output_offloaded", nullable = false)
+    @Builder.Default
+    private boolean outputOffloaded = false;
+
     @Enumerated(EnumType.STRING)
     @JdbcTypeCode(SqlTypes.NAMED_ENUM)
     @Column(name = "status", nullable = false)
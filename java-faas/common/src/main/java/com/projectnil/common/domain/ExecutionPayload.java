@@ -0,0 +1,69 @@
+package com.projectnil.common.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Compressed execution input or output stored outside the {@code executions} row.
+ *
+ * <p>Only payloads above the configured offload threshold end up here; small payloads
+ * stay inline in the {@code executions.input}/{@code executions.output} jsonb columns.
+ */
+@Entity
+@Table(name = "execution_payloads", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_execution_payloads_execution_kind", columnNames = {"execution_id", "kind"})
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ExecutionPayload {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "execution_id", nullable = false)
+    private UUID executionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 16)
+    private ExecutionPayloadKind kind;
+
+    @Column(name = "encoding", nullable = false, length = 16)
+    private String encoding;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+
+    @Column(name = "original_size_bytes", nullable = false)
+    private long originalSizeBytes;
+
+    @Column(name = "stored_size_bytes", nullable = false)
+    private long storedSizeBytes;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,6 @@
+package com.projectnil.common.domain;
+
+public enum ExecutionPayloadKind {
+    INPUT,
+    OUTPUT
+}
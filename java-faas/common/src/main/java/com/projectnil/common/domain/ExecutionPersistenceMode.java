@@ -0,0 +1,9 @@
+package com.projectnil.common.domain;
+
+public enum ExecutionPersistenceMode {
+    ALL,
+    FAILURES_ONLY,
+    SAMPLED,
+    METADATA_ONLY,
+    NONE
+}
@@ -51,9 +51,24 @@ public class Function{
     @Column(name = "source", nullable=false, columnDefinition = "text")
     private String source;
 
-    @JdbcTypeCode(SqlTypes.BINARY)
-    @Column(name = "wasm_binary")
-    private byte[] wasmBinary;
+    /**
+     * SHA-256 of the active version's binary in {@code artifacts}; null until a version compiles.
+     */
+    @Column(name = "artifact_hash", length = Artifact.HASH_LENGTH)
+    private String artifactHash;
+
+    /**
+     * Newest READY {@link FunctionVersion}, which executions run; null until a version compiles.
+     */
+    @Column(name = "active_version_id")
+    private UUID activeVersionId;
+
+    /**
+     * Revision of the latest version, whose source, status and compile error this row mirrors.
+     */
+    @Column(name = "revision", nullable = false)
+    @Builder.Default
+    private int revision = 1;
 
     @Enumerated(EnumType.STRING)
     @JdbcTypeCode(SqlTypes.NAMED_ENUM)
@@ -64,6 +79,15 @@ public class Function{
     @Column(name = "compile_error", columnDefinition = "text")
     private String compileError;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "persistence_mode", nullable=false, length=32)
+    @Builder.Default
+    private ExecutionPersistenceMode persistenceMode = ExecutionPersistenceMode.ALL;
+
+    @Column(name = "persistence_sample_rate", nullable=false)
+    @Builder.Default
+    private double persistenceSampleRate = 1.0;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable=false, nullable=false)
     private LocalDateTime createdAt;
@@ -0,0 +1,49 @@
+package com.projectnil.common.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Exact lifetime execution counters for a function.
+ *
+ * <p>Maintained by the API regardless of the function's persistence policy, so totals
+ * stay correct even when individual execution rows are sampled or dropped. Executions are
+ * recorded as {@link FunctionExecutionCounterDelta} rows and rolled up into these rows with
+ * batched upserts, never through JPA; the exact total is this row plus the pending deltas.
+ */
+@Entity
+@Table(name = "function_execution_counters")
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class FunctionExecutionCounter {
+    @Id
+    @Column(name = "function_id", updatable = false, nullable = false)
+    private UUID functionId;
+
+    @Column(name = "total_count", nullable = false)
+    private long totalCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Column(name = "persisted_count", nullable = false)
+    private long persistedCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,45 @@
+package com.projectnil.common.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One execution not yet rolled up into {@link FunctionExecutionCounter}.
+ *
+ * <p>Inserted in the same transaction as the execution, so an execution is counted if and
+ * only if it committed. Rows are only ever inserted and then moved into the counters by a
+ * single statement that deletes them, never updated; they are written with plain SQL, never
+ * through JPA.
+ */
+@Entity
+@Table(name = "function_execution_counter_deltas")
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class FunctionExecutionCounterDelta {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @Column(name = "function_id", updatable = false, nullable = false)
+    private UUID functionId;
+
+    @Column(name = "failed", updatable = false, nullable = false)
+    private boolean failed;
+
+    @Column(name = "persisted", updatable = false, nullable = false)
+    private boolean persisted;
+}
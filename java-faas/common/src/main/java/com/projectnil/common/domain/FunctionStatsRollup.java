@@ -0,0 +1,106 @@
+package com.projectnil.common.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Execution statistics for one function over one time bucket.
+ *
+ * <p>Maintained incrementally by the API with batched upserts, so stats can be answered
+ * from a handful of rows instead of scanning {@code executions}. Rows are never written
+ * through JPA.
+ *
+ * <p>{@code latencyHistogram[i]} counts executions whose duration was at most
+ * {@link #LATENCY_BUCKET_BOUNDS_MS}{@code [i]} ms (and above the previous bound); the last
+ * slot counts everything slower than the largest bound.
+ */
+@Entity
+@Table(name = "function_stats_rollups")
+@IdClass(FunctionStatsRollup.Key.class)
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class FunctionStatsRollup {
+
+    /**
+     * Inclusive upper bounds of the latency histogram slots, in milliseconds.
+     */
+    public static final long[] LATENCY_BUCKET_BOUNDS_MS = {
+            1, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000
+    };
+
+    /**
+     * Number of histogram slots: one per bound plus an overflow slot.
+     */
+    public static final int LATENCY_SLOTS = LATENCY_BUCKET_BOUNDS_MS.length + 1;
+
+    @Id
+    @Column(name = "function_id", updatable = false, nullable = false)
+    private UUID functionId;
+
+    @Id
+    @Column(name = "bucket_start", updatable = false, nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "execution_count", nullable = false)
+    private long executionCount;
+
+    @Column(name = "failure_count", nullable = false)
+    private long failureCount;
+
+    @Column(name = "total_duration_ms", nullable = false)
+    private long totalDurationMs;
+
+    @Column(name = "min_duration_ms", nullable = false)
+    private long minDurationMs;
+
+    @Column(name = "max_duration_ms", nullable = false)
+    private long maxDurationMs;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "latency_histogram", nullable = false, columnDefinition = "bigint[]")
+    private long[] latencyHistogram;
+
+    /**
+     * Index of the histogram slot for a duration.
+     *
+     * @param durationMs the execution duration in milliseconds
+     * @return the slot index in {@code [0, LATENCY_SLOTS)}
+     */
+    public static int latencySlot(long durationMs) {
+        for (int i = 0; i < LATENCY_BUCKET_BOUNDS_MS.length; i++) {
+            if (durationMs <= LATENCY_BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKET_BOUNDS_MS.length;
+    }
+
+    /**
+     * Composite primary key of a rollup row.
+     */
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID functionId;
+        private Instant bucketStart;
+    }
+}
@@ -0,0 +1,90 @@
+package com.projectnil.common.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One revision of a function's source.
+ *
+ * <p>Language and source never change once written; a source edit creates a new version with
+ * the next revision. Only the compile outcome (status, artifact, error) is filled in, once.
+ * {@link Function#getActiveVersionId()} points at the newest READY version, which keeps serving
+ * executions while later revisions compile.
+ */
+@Entity
+@Table(name = "function_versions",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uq_function_versions_revision", columnNames = {"function_id", "revision"}),
+        indexes = @Index(name = "idx_function_versions_artifact_hash", columnList = "artifact_hash"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class FunctionVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "function_id", updatable = false, nullable = false)
+    private UUID functionId;
+
+    @Column(name = "revision", updatable = false, nullable = false)
+    private int revision;
+
+    @Column(name = "language", updatable = false, nullable = false, length = 50)
+    private String language;
+
+    @Column(name = "source", updatable = false, nullable = false, columnDefinition = "text")
+    private String source;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private FunctionStatus status = FunctionStatus.PENDING;
+
+    @Column(name = "artifact_hash", length = Artifact.HASH_LENGTH)
+    private String artifactHash;
+
+    @Column(name = "compile_error", columnDefinition = "text")
+    private String compileError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Whether compilation of this version has finished, successfully or not.
+     */
+    public boolean isTerminal() {
+        return status == FunctionStatus.READY || status == FunctionStatus.FAILED;
+    }
+}
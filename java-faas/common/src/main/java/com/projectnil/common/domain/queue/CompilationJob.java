@@ -2,8 +2,23 @@ package com.projectnil.common.domain.queue;
 
 import java.util.UUID;
 
+/**
+ * Request to compile one function version.
+ *
+ * @param versionId the {@code function_versions} row being compiled; null on jobs published
+ *                  before versions existed, which apply to the function's latest version
+ * @param revision the version's revision; the compiler drops the job without compiling once
+ *                 the function has moved past it. Null on older jobs, which are always compiled
+ */
 public record CompilationJob(
     UUID functionId,
     String language,
-    String source
-) {}
+    String source,
+    UUID versionId,
+    Integer revision
+) {
+
+    public CompilationJob(UUID functionId, String language, String source) {
+        this(functionId, language, source, null, null);
+    }
+}
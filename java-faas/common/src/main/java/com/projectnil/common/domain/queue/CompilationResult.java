@@ -2,9 +2,46 @@ package com.projectnil.common.domain.queue;
 
 import java.util.UUID;
 
+/**
+ * Result of a compilation job.
+ *
+ * <p>A successful result references its binary by {@code artifactHash}: the compiler writes
+ * the binary to the {@code artifacts} table itself, so queue messages stay small. Results
+ * carry the binary inline in {@code wasmBinary} only when the compiler could not store it.
+ *
+ * @param cacheKey compile cache key of the job's input, set on success when the compiler
+ *                 knows its toolchain fingerprint; null otherwise
+ * @param versionId the version compiled, echoed from {@link CompilationJob#versionId()}
+ * @param artifactHash hash of the stored binary, set on success unless {@code wasmBinary} is
+ */
 public record CompilationResult(
     UUID functionId,
     boolean success,
     byte[] wasmBinary,
-    String error
-) {}
+    String error,
+    String cacheKey,
+    UUID versionId,
+    String artifactHash
+) {
+
+    /**
+     * A successful result carrying the binary inline.
+     */
+    public static CompilationResult success(UUID functionId, UUID versionId, byte[] wasmBinary, String cacheKey) {
+        return new CompilationResult(functionId, true, wasmBinary, null, cacheKey, versionId, null);
+    }
+
+    /**
+     * A successful result referencing a binary already stored in the {@code artifacts} table.
+     */
+    public static CompilationResult artifact(UUID functionId, UUID versionId, String artifactHash, String cacheKey) {
+        return new CompilationResult(functionId, true, null, null, cacheKey, versionId, artifactHash);
+    }
+
+    /**
+     * A failed result.
+     */
+    public static CompilationResult failure(UUID functionId, UUID versionId, String error) {
+        return new CompilationResult(functionId, false, null, error, null, versionId, null);
+    }
+}
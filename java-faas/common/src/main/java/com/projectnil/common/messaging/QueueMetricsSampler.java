@@ -0,0 +1,101 @@
+package com.projectnil.common.messaging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Samples {@code pgmq.metrics} for the compilation queues and exposes the values as meters,
+ * so backlog can be alerted on and compiler replicas scaled without hand-run SQL. Shared by
+ * the API and the compiler, which each register it as a bean for their queue names.
+ *
+ * <p>Reports the following metrics, tagged {@code queue}:
+ * <ul>
+ *   <li>{@code projectnil.queue.depth} - messages in the queue, including invisible ones</li>
+ *   <li>{@code projectnil.queue.oldest.age} - age of the oldest message in seconds, 0 when empty</li>
+ *   <li>{@code projectnil.queue.sent} - messages ever sent to the queue</li>
+ * </ul>
+ *
+ * <p>Gauges report NaN until the first successful sample, then refresh every
+ * {@code projectnil.queue-metrics.interval-ms} (default 15s). Every node samples
+ * independently and reports the same queue-wide values.
+ */
+public class QueueMetricsSampler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueueMetricsSampler.class);
+
+    private static final String METRICS_SQL =
+            "SELECT queue_length, oldest_msg_age_sec, total_messages FROM pgmq.metrics(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, QueueSample> samples = new LinkedHashMap<>();
+
+    public QueueMetricsSampler(JdbcTemplate jdbcTemplate, List<String> queues, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (String queue : queues) {
+            QueueSample sample = new QueueSample();
+            samples.put(queue, sample);
+            Gauge.builder("projectnil.queue.depth", sample, QueueSample::depth)
+                    .description("Messages in the pgmq queue, including ones currently being processed")
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+            Gauge.builder("projectnil.queue.oldest.age", sample, QueueSample::oldestAgeSeconds)
+                    .description("Age of the oldest message in the pgmq queue")
+                    .baseUnit("seconds")
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+            FunctionCounter.builder("projectnil.queue.sent", sample, QueueSample::totalSent)
+                    .description("Messages ever sent to the pgmq queue")
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Refresh every queue's sample.
+     */
+    @Scheduled(fixedDelayString = "${projectnil.queue-metrics.interval-ms:15000}")
+    public void sample() {
+        samples.forEach((queue, sample) -> {
+            try {
+                jdbcTemplate.query(METRICS_SQL, rs -> {
+                    sample.depth = rs.getLong("queue_length");
+                    sample.oldestAgeSeconds = rs.getLong("oldest_msg_age_sec");
+                    sample.totalSent = rs.getLong("total_messages");
+                }, queue);
+            } catch (DataAccessException ex) {
+                LOG.warn("Failed to sample pgmq metrics for queue {}: {}", queue, ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Latest values for one queue, written by {@link #sample()} and read by the meters.
+     */
+    private static final class QueueSample {
+        private volatile double depth = Double.NaN;
+        private volatile double oldestAgeSeconds = Double.NaN;
+        private volatile double totalSent;
+
+        double depth() {
+            return depth;
+        }
+
+        double oldestAgeSeconds() {
+            return oldestAgeSeconds;
+        }
+
+        double totalSent() {
+            return totalSent;
+        }
+    }
+}
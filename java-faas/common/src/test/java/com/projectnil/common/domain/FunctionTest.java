@@ -4,7 +4,6 @@ import org.junit.jupiter.api.Test;
 
 import java.util.UUID;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -14,7 +13,7 @@ class FunctionTest {
     @Test
     void builderCreatesFullyPopulatedFunction() {
         UUID id = UUID.randomUUID();
-        byte[] wasm = {1, 2, 3};
+        String artifactHash = Artifact.hashOf(new byte[] {1, 2, 3});
 
         Function function = Function.builder()
                 .id(id)
@@ -22,7 +21,7 @@ class FunctionTest {
                 .description("adds numbers")
                 .language("assemblyscript")
                 .source("export function sum(a: i32, b: i32): i32 { return a + b; }")
-                .wasmBinary(wasm)
+                .artifactHash(artifactHash)
                 .compileError(null)
                 .status(FunctionStatus.READY)
                 .build();
@@ -32,7 +31,7 @@ class FunctionTest {
         assertEquals("adds numbers", function.getDescription());
         assertEquals("assemblyscript", function.getLanguage());
         assertEquals("export function sum(a: i32, b: i32): i32 { return a + b; }", function.getSource());
-        assertArrayEquals(wasm, function.getWasmBinary());
+        assertEquals(artifactHash, function.getArtifactHash());
         assertEquals(FunctionStatus.READY, function.getStatus());
     }
 
@@ -10,6 +10,7 @@ version = "0.0.1-SNAPSHOT"
 dependencies {
     implementation(libs.spring.boot.starter.web)
     implementation(libs.spring.boot.starter.data.jpa)
+    implementation(libs.spring.boot.starter.actuator)
     implementation(libs.jackson.databind)
     implementation(libs.liquibase.core)
     implementation(libs.postgresql)
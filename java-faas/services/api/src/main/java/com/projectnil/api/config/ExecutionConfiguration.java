@@ -0,0 +1,23 @@
+package com.projectnil.api.config;
+
+import com.projectnil.api.service.ArtifactProperties;
+import com.projectnil.api.service.ExecutionDetailCacheProperties;
+import com.projectnil.api.service.ExecutionPayloadProperties;
+import com.projectnil.api.service.ExecutionStatsProperties;
+import com.projectnil.api.service.FunctionMetadataCacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for execution persistence, artifact storage and metadata/response caching components.
+ */
+@Configuration
+@EnableConfigurationProperties({
+        ExecutionPayloadProperties.class,
+        ExecutionDetailCacheProperties.class,
+        ExecutionStatsProperties.class,
+        ArtifactProperties.class,
+        FunctionMetadataCacheProperties.class
+})
+public class ExecutionConfiguration {
+}
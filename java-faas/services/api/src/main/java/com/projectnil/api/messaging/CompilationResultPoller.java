@@ -1,11 +1,27 @@
 package com.projectnil.api.messaging;
 
 import com.projectnil.api.service.CompilationResultHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Background poller that consumes compilation results from PGMQ.
  *
@@ -16,67 +32,316 @@ import org.springframework.stereotype.Component;
  *   <li>Deletes messages only after successful processing</li>
  *   <li>Allows redelivery on transient failures</li>
  * </ul>
+ *
+ * <p>A trigger on the queue table sends {@code NOTIFY compilation_results_ready} whenever the
+ * compiler publishes, and {@link PgNotificationListener} delivers it here to wake the poller
+ * immediately. Once notifications are being received the interval only serves as a safety
+ * net and stretches to {@link PgmqProperties#idlePollIntervalMs()}, so an idle node issues
+ * almost no reads. Every (re)start of listening also wakes the poller, to pick up results
+ * published while notifications were not being received, and losing the notification
+ * connection drops the interval back to {@link PgmqProperties#pollIntervalMs()}. The trigger
+ * only exists on the default {@value #NOTIFYING_QUEUE} queue, so with any other result queue
+ * notifications are ignored and the poller always polls at that interval.
+ *
+ * <p>Results are read in batches of {@link PgmqProperties#readBatchSize()} and dealt out, whole
+ * functions at a time, to one chunk per {@link PgmqProperties#workerThreads() worker}. Each
+ * chunk is applied in a single transaction via {@link CompilationResultHandler#applyResults};
+ * if that fails, its results are retried one transaction each so a bad result only holds back
+ * itself. Results for the same function are applied in queue order, so they never race each
+ * other. Processed messages are deleted with one call per batch, and while batches come back
+ * full the next one is read immediately instead of waiting for a wakeup.
+ *
+ * <p>A result that still fails on its {@link PgmqProperties#maxDeliveries()}th delivery is
+ * dead-lettered into the queue's pgmq archive instead of being redelivered forever, as is a
+ * message that cannot be deserialized, on its first read. Both are counted in
+ * {@code projectnil.compilation.results.dead.lettered}. Every attempt is counted in
+ * {@code projectnil.compilation.results.processed}, tagged {@code outcome=applied|skipped|failed},
+ * which gives the apply rate.
  */
 @Component
-public class CompilationResultPoller {
+public class CompilationResultPoller implements SmartLifecycle {
 
     private static final Logger LOG = LoggerFactory.getLogger(CompilationResultPoller.class);
 
+    /**
+     * Channel notified by the {@code compilation_results_notify_insert} trigger.
+     */
+    public static final String CHANNEL = "compilation_results_ready";
+
+    /**
+     * The result queue whose table has the {@code compilation_results_notify_insert} trigger.
+     */
+    static final String NOTIFYING_QUEUE = "compilation_results";
+
     private final PgmqClient pgmqClient;
     private final PgmqProperties properties;
     private final CompilationResultHandler resultHandler;
+    private final ExecutorService workers;
+    private final Counter deadLettered;
+    private final Counter applied;
+    private final Counter skipped;
+    private final Counter failed;
+    private final Semaphore wakeups = new Semaphore(0);
+
+    private volatile boolean listening;
+    private volatile boolean running;
+    private Thread thread;
 
     public CompilationResultPoller(
             PgmqClient pgmqClient,
             PgmqProperties properties,
-            CompilationResultHandler resultHandler) {
+            CompilationResultHandler resultHandler,
+            PgNotificationListener notificationListener,
+            MeterRegistry meterRegistry) {
         this.pgmqClient = pgmqClient;
         this.properties = properties;
         this.resultHandler = resultHandler;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.workerThreads(), r -> {
+            Thread thread = new Thread(r, "compilation-result-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deadLettered = Counter.builder("projectnil.compilation.results.dead.lettered")
+                .description("Compilation results moved to the dead-letter archive after repeated failures")
+                .register(meterRegistry);
+        this.applied = processedCounter(meterRegistry, "applied");
+        this.skipped = processedCounter(meterRegistry, "skipped");
+        this.failed = processedCounter(meterRegistry, "failed");
+        if (NOTIFYING_QUEUE.equals(properties.resultQueue())) {
+            notificationListener.subscribe(CHANNEL, payload -> wakeUp(), this::onListen, this::onDisconnect);
+        } else {
+            LOG.warn("Result queue {} has no {} trigger, polling every {}ms",
+                    properties.resultQueue(), CHANNEL, properties.pollIntervalMs());
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "compilation-result-poller");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Wake the poller to read results now rather than at the next interval.
+     */
+    public void wakeUp() {
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
     }
 
     /**
-     * Poll for compilation results and process them.
+     * Read and apply results until the queue is drained.
      *
-     * <p>Runs on a fixed delay to avoid overlapping executions.
-     * Messages are deleted only after successful processing.
+     * <p>Messages are deleted only after successful processing.
      */
-    @Scheduled(fixedDelayString = "${projectnil.pgmq.poll-interval-ms:1000}")
     public void pollResults() {
         try {
-            pgmqClient.readResult(properties.visibilityTimeoutSeconds())
-                    .ifPresent(this::processResult);
+            int batchSize = properties.readBatchSize();
+            List<PgmqClient.QueuedCompilationResult> batch;
+            do {
+                batch = pgmqClient.readResults(properties.visibilityTimeoutSeconds(), batchSize);
+                if (!batch.isEmpty()) {
+                    processBatch(batch);
+                }
+            } while (batch.size() == batchSize && !workers.isShutdown());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             LOG.error("Error polling compilation results", ex);
         }
     }
 
-    private void processResult(PgmqClient.QueuedCompilationResult queued) {
-        long messageId = queued.messageId();
-        var result = queued.result();
+    private void run() {
+        while (running) {
+            pollResults();
+            long intervalMs = listening ? properties.idlePollIntervalMs() : properties.pollIntervalMs();
+            try {
+                wakeups.tryAcquire(intervalMs, TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
 
-        LOG.debug("Processing compilation result messageId={} functionId={} success={}",
-                messageId, result.functionId(), result.success());
+    private void onListen() {
+        listening = true;
+        wakeUp();
+    }
 
-        try {
-            boolean applied = resultHandler.applyResult(result);
+    private void onDisconnect() {
+        listening = false;
+    }
 
-            if (applied) {
-                pgmqClient.deleteResult(messageId);
-                LOG.info("compilation.result.applied functionId={} success={} messageId={}",
-                        result.functionId(), result.success(), messageId);
+    private void processBatch(List<PgmqClient.QueuedCompilationResult> batch) throws InterruptedException {
+        // A message that cannot be parsed will never succeed; dead-letter it straight away
+        List<Long> poisoned = new ArrayList<>();
+        Map<UUID, List<PgmqClient.QueuedCompilationResult>> byFunction = new LinkedHashMap<>();
+        for (PgmqClient.QueuedCompilationResult queued : batch) {
+            if (queued.result() == null) {
+                poisoned.add(queued.messageId());
             } else {
-                // Result was not applied (function not found or already processed)
-                // Delete the message to prevent infinite redelivery
-                pgmqClient.deleteResult(messageId);
-                LOG.warn("compilation.result.skipped functionId={} messageId={}",
-                        result.functionId(), messageId);
+                byFunction.computeIfAbsent(queued.result().functionId(), id -> new ArrayList<>()).add(queued);
             }
+        }
+
+        // Deal whole functions out to one chunk per worker, keeping each function's results in order
+        int chunkCount = Math.min(properties.workerThreads(), byFunction.size());
+        List<List<PgmqClient.QueuedCompilationResult>> chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            chunks.add(new ArrayList<>());
+        }
+        int next = 0;
+        for (List<PgmqClient.QueuedCompilationResult> results : byFunction.values()) {
+            chunks.get(next++ % chunkCount).addAll(results);
+        }
 
+        List<Future<Map<Disposition, List<Long>>>> tasks = new ArrayList<>(chunkCount);
+        for (List<PgmqClient.QueuedCompilationResult> chunk : chunks) {
+            tasks.add(workers.submit(() -> processChunk(chunk)));
+        }
+
+        List<Long> processed = new ArrayList<>(batch.size());
+        for (Future<Map<Disposition, List<Long>>> task : tasks) {
+            try {
+                Map<Disposition, List<Long>> outcome = task.get();
+                processed.addAll(outcome.getOrDefault(Disposition.DELETE, List.of()));
+                poisoned.addAll(outcome.getOrDefault(Disposition.DEAD_LETTER, List.of()));
+            } catch (ExecutionException ex) {
+                LOG.error("Compilation result worker failed", ex.getCause());
+            }
+        }
+        pgmqClient.deleteResults(processed);
+        if (!poisoned.isEmpty()) {
+            pgmqClient.archiveResults(poisoned);
+            deadLettered.increment(poisoned.size());
+        }
+        LOG.debug("compilation.results.batch read={} deleted={} deadLettered={}",
+                batch.size(), processed.size(), poisoned.size());
+    }
+
+    /**
+     * Apply a chunk of results in one transaction, falling back to one transaction per result
+     * if the batch fails, so a single bad result cannot hold back the others.
+     *
+     * @return message IDs by what should happen to them; retried messages are left out
+     */
+    private Map<Disposition, List<Long>> processChunk(List<PgmqClient.QueuedCompilationResult> chunk) {
+        List<Boolean> outcomes;
+        try {
+            outcomes = resultHandler.applyResults(
+                    chunk.stream().map(PgmqClient.QueuedCompilationResult::result).toList());
         } catch (Exception ex) {
+            LOG.warn("Batch apply of {} compilation results failed, applying one by one", chunk.size(), ex);
+            return processInOrder(chunk);
+        }
+
+        List<Long> processed = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            PgmqClient.QueuedCompilationResult queued = chunk.get(i);
+            logOutcome(queued, outcomes.get(i));
+            processed.add(queued.messageId());
+        }
+        return Map.of(Disposition.DELETE, processed);
+    }
+
+    /**
+     * Apply results one by one in queue order.
+     *
+     * @return message IDs by what should happen to them; retried messages are left out
+     */
+    private Map<Disposition, List<Long>> processInOrder(List<PgmqClient.QueuedCompilationResult> results) {
+        Map<Disposition, List<Long>> outcome = new EnumMap<>(Disposition.class);
+        for (PgmqClient.QueuedCompilationResult queued : results) {
+            Disposition disposition = processResult(queued);
+            if (disposition != Disposition.RETRY) {
+                outcome.computeIfAbsent(disposition, d -> new ArrayList<>()).add(queued.messageId());
+            }
+        }
+        return outcome;
+    }
+
+    private Disposition processResult(PgmqClient.QueuedCompilationResult queued) {
+        long messageId = queued.messageId();
+        var result = queued.result();
+
+        LOG.debug("Processing compilation result messageId={} functionId={} success={} readCount={}",
+                messageId, result.functionId(), result.success(), queued.readCount());
+
+        try {
+            logOutcome(queued, resultHandler.applyResult(result));
+            return Disposition.DELETE;
+
+        } catch (Exception ex) {
+            failed.increment();
+            if (queued.readCount() >= properties.maxDeliveries()) {
+                LOG.error("Dead-lettering compilation result functionId={} messageId={} after {} attempts",
+                        result.functionId(), messageId, queued.readCount(), ex);
+                return Disposition.DEAD_LETTER;
+            }
             // Don't delete message - allow redelivery after visibility timeout
-            LOG.error("Failed to apply compilation result functionId={} messageId={}",
-                    result.functionId(), messageId, ex);
+            LOG.error("Failed to apply compilation result functionId={} messageId={} attempt={}",
+                    result.functionId(), messageId, queued.readCount(), ex);
+            return Disposition.RETRY;
+        }
+    }
+
+    private void logOutcome(PgmqClient.QueuedCompilationResult queued, boolean wasApplied) {
+        var result = queued.result();
+        if (wasApplied) {
+            applied.increment();
+            LOG.info("compilation.result.applied functionId={} success={} messageId={}",
+                    result.functionId(), result.success(), queued.messageId());
+        } else {
+            // Result was not applied (function not found or already processed)
+            // Delete the message to prevent infinite redelivery
+            skipped.increment();
+            LOG.warn("compilation.result.skipped functionId={} messageId={}",
+                    result.functionId(), queued.messageId());
         }
     }
+
+    private static Counter processedCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("projectnil.compilation.results.processed")
+                .description("Compilation results processed by this node")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private enum Disposition {
+        DELETE,
+        RETRY,
+        DEAD_LETTER
+    }
 }
@@ -12,9 +12,13 @@ import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
 /**
  * JDBC-based implementation of {@link PgmqClient}.
@@ -22,17 +26,41 @@ import java.util.Optional;
  * <p>Uses pgmq SQL functions to interact with queues:
  * <ul>
  *   <li>{@code pgmq.send(queue, message)} - publish message</li>
+ *   <li>{@code pgmq.send_batch(queue, messages)} - publish several messages</li>
  *   <li>{@code pgmq.read(queue, vt, limit)} - read messages with visibility timeout</li>
- *   <li>{@code pgmq.delete(queue, msgId)} - delete processed message</li>
+ *   <li>{@code pgmq.delete(queue, msgIds)} - delete processed messages</li>
+ *   <li>{@code pgmq.archive(queue, msgIds)} - dead-letter messages into the queue's archive</li>
  * </ul>
+ *
+ * <p>Dead-lettered results are listed and replayed by querying the archive table
+ * ({@code pgmq.a_<queue>}) directly, since pgmq has no functions for it.
  */
 public class JdbcPgmqClient implements PgmqClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(JdbcPgmqClient.class);
 
     private static final String SEND_SQL = "SELECT pgmq.send(?, ?)";
-    private static final String READ_SQL = "SELECT msg_id, message FROM pgmq.read(?, ?, 1)";
-    private static final String DELETE_SQL = "SELECT pgmq.delete(?, ?)";
+    private static final String SEND_BATCH_SQL = "SELECT * FROM pgmq.send_batch(?, ?::jsonb[])";
+    private static final String READ_SQL = "SELECT msg_id, read_ct, message FROM pgmq.read(?, ?, ?)";
+    private static final String DELETE_SQL = "SELECT * FROM pgmq.delete(?, ?::bigint[])";
+    private static final String ARCHIVE_SQL = "SELECT * FROM pgmq.archive(?, ?::bigint[])";
+    private static final String LIST_ARCHIVE_SQL = """
+            SELECT msg_id, read_ct, enqueued_at, archived_at, message
+            FROM pgmq.a_%s
+            ORDER BY archived_at DESC, msg_id DESC
+            LIMIT ?
+            """;
+    private static final String REPLAY_SQL = """
+            WITH replayed AS (
+                DELETE FROM pgmq.a_%s WHERE msg_id = ? RETURNING message
+            )
+            SELECT pgmq.send(?, message) FROM replayed
+            """;
+
+    /**
+     * pgmq queue names as they appear in table names; checked because they are interpolated.
+     */
+    private static final Pattern QUEUE_NAME = Pattern.compile("[a-z0-9_]+");
 
     private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
@@ -48,6 +76,9 @@ public class JdbcPgmqClient implements PgmqClient {
         this.objectMapper = objectMapper;
         this.jobQueue = jobQueue;
         this.resultQueue = resultQueue;
+        if (!QUEUE_NAME.matcher(resultQueue).matches()) {
+            throw new IllegalArgumentException("Invalid result queue name: " + resultQueue);
+        }
     }
 
     @Override
@@ -73,61 +104,197 @@ public class JdbcPgmqClient implements PgmqClient {
     }
 
     @Override
-    public Optional<QueuedCompilationResult> readResult(int visibilityTimeoutSeconds) {
+    public List<Long> publishJobs(List<CompilationJob> jobs) {
+        if (jobs.isEmpty()) {
+            return List.of();
+        }
+        String[] payloads = new String[jobs.size()];
+        try {
+            for (int i = 0; i < payloads.length; i++) {
+                payloads[i] = objectMapper.writeValueAsString(jobs.get(i));
+            }
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize compilation jobs", ex);
+        }
+
+        try {
+            List<Long> messageIds = jdbcTemplate.query(
+                    SEND_BATCH_SQL,
+                    ps -> {
+                        ps.setString(1, jobQueue);
+                        ps.setArray(2, ps.getConnection().createArrayOf("text", payloads));
+                    },
+                    (rs, rowNum) -> rs.getLong(1)
+            );
+            if (messageIds.size() != jobs.size()) {
+                throw new IllegalStateException("pgmq.send_batch returned " + messageIds.size()
+                        + " message IDs for " + jobs.size() + " jobs");
+            }
+
+            LOG.info("compilation.jobs.published count={}", jobs.size());
+            return messageIds;
+
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("Failed to publish " + jobs.size() + " jobs", ex);
+        }
+    }
+
+    @Override
+    public List<QueuedCompilationResult> readResults(int visibilityTimeoutSeconds, int limit) {
         try {
-            List<QueuedCompilationResult> results = jdbcTemplate.query(
+            return jdbcTemplate.query(
                     READ_SQL,
                     ps -> {
                         ps.setString(1, resultQueue);
                         ps.setInt(2, visibilityTimeoutSeconds);
+                        ps.setInt(3, limit);
                     },
                     this::mapQueuedCompilationResult
             );
-            return results.stream().findFirst();
         } catch (DataAccessException ex) {
-            LOG.error("Failed to read result from queue {}", resultQueue, ex);
-            return Optional.empty();
+            LOG.error("Failed to read results from queue {}", resultQueue, ex);
+            return List.of();
         }
     }
 
     @Override
-    public void deleteResult(long messageId) {
+    public void deleteResults(List<Long> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        Long[] ids = messageIds.toArray(Long[]::new);
         try {
-            Boolean deleted = jdbcTemplate.queryForObject(DELETE_SQL, Boolean.class, resultQueue, messageId);
-            if (Boolean.FALSE.equals(deleted)) {
-                LOG.warn("Message {} was not deleted from queue {}", messageId, resultQueue);
+            List<Long> deleted = jdbcTemplate.query(
+                    DELETE_SQL,
+                    ps -> {
+                        ps.setString(1, resultQueue);
+                        ps.setArray(2, ps.getConnection().createArrayOf("bigint", ids));
+                    },
+                    (rs, rowNum) -> rs.getLong(1)
+            );
+            if (deleted.size() != ids.length) {
+                LOG.warn("Deleted {} of {} messages from queue {}", deleted.size(), ids.length, resultQueue);
             }
         } catch (DataAccessException ex) {
-            LOG.error("Failed to delete message {} from queue {}", messageId, resultQueue, ex);
+            LOG.error("Failed to delete {} messages from queue {}", ids.length, resultQueue, ex);
+        }
+    }
+
+    @Override
+    public void archiveResults(List<Long> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        Long[] ids = messageIds.toArray(Long[]::new);
+        try {
+            List<Long> archived = jdbcTemplate.query(
+                    ARCHIVE_SQL,
+                    ps -> {
+                        ps.setString(1, resultQueue);
+                        ps.setArray(2, ps.getConnection().createArrayOf("bigint", ids));
+                    },
+                    (rs, rowNum) -> rs.getLong(1)
+            );
+            LOG.warn("compilation.results.dead_lettered queue={} messageIds={}", resultQueue, archived);
+        } catch (DataAccessException ex) {
+            LOG.error("Failed to archive {} messages from queue {}", ids.length, resultQueue, ex);
+        }
+    }
+
+    @Override
+    public List<ArchivedCompilationResult> listArchivedResults(int limit) {
+        try {
+            return jdbcTemplate.query(
+                    LIST_ARCHIVE_SQL.formatted(resultQueue),
+                    this::mapArchivedCompilationResult,
+                    limit);
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("Failed to list archived messages of queue " + resultQueue, ex);
+        }
+    }
+
+    @Override
+    public Optional<Long> replayArchivedResult(long messageId) {
+        try {
+            List<Long> replayed = jdbcTemplate.query(
+                    REPLAY_SQL.formatted(resultQueue),
+                    (rs, rowNum) -> rs.getLong(1),
+                    messageId,
+                    resultQueue);
+            replayed.forEach(newId -> LOG.info(
+                    "compilation.result.replayed archivedMessageId={} messageId={}", messageId, newId));
+            return replayed.stream().findFirst();
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("Failed to replay archived message " + messageId, ex);
         }
     }
 
     private QueuedCompilationResult mapQueuedCompilationResult(ResultSet rs, int rowNum) throws SQLException {
         long messageId = rs.getLong("msg_id");
-        String payload = rs.getString("message");
+        int readCount = rs.getInt("read_ct");
+        CompilationResult result = null;
         try {
-            // Parse the JSON payload
-            var node = objectMapper.readTree(payload);
+            result = parseResult(rs.getString("message"));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            LOG.error("Unable to deserialize compilation result {}", messageId, ex);
+        }
+        return new QueuedCompilationResult(messageId, readCount, result);
+    }
 
-            var functionId = java.util.UUID.fromString(node.get("functionId").asText());
-            boolean success = node.get("success").asBoolean();
+    private ArchivedCompilationResult mapArchivedCompilationResult(ResultSet rs, int rowNum) throws SQLException {
+        CompilationResult result = null;
+        try {
+            result = parseResult(rs.getString("message"));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            // Still listed, so it can be inspected in the database
+        }
+        return new ArchivedCompilationResult(
+                rs.getLong("msg_id"),
+                rs.getInt("read_ct"),
+                toLocalDateTime(rs.getTimestamp("enqueued_at")),
+                toLocalDateTime(rs.getTimestamp("archived_at")),
+                result != null ? result.functionId() : null,
+                result != null ? result.versionId() : null,
+                result != null ? result.success() : null);
+    }
 
-            byte[] wasmBinary = null;
-            if (node.has("wasmBinary") && !node.get("wasmBinary").isNull()) {
-                String base64 = node.get("wasmBinary").asText();
-                wasmBinary = Base64.getDecoder().decode(base64);
-            }
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
 
-            String error = null;
-            if (node.has("error") && !node.get("error").isNull()) {
-                error = node.get("error").asText();
-            }
+    private CompilationResult parseResult(String payload) throws JsonProcessingException {
+        // Parse the JSON payload
+        var node = objectMapper.readTree(payload);
 
-            CompilationResult result = new CompilationResult(functionId, success, wasmBinary, error);
-            return new QueuedCompilationResult(messageId, result);
+        var functionId = UUID.fromString(node.get("functionId").asText());
+        boolean success = node.get("success").asBoolean();
 
-        } catch (JsonProcessingException ex) {
-            throw new IllegalStateException("Unable to deserialize compilation result " + messageId, ex);
+        byte[] wasmBinary = null;
+        if (node.has("wasmBinary") && !node.get("wasmBinary").isNull()) {
+            String base64 = node.get("wasmBinary").asText();
+            wasmBinary = Base64.getDecoder().decode(base64);
+        }
+
+        String error = null;
+        if (node.has("error") && !node.get("error").isNull()) {
+            error = node.get("error").asText();
+        }
+
+        String cacheKey = null;
+        if (node.has("cacheKey") && !node.get("cacheKey").isNull()) {
+            cacheKey = node.get("cacheKey").asText();
+        }
+
+        UUID versionId = null;
+        if (node.has("versionId") && !node.get("versionId").isNull()) {
+            versionId = UUID.fromString(node.get("versionId").asText());
+        }
+
+        String artifactHash = null;
+        if (node.has("artifactHash") && !node.get("artifactHash").isNull()) {
+            artifactHash = node.get("artifactHash").asText();
         }
+
+        return new CompilationResult(functionId, success, wasmBinary, error, cacheKey, versionId, artifactHash);
     }
 }
@@ -0,0 +1,159 @@
+package com.projectnil.api.messaging;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches Postgres {@code NOTIFY} messages to in-process subscribers.
+ *
+ * <p>Holds one pooled connection for its lifetime, issues {@code LISTEN} for every subscribed
+ * channel and polls it for notifications on a daemon thread. If the connection drops it
+ * reconnects after {@link #RECONNECT_DELAY_MS}. Notifications sent while disconnected are
+ * lost, so every subscriber's {@code onListen} callback runs each time listening
+ * (re)starts; subscribers that cache state should drop it there. Subscribers that rely on
+ * notifications arriving can also pass an {@code onDisconnect} callback, which runs whenever
+ * the connection is lost.
+ *
+ * <p>Subscriptions must be registered before the application context starts.
+ */
+@Component
+public class PgNotificationListener implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PgNotificationListener.class);
+
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final DataSource dataSource;
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public PgNotificationListener(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Subscribe to a notification channel.
+     *
+     * @param channel the channel name, as passed to {@code pg_notify}
+     * @param onNotification called with the payload of every notification
+     * @param onListen called whenever listening (re)starts, after which no notification is missed
+     */
+    public void subscribe(String channel, Consumer<String> onNotification, Runnable onListen) {
+        subscribe(channel, onNotification, onListen, () -> { });
+    }
+
+    /**
+     * Subscribe to a notification channel, and be told when notifications stop arriving.
+     *
+     * @param channel the channel name, as passed to {@code pg_notify}
+     * @param onNotification called with the payload of every notification
+     * @param onListen called whenever listening (re)starts, after which no notification is missed
+     * @param onDisconnect called whenever the connection is lost, after which notifications are
+     *                     missed until {@code onListen} runs again
+     */
+    public void subscribe(
+            String channel,
+            Consumer<String> onNotification,
+            Runnable onListen,
+            Runnable onDisconnect) {
+        subscriptions.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>())
+                .add(new Subscription(onNotification, onListen, onDisconnect));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || subscriptions.isEmpty()) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listen, "pg-notification-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    LOG.warn("Datasource is not PostgreSQL, notifications disabled");
+                    running = false;
+                    return;
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : subscriptions.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                LOG.info("notifications.listening channels={}", subscriptions.keySet());
+                subscriptions.values().forEach(subs -> subs.forEach(sub -> sub.onListen().run()));
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                LOG.warn("Notification connection lost, reconnecting in {}ms", RECONNECT_DELAY_MS, ex);
+                subscriptions.values().forEach(subs -> subs.forEach(sub -> sub.onDisconnect().run()));
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(PGNotification notification) {
+        List<Subscription> subs = subscriptions.getOrDefault(notification.getName(), List.of());
+        for (Subscription sub : subs) {
+            try {
+                sub.onNotification().accept(notification.getParameter());
+            } catch (RuntimeException ex) {
+                LOG.error("Notification handler failed for channel {}", notification.getName(), ex);
+            }
+        }
+    }
+
+    private record Subscription(Consumer<String> onNotification, Runnable onListen, Runnable onDisconnect) {
+    }
+}
@@ -3,7 +3,10 @@ package com.projectnil.api.messaging;
 import com.projectnil.common.domain.queue.CompilationJob;
 import com.projectnil.common.domain.queue.CompilationResult;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Client interface for PGMQ operations.
@@ -12,6 +15,8 @@ import java.util.Optional;
  * <ul>
  *   <li>Publish {@link CompilationJob} messages to the jobs queue</li>
  *   <li>Read {@link CompilationResult} messages from the results queue</li>
+ *   <li>Dead-letter results that keep failing into the results queue's pgmq archive, and
+ *       replay them from there</li>
  * </ul>
  */
 public interface PgmqClient {
@@ -25,22 +30,74 @@ public interface PgmqClient {
     long publishJob(CompilationJob job);
 
     /**
-     * Read a compilation result from the results queue.
+     * Publish several compilation jobs to the jobs queue in one round trip.
      *
-     * @param visibilityTimeoutSeconds how long to hide the message from other readers
-     * @return the queued result, or empty if no messages available
+     * @param jobs the compilation jobs
+     * @return the message IDs, in the same order as {@code jobs}
      */
-    Optional<QueuedCompilationResult> readResult(int visibilityTimeoutSeconds);
+    List<Long> publishJobs(List<CompilationJob> jobs);
 
     /**
-     * Delete a message from the results queue after successful processing.
+     * Read up to {@code limit} compilation results from the results queue.
      *
-     * @param messageId the message ID to delete
+     * @param visibilityTimeoutSeconds how long to hide the messages from other readers
+     * @param limit maximum number of messages to read
+     * @return every message read, oldest first, including ones that could not be deserialized
+     *         (with a null result); empty if no messages are available
      */
-    void deleteResult(long messageId);
+    List<QueuedCompilationResult> readResults(int visibilityTimeoutSeconds, int limit);
+
+    /**
+     * Delete messages from the results queue after successful processing.
+     *
+     * @param messageIds the message IDs to delete
+     */
+    void deleteResults(List<Long> messageIds);
+
+    /**
+     * Move messages from the results queue to its archive, so they are no longer redelivered.
+     *
+     * @param messageIds the message IDs to dead-letter
+     */
+    void archiveResults(List<Long> messageIds);
+
+    /**
+     * List dead-lettered results, most recently archived first.
+     *
+     * @param limit maximum number of messages to return
+     * @return the archived results
+     */
+    List<ArchivedCompilationResult> listArchivedResults(int limit);
+
+    /**
+     * Send a dead-lettered result back to the results queue and remove it from the archive.
+     *
+     * @param messageId the archived message ID
+     * @return the ID of the new queue message, or empty if no such archived message exists
+     */
+    Optional<Long> replayArchivedResult(long messageId);
 
     /**
      * A compilation result with its queue message ID.
+     *
+     * @param readCount how many times the message has been read, including this read
+     * @param result the parsed result, or null if the message could not be deserialized
+     */
+    record QueuedCompilationResult(long messageId, int readCount, CompilationResult result) {}
+
+    /**
+     * A dead-lettered compilation result.
+     *
+     * @param functionId the function the result was for, or null if the message could not be
+     *                   deserialized; likewise for {@code versionId} and {@code success}
      */
-    record QueuedCompilationResult(long messageId, CompilationResult result) {}
+    record ArchivedCompilationResult(
+            long messageId,
+            int readCount,
+            LocalDateTime enqueuedAt,
+            LocalDateTime archivedAt,
+            UUID functionId,
+            UUID versionId,
+            Boolean success
+    ) {}
 }
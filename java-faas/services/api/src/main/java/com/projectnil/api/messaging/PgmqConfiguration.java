@@ -1,11 +1,15 @@
 package com.projectnil.api.messaging;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectnil.common.messaging.QueueMetricsSampler;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.List;
+
 /**
  * Configuration for PGMQ messaging components.
  */
@@ -25,4 +29,16 @@ public class PgmqConfiguration {
                 properties.resultQueue()
         );
     }
+
+    @Bean
+    public QueueMetricsSampler queueMetricsSampler(
+            JdbcTemplate jdbcTemplate,
+            PgmqProperties properties,
+            MeterRegistry meterRegistry) {
+        return new QueueMetricsSampler(
+                jdbcTemplate,
+                List.of(properties.jobQueue(), properties.resultQueue()),
+                meterRegistry
+        );
+    }
 }
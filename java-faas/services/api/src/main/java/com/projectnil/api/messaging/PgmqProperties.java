@@ -6,16 +6,32 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * Configuration properties for PGMQ integration.
  *
  * @param jobQueue the queue name for compilation jobs
- * @param resultQueue the queue name for compilation results
- * @param pollIntervalMs how often to poll for results (milliseconds)
+ * @param resultQueue the queue name for compilation results. Only the default,
+ *                    {@code compilation_results}, sends result notifications; with any other
+ *                    queue results are picked up every {@code pollIntervalMs}.
+ * @param pollIntervalMs how often to poll for results (milliseconds) until result
+ *                       notifications are being received. Default: 1000.
+ * @param idlePollIntervalMs how often to poll for results (milliseconds) while result
+ *                           notifications are being received; only a safety net, since a
+ *                           notification wakes the poller as soon as a result is published.
+ *                           Default: 30000.
  * @param visibilityTimeoutSeconds how long to hide messages from other readers
+ * @param readBatchSize how many results to read per poll; the poller reads again at once
+ *                      while batches come back full. Default: 50.
+ * @param workerThreads how many results are applied concurrently. Default: 4.
+ * @param maxDeliveries how many times a result is attempted before it is dead-lettered into
+ *                      the results queue's pgmq archive. Default: 5.
  */
 @ConfigurationProperties(prefix = "projectnil.pgmq")
 public record PgmqProperties(
         String jobQueue,
         String resultQueue,
         long pollIntervalMs,
-        int visibilityTimeoutSeconds
+        long idlePollIntervalMs,
+        int visibilityTimeoutSeconds,
+        int readBatchSize,
+        int workerThreads,
+        int maxDeliveries
 ) {
     public PgmqProperties {
         if (jobQueue == null || jobQueue.isBlank()) {
@@ -27,8 +43,20 @@ public record PgmqProperties(
         if (pollIntervalMs <= 0) {
             pollIntervalMs = 1000;
         }
+        if (idlePollIntervalMs <= 0) {
+            idlePollIntervalMs = 30_000;
+        }
         if (visibilityTimeoutSeconds <= 0) {
             visibilityTimeoutSeconds = 30;
         }
+        if (readBatchSize <= 0) {
+            readBatchSize = 50;
+        }
+        if (workerThreads <= 0) {
+            workerThreads = 4;
+        }
+        if (maxDeliveries <= 0) {
+            maxDeliveries = 5;
+        }
     }
 }
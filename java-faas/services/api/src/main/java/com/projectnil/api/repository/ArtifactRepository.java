@@ -0,0 +1,38 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.Artifact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for content-addressed WASM artifacts.
+ *
+ * <p>Inserts go through {@code ArtifactStore} so duplicates are skipped without a read.
+ */
+@Repository
+public interface ArtifactRepository extends JpaRepository<Artifact, String> {
+
+    /**
+     * Load only the binary of an artifact.
+     *
+     * @param hash the artifact hash
+     * @return the binary, or empty if no such artifact exists
+     */
+    @Query("select a.data from Artifact a where a.hash = :hash")
+    Optional<byte[]> findDataByHash(@Param("hash") String hash);
+
+    /**
+     * Find which of the given artifacts exist.
+     *
+     * @param hashes the artifact hashes
+     * @return the hashes that exist
+     */
+    @Query("select a.hash from Artifact a where a.hash in :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+}
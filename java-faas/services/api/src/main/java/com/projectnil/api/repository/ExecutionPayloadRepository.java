@@ -0,0 +1,25 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.ExecutionPayload;
+import com.projectnil.common.domain.ExecutionPayloadKind;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository for offloaded execution payloads.
+ */
+@Repository
+public interface ExecutionPayloadRepository extends JpaRepository<ExecutionPayload, UUID> {
+
+    /**
+     * Find the offloaded input or output of an execution.
+     *
+     * @param executionId the execution ID
+     * @param kind whether to load the input or the output
+     * @return the payload, or empty if it was stored inline
+     */
+    Optional<ExecutionPayload> findByExecutionIdAndKind(UUID executionId, ExecutionPayloadKind kind);
+}
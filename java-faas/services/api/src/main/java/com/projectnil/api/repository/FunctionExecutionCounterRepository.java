@@ -0,0 +1,16 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.FunctionExecutionCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Read access to per-function execution totals.
+ *
+ * <p>Writes go through {@code ExecutionCounterRecorder}, never through this repository.
+ */
+@Repository
+public interface FunctionExecutionCounterRepository extends JpaRepository<FunctionExecutionCounter, UUID> {
+}
@@ -0,0 +1,27 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.ExecutionPersistenceMode;
+import com.projectnil.common.domain.FunctionStatus;
+
+import java.util.UUID;
+
+/**
+ * Projection of what the execution path needs to know about a function, without the
+ * compiled binary. The binary is loaded from the artifact store only on a runtime module
+ * cache miss.
+ */
+public interface FunctionExecutionMetadata {
+
+    UUID getId();
+
+    FunctionStatus getStatus();
+
+    ExecutionPersistenceMode getPersistenceMode();
+
+    double getPersistenceSampleRate();
+
+    /**
+     * Content hash of the compiled binary; also the runtime module cache key.
+     */
+    String getArtifactHash();
+}
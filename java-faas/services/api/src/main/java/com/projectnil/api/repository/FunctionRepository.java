@@ -4,11 +4,31 @@ import com.projectnil.common.domain.Function;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Repository for Function entities.
+ *
+ * <p>Prefer the projection queries for reads that don't need {@code source}; loading the
+ * entity pulls it.
  */
 @Repository
-public interface FunctionRepository extends JpaRepository<Function, UUID> {
+public interface FunctionRepository extends JpaRepository<Function, UUID>, FunctionRepositoryCustom {
+
+    /**
+     * Find a function's metadata without source.
+     *
+     * @param id the function ID
+     * @return the metadata, or empty if not found
+     */
+    Optional<FunctionSummary> findSummaryById(UUID id);
+
+    /**
+     * Find what the execution path needs about a function, without source.
+     *
+     * @param id the function ID
+     * @return the metadata, or empty if not found
+     */
+    Optional<FunctionExecutionMetadata> findExecutionMetadataById(UUID id);
 }
@@ -0,0 +1,28 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.FunctionStatus;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Queries on {@link FunctionRepository} that Spring Data cannot derive.
+ */
+public interface FunctionRepositoryCustom {
+
+    /**
+     * Stream function summaries in {@code (name, id)} order, starting after a keyset position.
+     *
+     * <p>Rows are fetched from the database as the stream is consumed, so it must be consumed
+     * and closed inside the calling transaction.
+     *
+     * @param status only functions with this status, or null for all
+     * @param namePrefix only functions whose name starts with this, or null for all
+     * @param afterName name of the last row already returned, or null to start at the beginning
+     * @param afterId ID of the last row already returned; required when afterName is set
+     * @param limit maximum number of rows
+     * @return the matching summaries
+     */
+    Stream<FunctionSummary> streamSummaries(
+            FunctionStatus status, String namePrefix, String afterName, UUID afterId, int limit);
+}
@@ -0,0 +1,108 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.FunctionStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Keyset listing for {@link FunctionRepositoryCustom}.
+ *
+ * <p>Only the predicates that are actually requested are added to the query, so the planner
+ * sees plain {@code status = ?} and {@code name >= ?} conditions it can serve from
+ * {@code idx_functions_status} and {@code idx_functions_name}, and the keyset condition
+ * lets it resume a {@code name} index scan instead of skipping over earlier pages.
+ */
+class FunctionRepositoryCustomImpl implements FunctionRepositoryCustom {
+
+    private static final int FETCH_SIZE = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<FunctionSummary> streamSummaries(
+            FunctionStatus status, String namePrefix, String afterName, UUID afterId, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT f.id AS id, f.name AS name, f.status AS status, f.createdAt AS createdAt,"
+                        + " f.updatedAt AS updatedAt"
+                        + " FROM Function f WHERE 1 = 1");
+        if (status != null) {
+            jpql.append(" AND f.status = :status");
+        }
+        if (namePrefix != null) {
+            // The range bound is what lets a plain btree on name serve the prefix match
+            jpql.append(" AND f.name >= :namePrefix AND f.name LIKE :namePattern ESCAPE '\\'");
+        }
+        if (afterName != null) {
+            jpql.append(" AND (f.name > :afterName OR (f.name = :afterName AND f.id > :afterId))");
+        }
+        jpql.append(" ORDER BY f.name, f.id");
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (namePrefix != null) {
+            query.setParameter("namePrefix", namePrefix);
+            query.setParameter("namePattern", escapeLike(namePrefix) + "%");
+        }
+        if (afterName != null) {
+            query.setParameter("afterName", afterName);
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultStream().map(SummaryRow::of);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private record SummaryRow(
+            UUID id, String name, FunctionStatus status, LocalDateTime createdAt, LocalDateTime updatedAt)
+            implements FunctionSummary {
+
+        static SummaryRow of(Tuple tuple) {
+            return new SummaryRow(
+                    tuple.get("id", UUID.class),
+                    tuple.get("name", String.class),
+                    tuple.get("status", FunctionStatus.class),
+                    tuple.get("createdAt", LocalDateTime.class),
+                    tuple.get("updatedAt", LocalDateTime.class));
+        }
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public FunctionStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+    }
+}
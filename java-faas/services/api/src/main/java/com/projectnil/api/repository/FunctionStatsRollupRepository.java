@@ -0,0 +1,30 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.FunctionStatsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read access to per-function execution stats rollups.
+ *
+ * <p>Writes go through {@code ExecutionStatsRecorder}, never through this repository.
+ */
+@Repository
+public interface FunctionStatsRollupRepository
+        extends JpaRepository<FunctionStatsRollup, FunctionStatsRollup.Key> {
+
+    /**
+     * Find the rollups of a function whose bucket starts in {@code [from, to)}.
+     *
+     * @param functionId the function ID
+     * @param from inclusive lower bound of the bucket start
+     * @param to exclusive upper bound of the bucket start
+     * @return rollups ordered by bucket start
+     */
+    List<FunctionStatsRollup> findByFunctionIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+            UUID functionId, Instant from, Instant to);
+}
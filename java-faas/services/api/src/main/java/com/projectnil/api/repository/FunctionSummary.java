@@ -0,0 +1,27 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.FunctionStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Metadata-only projection of a function for list and status reads.
+ *
+ * <p>Selects only these columns, so {@code source} is never loaded.
+ */
+public interface FunctionSummary {
+
+    UUID getId();
+
+    String getName();
+
+    FunctionStatus getStatus();
+
+    LocalDateTime getCreatedAt();
+
+    /**
+     * Last modification time; changes whenever any of the other fields does.
+     */
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,43 @@
+package com.projectnil.api.repository;
+
+import com.projectnil.common.domain.FunctionVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for {@link FunctionVersion} entities.
+ */
+@Repository
+public interface FunctionVersionRepository extends JpaRepository<FunctionVersion, UUID> {
+
+    /**
+     * Find the newest version of each of several functions.
+     *
+     * @param functionIds the function IDs
+     * @return the version with the highest revision of each function that has one
+     */
+    @Query("SELECT v FROM FunctionVersion v WHERE v.functionId IN :functionIds AND v.revision = "
+            + "(SELECT max(l.revision) FROM FunctionVersion l WHERE l.functionId = v.functionId)")
+    List<FunctionVersion> findLatestByFunctionIdIn(@Param("functionIds") Collection<UUID> functionIds);
+
+    /**
+     * Delete versions older than a revision, once a newer version is active.
+     *
+     * <p>Flushes first, so the function's new active version pointer is written before the
+     * previously active version is deleted.
+     *
+     * @param functionId the function ID
+     * @param revision versions below this revision are deleted
+     * @return the number of versions deleted
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM FunctionVersion v WHERE v.functionId = :functionId AND v.revision < :revision")
+    int deleteSuperseded(@Param("functionId") UUID functionId, @Param("revision") int revision);
+}
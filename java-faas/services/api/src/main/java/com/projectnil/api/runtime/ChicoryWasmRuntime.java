@@ -8,15 +8,21 @@ import com.dylibso.chicory.wasm.Parser;
 import com.dylibso.chicory.wasm.WasmModule;
 import com.dylibso.chicory.wasm.types.FunctionType;
 import com.dylibso.chicory.wasm.types.ValType;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +32,7 @@ import org.slf4j.LoggerFactory;
  * <p>This implementation:
  * <ul>
  *   <li>Parses WASM binary and instantiates the module</li>
+ *   <li>Keeps a bounded LRU of parsed modules for keyed executions</li>
  *   <li>Validates the required 'handle' export exists</li>
  *   <li>Uses {@link WasmStringCodec} for language-specific string I/O</li>
  *   <li>Enforces configurable execution timeout</li>
@@ -43,12 +50,28 @@ public class ChicoryWasmRuntime implements WasmRuntime {
      */
     private static final int MEMORY_WARNING_PAGES = 256;
 
+    /**
+     * Default number of parsed modules kept by {@link #execute(String, Supplier, String)}.
+     */
+    public static final int DEFAULT_MODULE_CACHE_SIZE = 64;
+
     private final WasmStringCodec stringCodec;
     private final Duration timeout;
+    private final Map<String, WasmModule> moduleCache;
 
     public ChicoryWasmRuntime(WasmStringCodec stringCodec, Duration timeout) {
+        this(stringCodec, timeout, DEFAULT_MODULE_CACHE_SIZE);
+    }
+
+    public ChicoryWasmRuntime(WasmStringCodec stringCodec, Duration timeout, int moduleCacheSize) {
         this.stringCodec = stringCodec;
         this.timeout = timeout;
+        this.moduleCache = Collections.synchronizedMap(new LinkedHashMap<String, WasmModule>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, WasmModule> eldest) {
+                return size() > moduleCacheSize;
+            }
+        });
     }
 
     @Override
@@ -57,8 +80,29 @@ public class ChicoryWasmRuntime implements WasmRuntime {
             wasmBinary.length, truncateForLog(inputJson));
 
         // 1. Parse WASM binary
-        WasmModule module = parseModule(wasmBinary);
+        return execute(parseModule(wasmBinary), inputJson);
+    }
 
+    /**
+     * Executes a cached parsed module, parsing (and loading the binary) only on a miss.
+     * The cache is a bounded LRU; parsed modules are immutable and shared across calls,
+     * while every call still gets a fresh {@link Instance}.
+     */
+    @Override
+    public byte[] execute(String moduleKey, Supplier<ByteBuffer> wasmLoader, String inputJson)
+            throws WasmExecutionException {
+        WasmModule module = moduleCache.get(moduleKey);
+        if (module == null) {
+            ByteBuffer wasmBinary = wasmLoader.get();
+            LOGGER.debug("Module cache miss for {}, parsing {} bytes", moduleKey, wasmBinary.remaining());
+            module = parseModule(wasmBinary);
+            moduleCache.put(moduleKey, module);
+        }
+        LOGGER.debug("Executing WASM module {} with input: {}", moduleKey, truncateForLog(inputJson));
+        return execute(module, inputJson);
+    }
+
+    private byte[] execute(WasmModule module, String inputJson) throws WasmExecutionException {
         // 2. Instantiate module
         Instance instance = instantiateModule(module);
 
@@ -100,6 +144,18 @@ public class ChicoryWasmRuntime implements WasmRuntime {
         }
     }
 
+    /**
+     * Parses straight from the buffer, e.g. a mapped artifact file, so the binary is not first
+     * copied into a heap array of its own.
+     */
+    private WasmModule parseModule(ByteBuffer wasmBinary) {
+        try (InputStream in = new ByteBufferInputStream(wasmBinary.duplicate())) {
+            return Parser.parse(in);
+        } catch (Exception e) {
+            throw new WasmExecutionException("Failed to parse WASM binary: " + e.getMessage(), e);
+        }
+    }
+
     private Instance instantiateModule(WasmModule module) {
         try {
             // Create a store with AssemblyScript host functions
@@ -251,4 +307,36 @@ public class ChicoryWasmRuntime implements WasmRuntime {
         }
         return value.substring(0, 100) + "... (" + value.length() + " chars)";
     }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
 }
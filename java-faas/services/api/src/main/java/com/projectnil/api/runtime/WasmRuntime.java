@@ -1,5 +1,8 @@
 package com.projectnil.api.runtime;
 
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
 public interface WasmRuntime {
     /**
      * Executes WASM binary with the provided JSON input.
@@ -9,4 +12,24 @@ public interface WasmRuntime {
      * @throws Exception if execution fails
      */
     byte[] execute(byte[] wasmBinary, String inputJson) throws Exception;
+
+    /**
+     * Executes a module identified by a key, loading the binary only if the runtime
+     * has no prepared module for that key.
+     *
+     * <p>The key must change whenever the binary changes. Runtimes without a module
+     * cache simply load the binary on every call.
+     *
+     * @param moduleKey stable identity of the binary
+     * @param wasmLoader loads the compiled WASM module on a cache miss, possibly as a mapped file
+     * @param inputJson the input parameters as a JSON string
+     * @return JSON output as bytes
+     * @throws Exception if execution fails
+     */
+    default byte[] execute(String moduleKey, Supplier<ByteBuffer> wasmLoader, String inputJson) throws Exception {
+        ByteBuffer buffer = wasmLoader.get().duplicate();
+        byte[] wasmBinary = new byte[buffer.remaining()];
+        buffer.get(wasmBinary);
+        return execute(wasmBinary, inputJson);
+    }
 }
@@ -29,6 +29,6 @@ public class WasmRuntimeConfiguration {
     public WasmRuntime wasmRuntime(
             WasmStringCodec stringCodec,
             WasmRuntimeProperties properties) {
-        return new ChicoryWasmRuntime(stringCodec, properties.timeout());
+        return new ChicoryWasmRuntime(stringCodec, properties.timeout(), properties.moduleCacheSize());
     }
 }
@@ -11,13 +11,16 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * projectnil:
  *   wasm:
  *     timeout: 10s
+ *     module-cache-size: 64
  * </pre>
  * 
  * @param timeout Maximum execution time for WASM functions. Default: 10 seconds.
+ * @param moduleCacheSize Maximum number of parsed modules kept in memory. Default: 64.
  */
 @ConfigurationProperties(prefix = "projectnil.wasm")
 public record WasmRuntimeProperties(
-    Duration timeout
+    Duration timeout,
+    Integer moduleCacheSize
 ) {
     /**
      * Default timeout of 10 seconds.
@@ -28,5 +31,8 @@ public record WasmRuntimeProperties(
         if (timeout == null) {
             timeout = DEFAULT_TIMEOUT;
         }
+        if (moduleCacheSize == null || moduleCacheSize < 1) {
+            moduleCacheSize = ChicoryWasmRuntime.DEFAULT_MODULE_CACHE_SIZE;
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.projectnil.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Deletes artifacts no function or function version references any more.
+ *
+ * <p>Only artifacts older than {@link ArtifactProperties#gcGracePeriod()} are considered, so
+ * an artifact stored moments before its function row commits survives. The foreign keys from
+ * {@code functions.artifact_hash} and {@code function_versions.artifact_hash} guarantee a
+ * referenced artifact is never deleted.
+ */
+@Component
+public class ArtifactGarbageCollector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactGarbageCollector.class);
+
+    private static final String DELETE_UNREFERENCED_SQL = """
+            DELETE FROM artifacts a
+            WHERE a.created_at < ?
+              AND NOT EXISTS (SELECT 1 FROM functions f WHERE f.artifact_hash = a.hash)
+              AND NOT EXISTS (SELECT 1 FROM function_versions v WHERE v.artifact_hash = a.hash)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArtifactProperties properties;
+
+    public ArtifactGarbageCollector(JdbcTemplate jdbcTemplate, ArtifactProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Delete unreferenced artifacts past the grace period.
+     *
+     * @return the number of artifacts deleted
+     */
+    @Scheduled(
+            initialDelayString = "${projectnil.artifacts.gc-interval-ms:600000}",
+            fixedDelayString = "${projectnil.artifacts.gc-interval-ms:600000}")
+    public int collect() {
+        Instant cutoff = Instant.now().minus(properties.gcGracePeriod());
+        try {
+            int deleted = jdbcTemplate.update(DELETE_UNREFERENCED_SQL, Timestamp.from(cutoff));
+            if (deleted > 0) {
+                LOG.info("artifacts.collected count={}", deleted);
+            }
+            return deleted;
+        } catch (DataAccessException ex) {
+            LOG.error("Artifact garbage collection failed, will retry", ex);
+            return 0;
+        }
+    }
+}
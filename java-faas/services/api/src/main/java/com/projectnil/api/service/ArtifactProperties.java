@@ -0,0 +1,62 @@
+package com.projectnil.api.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration properties for the WASM artifact store.
+ *
+ * <p>Configure via application.yaml:
+ * <pre>
+ * projectnil:
+ *   artifacts:
+ *     gc-grace-period: 1h
+ *     gc-interval-ms: 600000
+ *     local-cache:
+ *       dir: /var/cache/projectnil/artifacts
+ *       max-size: 1GB
+ * </pre>
+ *
+ * @param gcGracePeriod unreferenced artifacts younger than this are kept, so an artifact
+ *                      stored just before the function row referencing it is committed is
+ *                      never collected. Default: 1h.
+ * @param localCache the on-disk artifact cache of this node
+ */
+@ConfigurationProperties(prefix = "projectnil.artifacts")
+public record ArtifactProperties(
+        Duration gcGracePeriod,
+        LocalCache localCache
+) {
+    public ArtifactProperties {
+        if (gcGracePeriod == null || gcGracePeriod.isNegative()) {
+            gcGracePeriod = Duration.ofHours(1);
+        }
+        if (localCache == null) {
+            localCache = new LocalCache(null, null);
+        }
+    }
+
+    /**
+     * Node-local artifact directory, see {@link LocalArtifactCache}.
+     *
+     * @param dir directory holding cached artifacts; should outlive the process so restarts
+     *            start warm, e.g. a persistent volume in a container. The api image sets it
+     *            to {@code /var/cache/projectnil/artifacts}. Default:
+     *            {@code ${java.io.tmpdir}/projectnil-artifacts}, which suits local runs only.
+     * @param maxSize total disk budget; least recently used artifacts are evicted beyond it.
+     *                Zero disables the cache. Default: 1GB.
+     */
+    public record LocalCache(String dir, DataSize maxSize) {
+        public LocalCache {
+            if (dir == null || dir.isBlank()) {
+                dir = Path.of(System.getProperty("java.io.tmpdir"), "projectnil-artifacts").toString();
+            }
+            if (maxSize == null || maxSize.isNegative()) {
+                maxSize = DataSize.ofGigabytes(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.projectnil.api.service;
+
+import com.projectnil.api.repository.ArtifactRepository;
+import com.projectnil.common.domain.Artifact;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Content-addressed store for compiled WASM binaries.
+ *
+ * <p>Binaries are keyed by SHA-256, so functions compiled to the same bytes share one
+ * {@code artifacts} row and, through the hash-keyed runtime module cache, one parsed module.
+ * Loads go through the node's {@link LocalArtifactCache} before hitting the database.
+ *
+ * <p>Reports the following metrics:
+ * <ul>
+ *   <li>{@code projectnil.artifacts.stored} - new artifacts written</li>
+ *   <li>{@code projectnil.artifacts.deduplicated} - stores that found the artifact already present</li>
+ * </ul>
+ */
+@Service
+public class ArtifactStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactStore.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO artifacts (hash, data, size_bytes, created_at)
+            VALUES (?, ?, ?, now())
+            ON CONFLICT (hash) DO NOTHING
+            """;
+
+    private final ArtifactRepository artifactRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalArtifactCache localCache;
+    private final Counter stored;
+    private final Counter deduplicated;
+
+    public ArtifactStore(
+            ArtifactRepository artifactRepository,
+            JdbcTemplate jdbcTemplate,
+            LocalArtifactCache localCache,
+            MeterRegistry meterRegistry) {
+        this.artifactRepository = artifactRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.localCache = localCache;
+        this.stored = Counter.builder("projectnil.artifacts.stored")
+                .description("New WASM artifacts written to the artifact store")
+                .register(meterRegistry);
+        this.deduplicated = Counter.builder("projectnil.artifacts.deduplicated")
+                .description("Artifact stores skipped because identical bytes were already stored")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Store a binary unless identical bytes are already stored.
+     *
+     * @param data the compiled WASM binary
+     * @return the artifact hash to reference from the function
+     */
+    public String store(byte[] data) {
+        String hash = Artifact.hashOf(data);
+        int inserted = jdbcTemplate.update(INSERT_SQL, hash, data, (long) data.length);
+        if (inserted > 0) {
+            stored.increment();
+            LOG.debug("artifact.stored hash={} bytes={}", hash, data.length);
+        } else {
+            deduplicated.increment();
+            LOG.debug("artifact.deduplicated hash={}", hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Check whether an artifact exists, e.g. one the compiler stored for a result.
+     *
+     * @param hash the artifact hash
+     * @return true if the artifact exists
+     */
+    public boolean exists(String hash) {
+        return artifactRepository.existsById(hash);
+    }
+
+    /**
+     * Find which of the given artifacts exist, in one query.
+     *
+     * @param hashes the artifact hashes
+     * @return the hashes that exist
+     */
+    public Set<String> existing(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(artifactRepository.findExistingHashes(hashes));
+    }
+
+    /**
+     * Load the binary of an artifact.
+     *
+     * <p>A binary cached on this node is returned as its memory-mapped file, without a heap copy.
+     *
+     * @param hash the artifact hash
+     * @return a read-only buffer over the WASM binary
+     * @throws IllegalStateException if the artifact does not exist
+     */
+    public ByteBuffer load(String hash) {
+        Optional<ByteBuffer> cached = localCache.get(hash);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        byte[] data = artifactRepository.findDataByHash(hash)
+                .orElseThrow(() -> new IllegalStateException("Artifact not found: " + hash));
+        localCache.put(hash, data);
+        return ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+}
@@ -1,22 +1,45 @@
 package com.projectnil.api.service;
 
+import com.projectnil.api.messaging.PgmqClient;
 import com.projectnil.api.repository.FunctionRepository;
 import com.projectnil.common.domain.Function;
-import com.projectnil.common.domain.FunctionStatus;
+import com.projectnil.common.domain.FunctionVersion;
+import com.projectnil.common.domain.queue.CompilationJob;
 import com.projectnil.common.domain.queue.CompilationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
 /**
- * Handles compilation results by updating function status.
+ * Handles compilation results by updating function version status.
  *
  * <p>Per Issue #53 and scope/practices.md, this handler is idempotent:
  * <ul>
  *   <li>Re-applying the same result does not corrupt state</li>
- *   <li>If function is already READY or FAILED, the result is skipped</li>
+ *   <li>If the version is already READY or FAILED, the result is skipped</li>
+ *   <li>If the version was pruned because a newer one became active, the result is skipped</li>
+ *   <li>If the function has moved on to a newer revision, the result is discarded: only the
+ *       latest revision's outcome matters, and the compiler drops most such jobs unbuilt</li>
  * </ul>
+ *
+ * <p>Successful results normally reference an artifact the compiler already stored; results
+ * carrying the binary inline (the compiler's fallback when it could not store it) are stored
+ * here. If the referenced artifact has since been garbage-collected, e.g. because a
+ * dead-lettered result was replayed after the GC grace period, the version is queued for
+ * compilation again rather than failed.
  */
 @Service
 public class CompilationResultHandler {
@@ -24,61 +47,164 @@ public class CompilationResultHandler {
     private static final Logger LOG = LoggerFactory.getLogger(CompilationResultHandler.class);
 
     private final FunctionRepository functionRepository;
+    private final ArtifactStore artifactStore;
+    private final CompileCache compileCache;
+    private final FunctionMetadataCache metadataCache;
+    private final FunctionVersionService versionService;
+    private final PgmqClient pgmqClient;
 
-    public CompilationResultHandler(FunctionRepository functionRepository) {
+    public CompilationResultHandler(
+            FunctionRepository functionRepository,
+            ArtifactStore artifactStore,
+            CompileCache compileCache,
+            FunctionMetadataCache metadataCache,
+            FunctionVersionService versionService,
+            PgmqClient pgmqClient) {
         this.functionRepository = functionRepository;
+        this.pgmqClient = pgmqClient;
+        this.artifactStore = artifactStore;
+        this.compileCache = compileCache;
+        this.metadataCache = metadataCache;
+        this.versionService = versionService;
     }
 
     /**
-     * Apply a compilation result to the corresponding function.
+     * Apply a compilation result to the function version it was compiled from.
      *
      * @param result the compilation result
      * @return true if the result was applied, false if skipped
      */
     @Transactional
     public boolean applyResult(CompilationResult result) {
+        return applyResults(List.of(result)).getFirst();
+    }
+
+    /**
+     * Apply a batch of compilation results in one transaction.
+     *
+     * <p>Functions, versions (including each function's active version) and referenced
+     * artifacts are each loaded with one query, the resulting updates are flushed as JDBC
+     * batches, and versions superseded by the batch are deleted with one statement. Results are applied in order,
+     * so several results for the same function behave as if applied one by one. If any
+     * result throws, the whole batch rolls back.
+     *
+     * @param results the compilation results, oldest first
+     * @return for each result, in order, true if it was applied and false if skipped
+     */
+    @Transactional
+    public List<Boolean> applyResults(List<CompilationResult> results) {
+        Set<UUID> functionIds = results.stream().map(CompilationResult::functionId).collect(Collectors.toSet());
+        Map<UUID, Function> functions = new HashMap<>();
+        functionRepository.findAllById(functionIds).forEach(function -> functions.put(function.getId(), function));
+        FunctionVersionService.ResultBatch batch = versionService.loadForResults(results, functions.values());
+        Set<String> artifacts = new HashSet<>(artifactStore.existing(results.stream()
+                .map(CompilationResult::artifactHash)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())));
+
+        List<Boolean> applied = new ArrayList<>(results.size());
+        List<CompileCache.Entry> cacheEntries = new ArrayList<>();
+        Map<UUID, Function> updated = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            CompilationResult result = results.get(i);
+            Function function = functions.get(result.functionId());
+            if (function == null) {
+                LOG.warn("Function not found for compilation result: {}", result.functionId());
+                applied.add(false);
+            } else if (apply(result, function, batch, batch.version(i), artifacts, cacheEntries)) {
+                updated.put(function.getId(), function);
+                applied.add(true);
+            } else {
+                applied.add(false);
+            }
+        }
+
+        functionRepository.saveAll(updated.values());
+        versionService.pruneSuperseded(batch);
+        compileCache.recordAll(cacheEntries);
+        updated.keySet().forEach(metadataCache::invalidateAfterCommit);
+        return applied;
+    }
+
+    private boolean apply(
+            CompilationResult result,
+            Function function,
+            FunctionVersionService.ResultBatch batch,
+            Optional<FunctionVersion> optionalVersion,
+            Set<String> artifacts,
+            List<CompileCache.Entry> cacheEntries) {
         var functionId = result.functionId();
 
-        var optionalFunction = functionRepository.findById(functionId);
-        if (optionalFunction.isEmpty()) {
-            LOG.warn("Function not found for compilation result: {}", functionId);
+        if (optionalVersion.isEmpty()) {
+            LOG.info("Version {} of function {} no longer exists, skipping result",
+                    result.versionId(), functionId);
             return false;
         }
 
-        Function function = optionalFunction.get();
+        FunctionVersion version = optionalVersion.get();
 
-        // Idempotency check: skip if already in terminal state
-        if (function.getStatus() == FunctionStatus.READY
-                || function.getStatus() == FunctionStatus.FAILED) {
-            LOG.debug("Function {} already in terminal state {}, skipping result",
-                    functionId, function.getStatus());
+        // Idempotency check: skip if this version already has an outcome
+        if (version.isTerminal()) {
+            LOG.debug("Version {} of function {} already in terminal state {}, skipping result",
+                    version.getRevision(), functionId, version.getStatus());
             return false;
         }
 
-        if (result.success()) {
-            applySuccessResult(function, result);
-        } else {
-            applyFailureResult(function, result);
+        if (version.getRevision() < function.getRevision()) {
+            LOG.info("Discarding result for stale revision {} of function {}, current revision is {}",
+                    version.getRevision(), functionId, function.getRevision());
+            return false;
         }
 
-        functionRepository.save(function);
+        if (result.success() && result.artifactHash() != null) {
+            if (artifacts.contains(result.artifactHash())) {
+                applySuccessResult(batch, function, version, result, result.artifactHash(), cacheEntries);
+            } else {
+                // Only possible if the result outlived the artifact GC grace period
+                LOG.warn("Compilation result for {} references missing artifact {}, recompiling revision {}",
+                        functionId, result.artifactHash(), version.getRevision());
+                pgmqClient.publishJob(new CompilationJob(
+                        functionId,
+                        version.getLanguage(),
+                        version.getSource(),
+                        version.getId(),
+                        version.getRevision()
+                ));
+                return false;
+            }
+        } else if (result.success() && result.wasmBinary() != null) {
+            String artifactHash = artifactStore.store(result.wasmBinary());
+            artifacts.add(artifactHash);
+            applySuccessResult(batch, function, version, result, artifactHash, cacheEntries);
+        } else if (result.success()) {
+            LOG.warn("Compilation result for {} reported success without a binary", functionId);
+            applyFailureResult(function, version, "Compiler reported success without a binary");
+        } else {
+            applyFailureResult(function, version, result.error());
+        }
         return true;
     }
 
-    private void applySuccessResult(Function function, CompilationResult result) {
-        function.setStatus(FunctionStatus.READY);
-        function.setWasmBinary(result.wasmBinary());
-        function.setCompileError(null);
+    private void applySuccessResult(
+            FunctionVersionService.ResultBatch batch,
+            Function function,
+            FunctionVersion version,
+            CompilationResult result,
+            String artifactHash,
+            List<CompileCache.Entry> cacheEntries) {
+        versionService.markReady(batch, function, version, artifactHash);
+        if (result.cacheKey() != null) {
+            cacheEntries.add(new CompileCache.Entry(result.cacheKey(), version.getLanguage(), artifactHash));
+        }
 
-        LOG.info("Function {} compiled successfully, status=READY", result.functionId());
+        LOG.info("Function {} revision {} compiled successfully, status=READY",
+                result.functionId(), version.getRevision());
     }
 
-    private void applyFailureResult(Function function, CompilationResult result) {
-        function.setStatus(FunctionStatus.FAILED);
-        function.setWasmBinary(null);
-        function.setCompileError(result.error());
+    private void applyFailureResult(Function function, FunctionVersion version, String error) {
+        versionService.markFailed(function, version, error);
 
-        LOG.info("Function {} compilation failed, status=FAILED, error={}",
-                result.functionId(), result.error());
+        LOG.info("Function {} revision {} compilation failed, status=FAILED, error={}",
+                function.getId(), version.getRevision(), error);
     }
 }
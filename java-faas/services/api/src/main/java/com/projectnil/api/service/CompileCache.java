@@ -0,0 +1,177 @@
+package com.projectnil.api.service;
+
+import com.projectnil.common.domain.CompileCacheEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Lookup side of the compile cache.
+ *
+ * <p>Keys are computed with {@link CompileCacheEntry#keyOf} from the toolchain fingerprint
+ * the compiler registered in {@code compiler_toolchains}. Until a compiler has registered
+ * for a language, every lookup is a miss. Entries are recorded from successful
+ * {@link com.projectnil.common.domain.queue.CompilationResult}s that carry a cache key,
+ * and disappear when the artifact they point to is garbage collected.
+ *
+ * <p>Reports the following metrics:
+ * <ul>
+ *   <li>{@code projectnil.compile.cache.lookups} - lookups, tagged {@code result=hit|miss}</li>
+ *   <li>{@code projectnil.compile.cache.hit.ratio} - hits divided by lookups since startup</li>
+ * </ul>
+ */
+@Service
+public class CompileCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompileCache.class);
+
+    private static final String FINGERPRINT_SQL =
+            "SELECT fingerprint FROM compiler_toolchains WHERE language = ?";
+
+    private static final String LOOKUP_SQL =
+            "SELECT artifact_hash FROM compile_cache WHERE cache_key = ?";
+
+    private static final String LOOKUP_ALL_SQL =
+            "SELECT cache_key, artifact_hash FROM compile_cache WHERE cache_key = ANY(?)";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO compile_cache (cache_key, language, artifact_hash, created_at)
+            VALUES (?, ?, ?, now())
+            ON CONFLICT (cache_key) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CompileCache(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("projectnil.compile.cache.hit.ratio", this, CompileCache::hitRatio)
+                .description("Fraction of compile cache lookups that were hits since startup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find the artifact a previous compilation of this source produced.
+     *
+     * @param language the source language
+     * @param source the source code
+     * @return the cached artifact hash, or empty on a miss
+     */
+    public Optional<String> lookup(String language, String source) {
+        Optional<String> artifactHash;
+        try {
+            artifactHash = keyFor(language, source).flatMap(this::lookupKey);
+        } catch (DataAccessException ex) {
+            LOG.warn("Compile cache lookup failed for language {}, treating as miss", language, ex);
+            artifactHash = Optional.empty();
+        }
+        (artifactHash.isPresent() ? hits : misses).increment();
+        return artifactHash;
+    }
+
+    /**
+     * Find cached artifacts for many sources in one language, with one query for all of them.
+     *
+     * @param language the source language
+     * @param sources the source code of each function
+     * @return artifact hash by source, for the sources that hit
+     */
+    public Map<String, String> lookupAll(String language, Collection<String> sources) {
+        Set<String> distinctSources = new LinkedHashSet<>(sources);
+        Map<String, String> artifactHashes = new HashMap<>();
+        try {
+            Optional<String> fingerprint = jdbcTemplate.queryForList(FINGERPRINT_SQL, String.class, language)
+                    .stream().findFirst();
+            if (fingerprint.isPresent() && !distinctSources.isEmpty()) {
+                Map<String, String> sourceByKey = new HashMap<>();
+                for (String source : distinctSources) {
+                    sourceByKey.put(CompileCacheEntry.keyOf(language, fingerprint.get(), source), source);
+                }
+                String[] keys = sourceByKey.keySet().toArray(String[]::new);
+                jdbcTemplate.query(
+                        LOOKUP_ALL_SQL,
+                        ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", keys)),
+                        rs -> {
+                            artifactHashes.put(sourceByKey.get(rs.getString("cache_key")), rs.getString("artifact_hash"));
+                        });
+            }
+        } catch (DataAccessException ex) {
+            LOG.warn("Compile cache lookup failed for language {}, treating as miss", language, ex);
+            artifactHashes.clear();
+        }
+        for (String source : sources) {
+            (artifactHashes.containsKey(source) ? hits : misses).increment();
+        }
+        return artifactHashes;
+    }
+
+    /**
+     * Record the artifact produced for a cache key. Existing entries are kept.
+     *
+     * @param cacheKey the key reported by the compiler
+     * @param language the source language
+     * @param artifactHash the stored artifact
+     */
+    public void record(String cacheKey, String language, String artifactHash) {
+        jdbcTemplate.update(INSERT_SQL, cacheKey, language, artifactHash);
+        LOG.debug("compile.cache.recorded key={} artifactHash={}", cacheKey, artifactHash);
+    }
+
+    /**
+     * Record several entries in one batch. Existing entries are kept.
+     *
+     * @param entries the entries to record
+     */
+    public void recordAll(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries.stream()
+                .map(entry -> new Object[] {entry.cacheKey(), entry.language(), entry.artifactHash()})
+                .toList());
+        LOG.debug("compile.cache.recorded count={}", entries.size());
+    }
+
+    double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    private Optional<String> keyFor(String language, String source) {
+        return jdbcTemplate.queryForList(FINGERPRINT_SQL, String.class, language).stream()
+                .findFirst()
+                .map(fingerprint -> CompileCacheEntry.keyOf(language, fingerprint, source));
+    }
+
+    private Optional<String> lookupKey(String cacheKey) {
+        return jdbcTemplate.queryForList(LOOKUP_SQL, String.class, cacheKey).stream().findFirst();
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("projectnil.compile.cache.lookups")
+                .description("Compile cache lookups on function create/update")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * An entry to record: the artifact a compilation produced for a cache key.
+     */
+    public record Entry(String cacheKey, String language, String artifactHash) {}
+}
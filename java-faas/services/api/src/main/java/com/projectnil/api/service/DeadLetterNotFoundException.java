@@ -0,0 +1,18 @@
+package com.projectnil.api.service;
+
+/**
+ * Exception thrown when a dead-lettered message is not found.
+ */
+public class DeadLetterNotFoundException extends RuntimeException {
+
+    private final long messageId;
+
+    public DeadLetterNotFoundException(long messageId) {
+        super("Dead-lettered message not found: " + messageId);
+        this.messageId = messageId;
+    }
+
+    public long getMessageId() {
+        return messageId;
+    }
+}
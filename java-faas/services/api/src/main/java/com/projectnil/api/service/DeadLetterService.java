@@ -0,0 +1,60 @@
+package com.projectnil.api.service;
+
+import com.projectnil.api.messaging.PgmqClient;
+import com.projectnil.api.web.DeadLetterReplayResponse;
+import com.projectnil.api.web.DeadLetterResponse;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Service for inspecting and replaying compilation results that were dead-lettered after
+ * failing {@code projectnil.pgmq.max-deliveries} times.
+ */
+@Service
+public class DeadLetterService {
+
+    static final int MAX_LIMIT = 1000;
+
+    private final PgmqClient pgmqClient;
+
+    public DeadLetterService(PgmqClient pgmqClient) {
+        this.pgmqClient = pgmqClient;
+    }
+
+    /**
+     * List dead-lettered compilation results, most recently dead-lettered first.
+     *
+     * @param limit maximum number of results, between 1 and {@value #MAX_LIMIT}
+     * @return the dead-lettered results
+     */
+    public List<DeadLetterResponse> list(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return pgmqClient.listArchivedResults(limit).stream()
+                .map(archived -> new DeadLetterResponse(
+                        archived.messageId(),
+                        archived.functionId(),
+                        archived.versionId(),
+                        archived.success(),
+                        archived.readCount(),
+                        archived.enqueuedAt(),
+                        archived.archivedAt()))
+                .toList();
+    }
+
+    /**
+     * Send a dead-lettered compilation result back to the results queue, where it gets
+     * another {@code max-deliveries} attempts.
+     *
+     * @param messageId the dead-lettered message ID
+     * @return the dead-lettered and new queue message IDs
+     * @throws DeadLetterNotFoundException if no such dead-lettered message exists
+     */
+    public DeadLetterReplayResponse replay(long messageId) {
+        long replayedAs = pgmqClient.replayArchivedResult(messageId)
+                .orElseThrow(() -> new DeadLetterNotFoundException(messageId));
+        return new DeadLetterReplayResponse(messageId, replayedAs);
+    }
+}
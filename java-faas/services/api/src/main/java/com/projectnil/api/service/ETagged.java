@@ -0,0 +1,12 @@
+package com.projectnil.api.service;
+
+/**
+ * A response body with the entity tag that validates it.
+ *
+ * @param body the response body
+ * @param etag the unquoted strong entity tag, or null if the body must not be cached
+ * @param immutable whether the body can never change, so clients may cache it indefinitely
+ * @param <T> the body type
+ */
+public record ETagged<T>(T body, String etag, boolean immutable) {
+}
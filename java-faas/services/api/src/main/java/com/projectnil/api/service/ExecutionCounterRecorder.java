@@ -0,0 +1,130 @@
+package com.projectnil.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Keeps exact per-function execution totals in {@code function_execution_counters}.
+ *
+ * <p>Each execution inserts one narrow {@code function_execution_counter_deltas} row in the
+ * execution's own transaction, so it is counted exactly when it commits and a crash loses
+ * nothing. Inserts never touch the per-function counter row, so concurrent executions of a
+ * hot function do not contend on a row lock.
+ *
+ * <p>On a fixed delay, deltas are rolled up into the counters by a single statement that
+ * deletes them and adds them to the counter rows, so a delta is applied once or, if the
+ * statement fails, not at all and stays pending. Nodes roll up concurrently with
+ * {@code SKIP LOCKED}. Readers add the pending deltas, see {@link #pending}.
+ */
+@Component
+public class ExecutionCounterRecorder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionCounterRecorder.class);
+
+    private static final int ROLLUP_BATCH_SIZE = 10_000;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO function_execution_counter_deltas (function_id, failed, persisted)
+            VALUES (?, ?, ?)
+            """;
+
+    private static final String ROLLUP_SQL = """
+            WITH moved AS (
+                DELETE FROM function_execution_counter_deltas
+                WHERE id IN (
+                    SELECT id FROM function_execution_counter_deltas
+                    ORDER BY id
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING function_id, failed, persisted
+            ), summed AS (
+                SELECT function_id,
+                       count(*) AS total_count,
+                       count(*) FILTER (WHERE NOT failed) AS completed_count,
+                       count(*) FILTER (WHERE failed) AS failed_count,
+                       count(*) FILTER (WHERE persisted) AS persisted_count
+                FROM moved
+                GROUP BY function_id
+            )
+            INSERT INTO function_execution_counters
+                (function_id, total_count, completed_count, failed_count, persisted_count, updated_at)
+            SELECT s.function_id, s.total_count, s.completed_count, s.failed_count, s.persisted_count, now()
+            FROM summed s
+            WHERE EXISTS (SELECT 1 FROM functions f WHERE f.id = s.function_id)
+            ON CONFLICT (function_id) DO UPDATE SET
+                total_count = function_execution_counters.total_count + EXCLUDED.total_count,
+                completed_count = function_execution_counters.completed_count + EXCLUDED.completed_count,
+                failed_count = function_execution_counters.failed_count + EXCLUDED.failed_count,
+                persisted_count = function_execution_counters.persisted_count + EXCLUDED.persisted_count,
+                updated_at = now()
+            """;
+
+    private static final String PENDING_SQL = """
+            SELECT count(*) AS total_count,
+                   count(*) FILTER (WHERE NOT failed) AS completed_count,
+                   count(*) FILTER (WHERE failed) AS failed_count
+            FROM function_execution_counter_deltas
+            WHERE function_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExecutionCounterRecorder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Count a finished execution. Must be called in the transaction that records the
+     * execution, so the count commits or rolls back with it.
+     *
+     * @param functionId the function ID
+     * @param failed whether the execution FAILED
+     * @param persisted whether an executions row was written for it
+     */
+    public void record(UUID functionId, boolean failed, boolean persisted) {
+        jdbcTemplate.update(INSERT_SQL, functionId, failed, persisted);
+    }
+
+    /**
+     * Counts recorded for a function but not yet rolled up into its counter row.
+     *
+     * @param functionId the function ID
+     * @return the pending counts
+     */
+    public Counts pending(UUID functionId) {
+        return jdbcTemplate.queryForObject(PENDING_SQL, (rs, rowNum) -> new Counts(
+                rs.getLong("total_count"),
+                rs.getLong("completed_count"),
+                rs.getLong("failed_count")), functionId);
+    }
+
+    /**
+     * Roll pending deltas up into the counters, one statement per batch, until none are left.
+     */
+    @Scheduled(fixedDelayString = "${projectnil.executions.counters.flush-interval-ms:1000}")
+    public void flush() {
+        try {
+            int functions;
+            do {
+                functions = jdbcTemplate.update(ROLLUP_SQL, ROLLUP_BATCH_SIZE);
+                if (functions > 0) {
+                    LOG.debug("execution.counters.flushed functions={}", functions);
+                }
+            } while (functions > 0);
+        } catch (DataAccessException ex) {
+            LOG.error("Failed to roll up execution counters, will retry", ex);
+        }
+    }
+
+    /**
+     * Execution counts of one function.
+     */
+    public record Counts(long total, long completed, long failed) {
+    }
+}
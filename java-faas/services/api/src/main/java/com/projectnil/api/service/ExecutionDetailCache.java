@@ -0,0 +1,149 @@
+package com.projectnil.api.service;
+
+import com.projectnil.api.messaging.PgNotificationListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded per-node LRU of rendered detail responses for COMPLETED and FAILED executions.
+ *
+ * <p>A terminal execution is never modified, so each entry holds the serialized JSON body
+ * next to its entity tag, and repeat reads write those bytes out without the query, the jsonb
+ * round trip or serialization. Executions with offloaded payloads are not cached, which keeps
+ * every entry below the offload threshold in size.
+ *
+ * <p>Executions are deleted along with their function, so a function's entries are evicted
+ * whenever it changes: locally after the deleting transaction commits, and on other nodes
+ * when {@link PgNotificationListener} delivers the {@code function_changes} notification
+ * (see {@link FunctionMetadataCache}). Everything is evicted when listening (re)starts, since
+ * deletes may have been missed.
+ *
+ * <p>Reports the following metrics:
+ * <ul>
+ *   <li>{@code projectnil.executions.detail.cache.lookups} - lookups, tagged {@code result=hit|miss}</li>
+ *   <li>{@code projectnil.executions.detail.cache.size} - cached executions</li>
+ * </ul>
+ */
+@Component
+public class ExecutionDetailCache {
+
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final LinkedHashMap<UUID, Entry> entries;
+
+    public ExecutionDetailCache(
+            ExecutionDetailCacheProperties properties,
+            PgNotificationListener notificationListener,
+            MeterRegistry meterRegistry) {
+        this.maxSize = properties.maxSize();
+        this.entries = new LinkedHashMap<UUID, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("projectnil.executions.detail.cache.size", this, ExecutionDetailCache::size)
+                .description("Terminal executions whose detail response is cached on this node")
+                .register(meterRegistry);
+        notificationListener.subscribe(
+                FunctionMetadataCache.CHANNEL,
+                payload -> invalidateFunction(UUID.fromString(payload)),
+                this::invalidateAll);
+    }
+
+    /**
+     * Get a cached detail response.
+     *
+     * @param id the execution ID
+     * @return the rendered JSON body and its entity tag, or empty on a miss
+     */
+    public Optional<ETagged<byte[]>> get(UUID id) {
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(id);
+        }
+        (cached != null ? hits : misses).increment();
+        return Optional.ofNullable(cached).map(Entry::response);
+    }
+
+    /**
+     * Cache a terminal execution's rendered detail response.
+     *
+     * @param id the execution ID; must be COMPLETED or FAILED
+     * @param functionId the execution's function ID
+     * @param response the rendered JSON body and its entity tag; the array must not be modified
+     */
+    public void put(UUID id, UUID functionId, ETagged<byte[]> response) {
+        if (maxSize == 0) {
+            return;
+        }
+        synchronized (this) {
+            entries.put(id, new Entry(functionId, response));
+        }
+    }
+
+    /**
+     * Evict a function's executions once the current transaction commits, or immediately if
+     * there is none.
+     *
+     * @param functionId the function ID
+     */
+    public void invalidateFunctionAfterCommit(UUID functionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateFunction(functionId);
+                }
+            });
+        } else {
+            invalidateFunction(functionId);
+        }
+    }
+
+    /**
+     * Evict a function's executions.
+     *
+     * @param functionId the function ID
+     */
+    public synchronized void invalidateFunction(UUID functionId) {
+        entries.values().removeIf(entry -> functionId.equals(entry.functionId()));
+    }
+
+    /**
+     * Evict every execution.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("projectnil.executions.detail.cache.lookups")
+                .description("Execution detail lookups on GET /executions/{id}")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry(UUID functionId, ETagged<byte[]> response) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.projectnil.api.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the execution detail cache.
+ *
+ * <p>Configure via application.yaml:
+ * <pre>
+ * projectnil:
+ *   executions:
+ *     detail-cache:
+ *       max-size: 1000
+ * </pre>
+ *
+ * @param maxSize maximum number of terminal executions whose detail response is cached per
+ *                node. Zero disables the cache. Default: 1000.
+ */
+@ConfigurationProperties(prefix = "projectnil.executions.detail-cache")
+public record ExecutionDetailCacheProperties(
+        Integer maxSize
+) {
+    public ExecutionDetailCacheProperties {
+        if (maxSize == null || maxSize < 0) {
+            maxSize = 1000;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.projectnil.api.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration properties for execution payload storage.
+ *
+ * <p>Configure via application.yaml:
+ * <pre>
+ * projectnil:
+ *   executions:
+ *     payload:
+ *       offload-threshold: 64KB
+ * </pre>
+ *
+ * @param offloadThreshold inputs/outputs at or above this UTF-8 size are compressed into
+ *                         {@code execution_payloads} instead of stored inline. Default: 64KB.
+ */
+@ConfigurationProperties(prefix = "projectnil.executions.payload")
+public record ExecutionPayloadProperties(
+        DataSize offloadThreshold
+) {
+    /**
+     * Default threshold of 64KB, roughly where jsonb values start being TOASTed anyway.
+     */
+    private static final DataSize DEFAULT_OFFLOAD_THRESHOLD = DataSize.ofKilobytes(64);
+
+    public ExecutionPayloadProperties {
+        if (offloadThreshold == null || offloadThreshold.toBytes() <= 0) {
+            offloadThreshold = DEFAULT_OFFLOAD_THRESHOLD;
+        }
+    }
+}
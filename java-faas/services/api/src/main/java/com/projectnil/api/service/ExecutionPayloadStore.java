@@ -0,0 +1,168 @@
+package com.projectnil.api.service;
+
+import com.projectnil.api.repository.ExecutionPayloadRepository;
+import com.projectnil.common.domain.ExecutionPayload;
+import com.projectnil.common.domain.ExecutionPayloadKind;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores large execution inputs/outputs compressed in {@code execution_payloads}.
+ *
+ * <p>Payloads below {@link ExecutionPayloadProperties#offloadThreshold()} stay inline in
+ * the {@code executions} row. Larger payloads are gzip-compressed into a separate table so
+ * the hot {@code executions} table, its TOAST relation and WAL stay small. Offloaded
+ * payloads are only read back for {@code GET /executions/{id}}.
+ *
+ * <p>Reports the following metrics:
+ * <ul>
+ *   <li>{@code projectnil.execution.payload.offloaded} - payloads offloaded, tagged by kind</li>
+ *   <li>{@code projectnil.execution.payload.compression.ratio} - original/stored size</li>
+ *   <li>{@code projectnil.execution.payload.bytes.saved} - bytes not written thanks to compression</li>
+ * </ul>
+ */
+@Service
+public class ExecutionPayloadStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionPayloadStore.class);
+
+    static final String ENCODING_GZIP = "gzip";
+    static final String ENCODING_IDENTITY = "identity";
+
+    /**
+     * A Java char never needs more than 3 UTF-8 bytes, so anything shorter than
+     * {@code threshold / 3} chars is known to be inline without encoding it.
+     */
+    private static final int MAX_UTF8_BYTES_PER_CHAR = 3;
+
+    private final ExecutionPayloadRepository payloadRepository;
+    private final long offloadThresholdBytes;
+    private final Counter inputOffloaded;
+    private final Counter outputOffloaded;
+    private final Counter bytesSaved;
+    private final DistributionSummary compressionRatio;
+
+    public ExecutionPayloadStore(
+            ExecutionPayloadRepository payloadRepository,
+            ExecutionPayloadProperties properties,
+            MeterRegistry meterRegistry) {
+        this.payloadRepository = payloadRepository;
+        this.offloadThresholdBytes = properties.offloadThreshold().toBytes();
+        this.inputOffloaded = offloadedCounter(meterRegistry, ExecutionPayloadKind.INPUT);
+        this.outputOffloaded = offloadedCounter(meterRegistry, ExecutionPayloadKind.OUTPUT);
+        this.bytesSaved = Counter.builder("projectnil.execution.payload.bytes.saved")
+                .description("Bytes saved by compressing offloaded execution payloads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.compressionRatio = DistributionSummary.builder("projectnil.execution.payload.compression.ratio")
+                .description("Original size divided by stored size of offloaded execution payloads")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the given JSON is large enough to be offloaded.
+     *
+     * @param json the serialized input or output
+     * @return true if the payload should be stored via {@link #offload}
+     */
+    public boolean shouldOffload(String json) {
+        if (json == null) {
+            return false;
+        }
+        if ((long) json.length() * MAX_UTF8_BYTES_PER_CHAR < offloadThresholdBytes) {
+            return false;
+        }
+        return json.getBytes(StandardCharsets.UTF_8).length >= offloadThresholdBytes;
+    }
+
+    /**
+     * Compress and persist a payload for an already saved execution.
+     *
+     * @param executionId the execution ID
+     * @param kind whether this is the input or the output
+     * @param json the serialized payload
+     */
+    public void offload(UUID executionId, ExecutionPayloadKind kind, String json) {
+        byte[] original = json.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = gzip(original);
+
+        // Incompressible payloads are still moved out of the executions row, just not gzipped
+        boolean useGzip = compressed.length < original.length;
+        byte[] stored = useGzip ? compressed : original;
+
+        payloadRepository.save(ExecutionPayload.builder()
+                .executionId(executionId)
+                .kind(kind)
+                .encoding(useGzip ? ENCODING_GZIP : ENCODING_IDENTITY)
+                .data(stored)
+                .originalSizeBytes(original.length)
+                .storedSizeBytes(stored.length)
+                .build());
+
+        (kind == ExecutionPayloadKind.INPUT ? inputOffloaded : outputOffloaded).increment();
+        bytesSaved.increment(original.length - stored.length);
+        compressionRatio.record((double) original.length / Math.max(stored.length, 1));
+
+        LOG.debug("execution.payload.offloaded executionId={} kind={} originalBytes={} storedBytes={}",
+                executionId, kind, original.length, stored.length);
+    }
+
+    /**
+     * Load and decompress an offloaded payload.
+     *
+     * @param executionId the execution ID
+     * @param kind whether to load the input or the output
+     * @return the JSON payload, or empty if none was offloaded
+     */
+    public Optional<String> load(UUID executionId, ExecutionPayloadKind kind) {
+        return payloadRepository.findByExecutionIdAndKind(executionId, kind)
+                .map(this::decode);
+    }
+
+    private String decode(ExecutionPayload payload) {
+        if (ENCODING_IDENTITY.equals(payload.getEncoding())) {
+            return new String(payload.getData(), StandardCharsets.UTF_8);
+        }
+        return new String(gunzip(payload.getData()), StandardCharsets.UTF_8);
+    }
+
+    static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(data.length / 4, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress execution payload", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] data) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress execution payload", e);
+        }
+    }
+
+    private static Counter offloadedCounter(MeterRegistry meterRegistry, ExecutionPayloadKind kind) {
+        return Counter.builder("projectnil.execution.payload.offloaded")
+                .description("Execution payloads stored in execution_payloads instead of inline")
+                .tag("kind", kind.name().toLowerCase())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,147 @@
+package com.projectnil.api.service;
+
+import com.projectnil.api.repository.FunctionExecutionMetadata;
+import com.projectnil.common.domain.ExecutionPersistenceMode;
+import com.projectnil.common.domain.Function;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-function policy deciding which executions get an {@code executions} row.
+ *
+ * <p>Textual forms accepted on {@code FunctionRequest.persistencePolicy}:
+ * <ul>
+ *   <li>{@code all} - every execution, written as RUNNING then updated (default)</li>
+ *   <li>{@code failures-only} - only FAILED executions, including input</li>
+ *   <li>{@code sampled(rate)} - a random {@code rate} (0..1] of successful executions,
+ *       plus every failure</li>
+ *   <li>{@code metadata-only} - every execution, without input/output</li>
+ *   <li>{@code none} - no execution rows at all</li>
+ * </ul>
+ *
+ * <p>All policies other than {@code all} write at most one row per execution, after it
+ * finishes. Totals are kept separately by {@link ExecutionCounterRecorder}.
+ *
+ * @param mode the persistence mode
+ * @param sampleRate fraction of successful executions kept when mode is SAMPLED
+ */
+public record ExecutionPersistencePolicy(ExecutionPersistenceMode mode, double sampleRate) {
+
+    public static final ExecutionPersistencePolicy ALL = new ExecutionPersistencePolicy(ExecutionPersistenceMode.ALL, 1.0);
+
+    private static final Pattern SAMPLED = Pattern.compile("sampled\\(\\s*([0-9]*\\.?[0-9]+)\\s*\\)");
+
+    public ExecutionPersistencePolicy {
+        if (mode == null) {
+            throw new IllegalArgumentException("Persistence mode is required");
+        }
+        if (mode == ExecutionPersistenceMode.SAMPLED) {
+            if (!(sampleRate > 0.0 && sampleRate <= 1.0)) {
+                throw new IllegalArgumentException(
+                        "Sample rate must be in (0, 1], got: " + sampleRate);
+            }
+        } else {
+            sampleRate = 1.0;
+        }
+    }
+
+    /**
+     * Parse the textual form of a policy.
+     *
+     * @param value e.g. {@code all}, {@code sampled(0.01)}
+     * @return the policy
+     * @throws IllegalArgumentException if the value is not a known policy
+     */
+    public static ExecutionPersistencePolicy parse(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Persistence policy must not be blank");
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        Matcher sampled = SAMPLED.matcher(normalized);
+        if (sampled.matches()) {
+            return new ExecutionPersistencePolicy(
+                    ExecutionPersistenceMode.SAMPLED, Double.parseDouble(sampled.group(1)));
+        }
+        return switch (normalized) {
+            case "all" -> ALL;
+            case "failures-only" -> new ExecutionPersistencePolicy(ExecutionPersistenceMode.FAILURES_ONLY, 1.0);
+            case "metadata-only" -> new ExecutionPersistencePolicy(ExecutionPersistenceMode.METADATA_ONLY, 1.0);
+            case "none" -> new ExecutionPersistencePolicy(ExecutionPersistenceMode.NONE, 1.0);
+            default -> throw new IllegalArgumentException("Unknown persistence policy: " + value
+                    + ". Supported: all, failures-only, sampled(rate), metadata-only, none");
+        };
+    }
+
+    /**
+     * Read the policy stored on a function.
+     *
+     * @param function the function
+     * @return the function's policy
+     */
+    public static ExecutionPersistencePolicy of(Function function) {
+        return new ExecutionPersistencePolicy(function.getPersistenceMode(), function.getPersistenceSampleRate());
+    }
+
+    /**
+     * Read the policy from a function's execution metadata.
+     *
+     * @param function the function metadata
+     * @return the function's policy
+     */
+    public static ExecutionPersistencePolicy of(FunctionExecutionMetadata function) {
+        return new ExecutionPersistencePolicy(function.getPersistenceMode(), function.getPersistenceSampleRate());
+    }
+
+    /**
+     * Store this policy on a function.
+     *
+     * @param function the function to update
+     */
+    public void applyTo(Function function) {
+        function.setPersistenceMode(mode);
+        function.setPersistenceSampleRate(sampleRate);
+    }
+
+    /**
+     * Whether a RUNNING row is written before the guest is invoked.
+     */
+    public boolean writesRunningRow() {
+        return mode == ExecutionPersistenceMode.ALL;
+    }
+
+    /**
+     * Whether input and output are stored on persisted rows.
+     */
+    public boolean storesPayloads() {
+        return mode != ExecutionPersistenceMode.METADATA_ONLY;
+    }
+
+    /**
+     * Decide whether a finished execution gets a row.
+     *
+     * @param failed whether the execution FAILED
+     * @return true if the execution should be persisted
+     */
+    public boolean shouldPersist(boolean failed) {
+        return switch (mode) {
+            case ALL, METADATA_ONLY -> true;
+            case FAILURES_ONLY -> failed;
+            case SAMPLED -> failed || ThreadLocalRandom.current().nextDouble() < sampleRate;
+            case NONE -> false;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case ALL -> "all";
+            case FAILURES_ONLY -> "failures-only";
+            case SAMPLED -> "sampled(" + sampleRate + ")";
+            case METADATA_ONLY -> "metadata-only";
+            case NONE -> "none";
+        };
+    }
+}
@@ -1,8 +1,11 @@
 package com.projectnil.api.service;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projectnil.api.repository.ExecutionRepository;
+import com.projectnil.api.repository.FunctionExecutionMetadata;
 import com.projectnil.api.runtime.WasmExecutionException;
 import com.projectnil.api.runtime.WasmRuntime;
 import com.projectnil.api.web.ExecutionDetailResponse;
@@ -10,17 +13,23 @@ import com.projectnil.api.web.ExecutionRequest;
 import com.projectnil.api.web.ExecutionResponse;
 import com.projectnil.api.web.ExecutionSummaryResponse;
 import com.projectnil.common.domain.Execution;
+import com.projectnil.common.domain.ExecutionPayloadKind;
 import com.projectnil.common.domain.ExecutionStatus;
-import com.projectnil.common.domain.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for executing functions.
@@ -33,18 +42,41 @@ public class ExecutionService {
 
     private final FunctionService functionService;
     private final ExecutionRepository executionRepository;
+    private final ExecutionPayloadStore payloadStore;
+    private final ExecutionCounterRecorder counterRecorder;
+    private final ExecutionStatsRecorder statsRecorder;
+    private final ArtifactStore artifactStore;
+    private final ExecutionDetailCache detailCache;
     private final WasmRuntime wasmRuntime;
     private final ObjectMapper objectMapper;
 
+    /**
+     * The mapper Spring MVC writes responses with, so rendered detail bodies match what MVC
+     * would have written.
+     */
+    private final JsonMapper jsonMapper;
+
     public ExecutionService(
             FunctionService functionService,
             ExecutionRepository executionRepository,
+            ExecutionPayloadStore payloadStore,
+            ExecutionCounterRecorder counterRecorder,
+            ExecutionStatsRecorder statsRecorder,
+            ArtifactStore artifactStore,
+            ExecutionDetailCache detailCache,
             WasmRuntime wasmRuntime,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            JsonMapper jsonMapper) {
         this.functionService = functionService;
         this.executionRepository = executionRepository;
+        this.payloadStore = payloadStore;
+        this.counterRecorder = counterRecorder;
+        this.statsRecorder = statsRecorder;
+        this.artifactStore = artifactStore;
+        this.detailCache = detailCache;
         this.wasmRuntime = wasmRuntime;
         this.objectMapper = objectMapper;
+        this.jsonMapper = jsonMapper;
     }
 
     /**
@@ -53,11 +85,17 @@ public class ExecutionService {
      * <p>Flow per scope/flows.md Flow 3:
      * <ol>
      *   <li>Validate function exists and is READY</li>
-     *   <li>Create Execution record with RUNNING status</li>
+     *   <li>Create Execution record with RUNNING status (policy {@code all} only)</li>
      *   <li>Execute WASM via WasmRuntime</li>
-     *   <li>Update Execution with result (COMPLETED or FAILED)</li>
+     *   <li>Persist Execution with result (COMPLETED or FAILED) if the function's
+     *       {@link ExecutionPersistencePolicy} keeps it</li>
      * </ol>
      *
+     * <p>Every execution is counted by {@link ExecutionCounterRecorder} and folded into the
+     * stats rollups by {@link ExecutionStatsRecorder}, persisted or not.
+     * Executions that are not persisted still get an ID in the response, but it cannot be
+     * looked up later.
+     *
      * @param functionId the function ID
      * @param request the execution request containing input
      * @return the execution response
@@ -69,60 +107,134 @@ public class ExecutionService {
         LOG.info("execution.started functionId={}", functionId);
 
         // Validate function exists and is READY (throws if not)
-        Function function = functionService.findReadyById(functionId);
+        FunctionExecutionMetadata function = functionService.findReadyById(functionId);
 
         // Serialize input to JSON string for storage and WASM
         String inputJson = serializeInput(request.input());
 
-        // Create execution record with RUNNING status
+        return execute(function, inputJson);
+    }
+
+    /**
+     * Execute a function with the raw JSON request body as input.
+     *
+     * <p>Same flow as {@link #execute(UUID, ExecutionRequest)}, but the body is only checked
+     * with a streaming token scan to be a single JSON object and is then handed to the
+     * runtime unchanged, without building an object tree. An empty body is treated as
+     * {@code {}}.
+     *
+     * @param functionId the function ID
+     * @param body the raw JSON input object
+     * @return the execution response
+     * @throws FunctionNotFoundException if function not found
+     * @throws FunctionNotReadyException if function not in READY status
+     * @throws InvalidInputException if the body is not a single JSON object
+     */
+    @Transactional
+    public ExecutionResponse executeRaw(UUID functionId, byte[] body) {
+        LOG.info("execution.started functionId={} raw=true", functionId);
+
+        FunctionExecutionMetadata function = functionService.findReadyById(functionId);
+        String inputJson = readRawInput(body);
+
+        return execute(function, inputJson);
+    }
+
+    private ExecutionResponse execute(FunctionExecutionMetadata function, String inputJson) {
+        UUID functionId = function.getId();
+        ExecutionPersistencePolicy policy = ExecutionPersistencePolicy.of(function);
+
         Execution execution = Execution.builder()
                 .functionId(functionId)
-                .input(inputJson)
                 .status(ExecutionStatus.RUNNING)
                 .startedAt(LocalDateTime.now())
                 .build();
-        execution = executionRepository.save(execution);
+        if (policy.writesRunningRow()) {
+            execution = saveWithPayloads(execution, inputJson, null);
+        }
 
-        try {
-            // Execute WASM
-            byte[] outputBytes = wasmRuntime.execute(function.getWasmBinary(), inputJson);
-            String outputJson = new String(outputBytes, StandardCharsets.UTF_8);
-
-            // Update execution as COMPLETED
-            execution.setStatus(ExecutionStatus.COMPLETED);
-            execution.setOutput(outputJson);
-            execution.setCompletedAt(LocalDateTime.now());
+        Instant invokedAt = Instant.now();
+        long startNanos = System.nanoTime();
+        Invocation invocation = invoke(execution, function, inputJson);
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        execution.setStatus(invocation.status());
+        execution.setErrorMessage(invocation.errorMessage());
+        execution.setCompletedAt(LocalDateTime.now());
+
+        boolean failed = invocation.status() == ExecutionStatus.FAILED;
+        boolean persisted = policy.shouldPersist(failed);
+        if (persisted && policy.storesPayloads()) {
+            execution = saveWithPayloads(execution, policy.writesRunningRow() ? null : inputJson,
+                    invocation.outputJson());
+        } else if (persisted) {
             execution = executionRepository.save(execution);
+        } else {
+            execution.setId(UUID.randomUUID());
+            execution.setCreatedAt(execution.getStartedAt());
+        }
+        counterRecorder.record(functionId, failed, persisted);
+        statsRecorder.record(functionId, invokedAt, durationMs, failed);
+
+        if (failed) {
+            LOG.debug("execution.finished executionId={} functionId={} status={} persisted={}",
+                    execution.getId(), functionId, execution.getStatus(), persisted);
+        } else {
+            LOG.info("execution.completed executionId={} functionId={} persisted={}",
+                    execution.getId(), functionId, persisted);
+        }
 
-            LOG.info("execution.completed executionId={} functionId={}",
-                    execution.getId(), functionId);
+        return toResponse(execution, invocation.outputJson());
+    }
 
-            return toResponse(execution);
+    private Invocation invoke(Execution execution, FunctionExecutionMetadata function, String inputJson) {
+        try {
+            // The binary is only read from the artifact store when the runtime's module cache
+            // misses; functions sharing an artifact share the cached module
+            byte[] outputBytes = wasmRuntime.execute(
+                    function.getArtifactHash(),
+                    () -> artifactStore.load(function.getArtifactHash()),
+                    inputJson);
+            return new Invocation(ExecutionStatus.COMPLETED,
+                    toRawJson(new String(outputBytes, StandardCharsets.UTF_8)), null);
 
         } catch (WasmExecutionException e) {
             // User code error (trap, timeout) - mark as FAILED but return 200
             LOG.warn("execution.failed executionId={} functionId={} error={}",
-                    execution.getId(), functionId, e.getMessage());
-
-            execution.setStatus(ExecutionStatus.FAILED);
-            execution.setErrorMessage(e.getMessage());
-            execution.setCompletedAt(LocalDateTime.now());
-            execution = executionRepository.save(execution);
-
-            return toResponse(execution);
+                    execution.getId(), function.getId(), e.getMessage());
+            return new Invocation(ExecutionStatus.FAILED, null, e.getMessage());
 
         } catch (Exception e) {
             // Unexpected error - still mark execution as FAILED
             LOG.error("execution.failed executionId={} functionId={} unexpected error",
-                    execution.getId(), functionId, e);
+                    execution.getId(), function.getId(), e);
+            return new Invocation(ExecutionStatus.FAILED, null, "Internal error: " + e.getMessage());
+        }
+    }
 
-            execution.setStatus(ExecutionStatus.FAILED);
-            execution.setErrorMessage("Internal error: " + e.getMessage());
-            execution.setCompletedAt(LocalDateTime.now());
-            execution = executionRepository.save(execution);
+    /**
+     * Save an execution, moving large input/output to {@code execution_payloads}.
+     *
+     * @param inputJson input to attach, or null to leave the stored input unchanged
+     * @param outputJson output to attach, or null for none
+     */
+    private Execution saveWithPayloads(Execution execution, String inputJson, String outputJson) {
+        boolean offloadInput = inputJson != null && payloadStore.shouldOffload(inputJson);
+        boolean offloadOutput = outputJson != null && payloadStore.shouldOffload(outputJson);
+        if (inputJson != null) {
+            execution.setInput(offloadInput ? null : inputJson);
+            execution.setInputOffloaded(offloadInput);
+        }
+        execution.setOutput(offloadOutput ? null : outputJson);
+        execution.setOutputOffloaded(offloadOutput);
 
-            return toResponse(execution);
+        execution = executionRepository.save(execution);
+        if (offloadInput) {
+            payloadStore.offload(execution.getId(), ExecutionPayloadKind.INPUT, inputJson);
+        }
+        if (offloadOutput) {
+            payloadStore.offload(execution.getId(), ExecutionPayloadKind.OUTPUT, outputJson);
         }
+        return execution;
     }
 
     /**
@@ -136,23 +248,42 @@ public class ExecutionService {
     public ExecutionResponse findById(UUID executionId) {
         Execution execution = executionRepository.findById(executionId)
                 .orElseThrow(() -> new ExecutionNotFoundException(executionId));
-        return toResponse(execution);
+        return toResponse(execution, outputOf(execution));
     }
 
     /**
      * Get detailed execution by ID.
      *
      * <p>Per issue #30, returns all fields including input, output, timestamps.
+     * Offloaded input/output is loaded from {@code execution_payloads} only here.
+     *
+     * <p>The {@link ExecutionDetailResponse} is returned already rendered as JSON. COMPLETED
+     * and FAILED executions never change: their response is immutable, tagged with the
+     * execution ID and, unless payloads were offloaded, served from {@link ExecutionDetailCache}
+     * on later reads without being serialized again.
      *
      * @param executionId the execution ID
-     * @return the detailed execution response
+     * @return the JSON detail response body, with an entity tag if it is terminal
      * @throws ExecutionNotFoundException if not found
      */
     @Transactional(readOnly = true)
-    public ExecutionDetailResponse getById(UUID executionId) {
+    public ETagged<byte[]> getById(UUID executionId) {
+        var cached = detailCache.get(executionId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
         Execution execution = executionRepository.findById(executionId)
                 .orElseThrow(() -> new ExecutionNotFoundException(executionId));
-        return toDetailResponse(execution);
+        byte[] body = jsonMapper.writeValueAsBytes(toDetailResponse(execution));
+        if (!isTerminal(execution.getStatus())) {
+            return new ETagged<>(body, null, false);
+        }
+        ETagged<byte[]> response = new ETagged<>(body, executionId.toString(), true);
+        if (!execution.isInputOffloaded() && !execution.isOutputOffloaded()) {
+            detailCache.put(executionId, execution.getFunctionId(), response);
+        }
+        return response;
     }
 
     /**
@@ -168,7 +299,7 @@ public class ExecutionService {
     @Transactional(readOnly = true)
     public List<ExecutionSummaryResponse> findByFunctionId(UUID functionId) {
         // Validate function exists (throws 404 if not)
-        functionService.findById(functionId);
+        functionService.requireExists(functionId);
 
         return executionRepository.findByFunctionIdOrderByCreatedAtDesc(functionId)
                 .stream()
@@ -197,31 +328,86 @@ public class ExecutionService {
         }
     }
 
-    private ExecutionResponse toResponse(Execution execution) {
+    /**
+     * Check that a raw body is exactly one UTF-8 encoded JSON object, without parsing it into
+     * a tree.
+     *
+     * <p>The body is decoded strictly up front and the check scans the decoded text, so it
+     * validates exactly what gets stored; parsing the bytes would let Jackson auto-detect
+     * UTF-16 or UTF-32.
+     */
+    private String readRawInput(byte[] body) {
+        if (body == null || body.length == 0) {
+            return "{}";
+        }
+        String json;
+        try {
+            json = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(body)).toString();
+        } catch (CharacterCodingException e) {
+            throw new InvalidInputException("Input must be UTF-8 encoded JSON");
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return "{}";
+            }
+            if (first != JsonToken.START_OBJECT) {
+                throw new InvalidInputException("Input must be a JSON object, got: " + first);
+            }
+            parser.skipChildren();
+            if (parser.nextToken() != null) {
+                throw new InvalidInputException("Input must be a single JSON object");
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidInputException("Malformed JSON input: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new InvalidInputException("Failed to read JSON input: " + e.getMessage());
+        }
+        return json;
+    }
+
+    private ExecutionResponse toResponse(Execution execution, String outputJson) {
         return new ExecutionResponse(
                 execution.getId(),
                 execution.getFunctionId(),
                 execution.getStatus(),
-                parseOutput(execution.getOutput()),
+                outputJson,
                 execution.getErrorMessage(),
                 execution.getCreatedAt()
         );
     }
 
     /**
-     * Parse output JSON string into an Object for response serialization.
-     * Per scope/contracts.md, output should be returned as parsed JSON object.
+     * Turn guest output into JSON that can be written as a raw value.
+     *
+     * <p>Per scope/contracts.md, output is returned as JSON, not as a string. Valid JSON is
+     * passed through unchanged after a streaming token scan, without building a tree.
+     * Anything else is returned as a JSON string (graceful degradation).
      */
-    private Object parseOutput(String outputJson) {
-        if (outputJson == null || outputJson.isBlank()) {
+    private String toRawJson(String output) {
+        if (output == null || output.isBlank()) {
             return null;
         }
+        if (isValidJson(output)) {
+            return output;
+        }
+        LOG.warn("Guest output is not valid JSON, returning as string");
         try {
-            return objectMapper.readValue(outputJson, Object.class);
+            return objectMapper.writeValueAsString(output);
         } catch (JsonProcessingException e) {
-            // If parsing fails, return as raw string (graceful degradation)
-            LOG.warn("Failed to parse output JSON, returning as string: {}", e.getMessage());
-            return outputJson;
+            throw new IllegalStateException("Failed to quote guest output", e);
+        }
+    }
+
+    private boolean isValidJson(String json) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
         }
     }
 
@@ -230,8 +416,8 @@ public class ExecutionService {
                 execution.getId(),
                 execution.getFunctionId(),
                 execution.getStatus(),
-                parseOutput(execution.getInput()),
-                parseOutput(execution.getOutput()),
+                inputOf(execution),
+                outputOf(execution),
                 execution.getErrorMessage(),
                 execution.getStartedAt(),
                 execution.getCompletedAt(),
@@ -239,6 +425,24 @@ public class ExecutionService {
         );
     }
 
+    private static boolean isTerminal(ExecutionStatus status) {
+        return status == ExecutionStatus.COMPLETED || status == ExecutionStatus.FAILED;
+    }
+
+    private String inputOf(Execution execution) {
+        if (!execution.isInputOffloaded()) {
+            return execution.getInput();
+        }
+        return payloadStore.load(execution.getId(), ExecutionPayloadKind.INPUT).orElse(null);
+    }
+
+    private String outputOf(Execution execution) {
+        if (!execution.isOutputOffloaded()) {
+            return execution.getOutput();
+        }
+        return payloadStore.load(execution.getId(), ExecutionPayloadKind.OUTPUT).orElse(null);
+    }
+
     private ExecutionSummaryResponse toSummaryResponse(Execution execution) {
         return new ExecutionSummaryResponse(
                 execution.getId(),
@@ -247,4 +451,7 @@ public class ExecutionService {
                 execution.getCompletedAt()
         );
     }
+
+    private record Invocation(ExecutionStatus status, String outputJson, String errorMessage) {
+    }
 }
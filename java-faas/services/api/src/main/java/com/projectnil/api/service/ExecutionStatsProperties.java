@@ -0,0 +1,36 @@
+package com.projectnil.api.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for per-function execution statistics.
+ *
+ * <p>Configure via application.yaml:
+ * <pre>
+ * projectnil:
+ *   executions:
+ *     stats:
+ *       bucket-size: 1h
+ *       default-window: 24h
+ * </pre>
+ *
+ * @param bucketSize width of a {@code function_stats_rollups} time bucket. Default: 1h.
+ * @param defaultWindow how far back {@code GET /functions/{id}/stats} looks when no
+ *                      {@code from} is given. Default: 24h.
+ */
+@ConfigurationProperties(prefix = "projectnil.executions.stats")
+public record ExecutionStatsProperties(
+        Duration bucketSize,
+        Duration defaultWindow
+) {
+    public ExecutionStatsProperties {
+        if (bucketSize == null || bucketSize.toMillis() <= 0) {
+            bucketSize = Duration.ofHours(1);
+        }
+        if (defaultWindow == null || defaultWindow.isNegative() || defaultWindow.isZero()) {
+            defaultWindow = Duration.ofHours(24);
+        }
+    }
+}
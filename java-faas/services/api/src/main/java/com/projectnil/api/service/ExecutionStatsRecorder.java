@@ -0,0 +1,163 @@
+package com.projectnil.api.service;
+
+import com.projectnil.common.domain.FunctionStatsRollup;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maintains {@code function_stats_rollups} from the execution write path.
+ *
+ * <p>Each execution is folded into an in-memory delta for its (function, time bucket).
+ * Deltas are flushed as one batched upsert that adds counts, durations and histogram
+ * slots onto the stored row, so stats never require scanning {@code executions}.
+ * Deltas that fail to flush are merged back and retried on the next tick; see
+ * {@link PendingDeltas}.
+ */
+@Component
+public class ExecutionStatsRecorder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionStatsRecorder.class);
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO function_stats_rollups AS r
+                (function_id, bucket_start, execution_count, failure_count, total_duration_ms,
+                 min_duration_ms, max_duration_ms, latency_histogram)
+            SELECT ?, ?, ?, ?, ?, ?, ?, ?
+            WHERE EXISTS (SELECT 1 FROM functions WHERE id = ?)
+            ON CONFLICT (function_id, bucket_start) DO UPDATE SET
+                execution_count = r.execution_count + EXCLUDED.execution_count,
+                failure_count = r.failure_count + EXCLUDED.failure_count,
+                total_duration_ms = r.total_duration_ms + EXCLUDED.total_duration_ms,
+                min_duration_ms = LEAST(r.min_duration_ms, EXCLUDED.min_duration_ms),
+                max_duration_ms = GREATEST(r.max_duration_ms, EXCLUDED.max_duration_ms),
+                latency_histogram = ARRAY(
+                    SELECT COALESCE(h.a, 0) + COALESCE(h.b, 0)
+                    FROM unnest(r.latency_histogram, EXCLUDED.latency_histogram)
+                        WITH ORDINALITY AS h(a, b, i)
+                    ORDER BY h.i)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long bucketSizeMs;
+    private final PendingDeltas<BucketKey, Delta> pending = new PendingDeltas<>(Delta::new, Delta::plus);
+
+    public ExecutionStatsRecorder(JdbcTemplate jdbcTemplate, ExecutionStatsProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bucketSizeMs = properties.bucketSize().toMillis();
+    }
+
+    /**
+     * Fold a finished execution into its time bucket.
+     *
+     * @param functionId the function ID
+     * @param startedAt when the execution started; selects the bucket
+     * @param durationMs how long the guest ran
+     * @param failed whether the execution FAILED
+     */
+    public void record(UUID functionId, Instant startedAt, long durationMs, boolean failed) {
+        BucketKey key = new BucketKey(functionId, bucketStart(startedAt));
+        pending.update(key, d -> d.add(durationMs, failed));
+    }
+
+    /**
+     * Start of the bucket containing the given instant.
+     *
+     * @param instant any instant
+     * @return the instant floored to the configured bucket size
+     */
+    public Instant bucketStart(Instant instant) {
+        long millis = instant.toEpochMilli();
+        return Instant.ofEpochMilli(millis - Math.floorMod(millis, bucketSizeMs));
+    }
+
+    /**
+     * Flush pending rollup deltas with a single batched upsert.
+     */
+    @Scheduled(fixedDelayString = "${projectnil.executions.stats.flush-interval-ms:1000}")
+    public void flush() {
+        try {
+            int flushed = pending.flush(this::write);
+            if (flushed > 0) {
+                LOG.debug("execution.stats.flushed buckets={}", flushed);
+            }
+        } catch (DataAccessException ex) {
+            LOG.error("Failed to flush execution stats, will retry", ex);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<Map.Entry<BucketKey, Delta>> batch) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), (ps, entry) -> {
+            BucketKey key = entry.getKey();
+            Delta delta = entry.getValue();
+            ps.setObject(1, key.functionId());
+            ps.setObject(2, OffsetDateTime.ofInstant(key.bucketStart(), ZoneOffset.UTC));
+            ps.setLong(3, delta.count);
+            ps.setLong(4, delta.failures);
+            ps.setLong(5, delta.totalDurationMs);
+            ps.setLong(6, delta.minDurationMs);
+            ps.setLong(7, delta.maxDurationMs);
+            ps.setArray(8, ps.getConnection().createArrayOf("bigint", delta.boxedHistogram()));
+            ps.setObject(9, key.functionId());
+        });
+    }
+
+    private record BucketKey(UUID functionId, Instant bucketStart) {
+    }
+
+    private static final class Delta {
+        private long count;
+        private long failures;
+        private long totalDurationMs;
+        private long minDurationMs = Long.MAX_VALUE;
+        private long maxDurationMs = Long.MIN_VALUE;
+        private final long[] histogram = new long[FunctionStatsRollup.LATENCY_SLOTS];
+
+        private void add(long durationMs, boolean failed) {
+            count++;
+            if (failed) {
+                failures++;
+            }
+            totalDurationMs += durationMs;
+            minDurationMs = Math.min(minDurationMs, durationMs);
+            maxDurationMs = Math.max(maxDurationMs, durationMs);
+            histogram[FunctionStatsRollup.latencySlot(durationMs)]++;
+        }
+
+        private Delta plus(Delta other) {
+            count += other.count;
+            failures += other.failures;
+            totalDurationMs += other.totalDurationMs;
+            minDurationMs = Math.min(minDurationMs, other.minDurationMs);
+            maxDurationMs = Math.max(maxDurationMs, other.maxDurationMs);
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other.histogram[i];
+            }
+            return this;
+        }
+
+        private Long[] boxedHistogram() {
+            Long[] boxed = new Long[histogram.length];
+            for (int i = 0; i < histogram.length; i++) {
+                boxed[i] = histogram[i];
+            }
+            return boxed;
+        }
+    }
+}
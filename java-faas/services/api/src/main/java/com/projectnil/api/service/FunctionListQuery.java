@@ -0,0 +1,93 @@
+package com.projectnil.api.service;
+
+import com.projectnil.common.domain.FunctionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * A page request for {@code GET /functions}.
+ *
+ * @param status only functions with this status, or null for all
+ * @param namePrefix only functions whose name starts with this, or null for all
+ * @param after keyset position of the last function on the previous page, or null for the first page
+ * @param limit page size
+ */
+public record FunctionListQuery(FunctionStatus status, String namePrefix, Cursor after, int limit) {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    public FunctionListQuery {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ", got: " + limit);
+        }
+        if (namePrefix != null && namePrefix.isEmpty()) {
+            namePrefix = null;
+        }
+    }
+
+    /**
+     * Parse the query parameters of a list request.
+     *
+     * @param status status filter, case-insensitive, or null
+     * @param namePrefix name prefix filter, or null
+     * @param cursor {@code nextCursor} of the previous page, or null
+     * @param limit page size, or null for {@link #DEFAULT_LIMIT}
+     * @return the query
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public static FunctionListQuery parse(String status, String namePrefix, String cursor, Integer limit) {
+        FunctionStatus parsedStatus = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                parsedStatus = FunctionStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown function status: " + status);
+            }
+        }
+        return new FunctionListQuery(
+                parsedStatus,
+                namePrefix,
+                cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor),
+                limit == null ? DEFAULT_LIMIT : limit);
+    }
+
+    /**
+     * Opaque keyset position: the {@code (name, id)} of the last function returned.
+     *
+     * @param name the function name
+     * @param id the function ID
+     */
+    public record Cursor(String name, UUID id) {
+
+        private static final int UUID_LENGTH = 36;
+
+        /**
+         * @return the URL-safe textual form handed to clients
+         */
+        public String encode() {
+            byte[] raw = (id + name).getBytes(StandardCharsets.UTF_8);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        }
+
+        /**
+         * @param value a cursor produced by {@link #encode()}
+         * @return the cursor
+         * @throws IllegalArgumentException if the value is not a valid cursor
+         */
+        public static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                if (raw.length() < UUID_LENGTH) {
+                    throw new IllegalArgumentException("too short");
+                }
+                return new Cursor(raw.substring(UUID_LENGTH), UUID.fromString(raw.substring(0, UUID_LENGTH)));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.projectnil.api.service;
+
+import com.projectnil.api.messaging.PgNotificationListener;
+import com.projectnil.api.repository.FunctionExecutionMetadata;
+import com.projectnil.api.repository.FunctionRepository;
+import com.projectnil.common.domain.ExecutionPersistenceMode;
+import com.projectnil.common.domain.FunctionStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded per-node cache of {@link FunctionExecutionMetadata}, so the execute path resolves
+ * a function with a map read instead of a query.
+ *
+ * <p>Cross-node consistency comes from a trigger on {@code functions} that sends
+ * {@code NOTIFY function_changes, '<id>'} on every insert, update and delete; each node
+ * evicts the entry when {@link PgNotificationListener} delivers it. Writes made through this
+ * node are also evicted locally after commit, so they are visible immediately here even
+ * without the trigger.
+ *
+ * <p>A load that races an invalidation must not cache the pre-invalidation row. Every
+ * invalidation bumps a generation counter, and a loaded row is only cached if the
+ * generation is unchanged since the load started.
+ *
+ * <p>Reports the following metrics:
+ * <ul>
+ *   <li>{@code projectnil.functions.metadata.cache.lookups} - lookups, tagged {@code result=hit|miss}</li>
+ *   <li>{@code projectnil.functions.metadata.cache.size} - cached functions</li>
+ * </ul>
+ */
+@Component
+public class FunctionMetadataCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FunctionMetadataCache.class);
+
+    /**
+     * Channel notified by the {@code functions_notify_change} trigger.
+     */
+    public static final String CHANNEL = "function_changes";
+
+    private final FunctionRepository functionRepository;
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Guarded by {@code this}, as is {@link #generation}.
+     */
+    private final LinkedHashMap<UUID, Snapshot> entries;
+    private long generation;
+
+    public FunctionMetadataCache(
+            FunctionRepository functionRepository,
+            FunctionMetadataCacheProperties properties,
+            PgNotificationListener notificationListener,
+            MeterRegistry meterRegistry) {
+        this.functionRepository = functionRepository;
+        this.maxSize = properties.maxSize();
+        this.entries = new LinkedHashMap<UUID, Snapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Snapshot> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("projectnil.functions.metadata.cache.size", this, FunctionMetadataCache::size)
+                .description("Functions whose execution metadata is cached on this node")
+                .register(meterRegistry);
+        notificationListener.subscribe(CHANNEL, this::onNotification, this::invalidateAll);
+    }
+
+    /**
+     * Get a function's execution metadata, loading it on a miss.
+     *
+     * @param id the function ID
+     * @return the metadata, or empty if the function does not exist
+     */
+    public Optional<FunctionExecutionMetadata> get(UUID id) {
+        long loadGeneration;
+        synchronized (this) {
+            Snapshot cached = entries.get(id);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        Optional<Snapshot> loaded = functionRepository.findExecutionMetadataById(id).map(Snapshot::of);
+        if (loaded.isPresent() && maxSize > 0) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(id, loaded.get());
+                }
+            }
+        }
+        return loaded.map(FunctionExecutionMetadata.class::cast);
+    }
+
+    /**
+     * Evict a function once the current transaction commits, or immediately if there is none.
+     *
+     * @param id the function ID
+     */
+    public void invalidateAfterCommit(UUID id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(id);
+                }
+            });
+        } else {
+            invalidate(id);
+        }
+    }
+
+    /**
+     * Evict a function.
+     *
+     * @param id the function ID
+     */
+    public synchronized void invalidate(UUID id) {
+        generation++;
+        entries.remove(id);
+    }
+
+    /**
+     * Evict every function, e.g. after notifications may have been missed.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void onNotification(String payload) {
+        invalidate(UUID.fromString(payload));
+        LOG.debug("function.metadata.invalidated id={}", payload);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("projectnil.functions.metadata.cache.lookups")
+                .description("Function metadata lookups on the execute path")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Immutable copy of a projection, safe to share across threads.
+     */
+    private record Snapshot(
+            UUID id,
+            FunctionStatus status,
+            ExecutionPersistenceMode persistenceMode,
+            double persistenceSampleRate,
+            String artifactHash
+    ) implements FunctionExecutionMetadata {
+
+        static Snapshot of(FunctionExecutionMetadata metadata) {
+            return new Snapshot(
+                    metadata.getId(),
+                    metadata.getStatus(),
+                    metadata.getPersistenceMode(),
+                    metadata.getPersistenceSampleRate(),
+                    metadata.getArtifactHash());
+        }
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public FunctionStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public ExecutionPersistenceMode getPersistenceMode() {
+            return persistenceMode;
+        }
+
+        @Override
+        public double getPersistenceSampleRate() {
+            return persistenceSampleRate;
+        }
+
+        @Override
+        public String getArtifactHash() {
+            return artifactHash;
+        }
+    }
+}
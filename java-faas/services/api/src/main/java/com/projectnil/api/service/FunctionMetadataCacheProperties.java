@@ -0,0 +1,28 @@
+package com.projectnil.api.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the function metadata cache.
+ *
+ * <p>Configure via application.yaml:
+ * <pre>
+ * projectnil:
+ *   functions:
+ *     metadata-cache:
+ *       max-size: 10000
+ * </pre>
+ *
+ * @param maxSize maximum number of functions whose execution metadata is cached per node.
+ *                Zero disables the cache. Default: 10000.
+ */
+@ConfigurationProperties(prefix = "projectnil.functions.metadata-cache")
+public record FunctionMetadataCacheProperties(
+        Integer maxSize
+) {
+    public FunctionMetadataCacheProperties {
+        if (maxSize == null || maxSize < 0) {
+            maxSize = 10_000;
+        }
+    }
+}
@@ -1,22 +1,34 @@
 package com.projectnil.api.service;
 
 import com.projectnil.api.messaging.PgmqClient;
+import com.projectnil.api.repository.FunctionExecutionMetadata;
 import com.projectnil.api.repository.FunctionRepository;
+import com.projectnil.api.repository.FunctionSummary;
+import com.projectnil.api.web.BulkFunctionRequest;
+import com.projectnil.api.web.BulkFunctionResponse;
 import com.projectnil.api.web.FunctionDetailResponse;
 import com.projectnil.api.web.FunctionRequest;
 import com.projectnil.api.web.FunctionResponse;
 import com.projectnil.common.domain.Function;
 import com.projectnil.common.domain.FunctionStatus;
+import com.projectnil.common.domain.FunctionVersion;
 import com.projectnil.common.domain.queue.CompilationJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service for managing functions.
@@ -32,12 +44,31 @@ public class FunctionService {
      */
     private static final Set<String> SUPPORTED_LANGUAGES = Set.of("assemblyscript");
 
+    /**
+     * Maximum number of functions in one bulk registration.
+     */
+    public static final int MAX_BULK_SIZE = 1000;
+
     private final FunctionRepository functionRepository;
     private final PgmqClient pgmqClient;
+    private final CompileCache compileCache;
+    private final FunctionMetadataCache metadataCache;
+    private final ExecutionDetailCache executionDetailCache;
+    private final FunctionVersionService versionService;
 
-    public FunctionService(FunctionRepository functionRepository, PgmqClient pgmqClient) {
+    public FunctionService(
+            FunctionRepository functionRepository,
+            PgmqClient pgmqClient,
+            CompileCache compileCache,
+            FunctionMetadataCache metadataCache,
+            ExecutionDetailCache executionDetailCache,
+            FunctionVersionService versionService) {
         this.functionRepository = functionRepository;
         this.pgmqClient = pgmqClient;
+        this.compileCache = compileCache;
+        this.metadataCache = metadataCache;
+        this.executionDetailCache = executionDetailCache;
+        this.versionService = versionService;
     }
 
     /**
@@ -46,56 +77,137 @@ public class FunctionService {
      * <p>Per scope/flows.md Flow 1:
      * <ol>
      *   <li>Validate request (language must be supported)</li>
-     *   <li>Save function with status PENDING</li>
-     *   <li>Publish CompilationJob to queue</li>
+     *   <li>Save function with status PENDING, and its first version (revision 1)</li>
+     *   <li>Publish CompilationJob for that version to queue</li>
      *   <li>Return FunctionResponse</li>
      * </ol>
      *
+     * <p>If the compile cache already holds an artifact for this source and toolchain, the
+     * function is saved READY instead and no job is published.
+     *
      * @param request the function creation request
      * @return the created function response
      * @throws UnsupportedLanguageException if language is not supported
      */
     @Transactional
     public FunctionResponse create(FunctionRequest request) {
-        validateLanguage(request.language());
+        Function function = functionRepository.save(newFunction(request));
 
-        Function function = Function.builder()
-                .name(request.name())
-                .description(request.description())
-                .language(request.language())
-                .source(request.source())
-                .status(FunctionStatus.PENDING)
-                .build();
+        Optional<String> cachedArtifact = compileOrReuse(function, versionService.createVersion(function));
 
-        function = functionRepository.save(function);
+        LOG.info("function.created id={} name={} language={} compileCacheHit={}",
+                function.getId(), function.getName(), function.getLanguage(), cachedArtifact.isPresent());
 
-        CompilationJob job = new CompilationJob(
-                function.getId(),
-                function.getLanguage(),
-                function.getSource()
-        );
-        pgmqClient.publishJob(job);
+        return toResponse(function);
+    }
+
+    /**
+     * Create many functions in one transaction.
+     *
+     * <p>Each item is validated on its own; rejected items are reported and the rest are
+     * created. Functions and their first versions are saved as JDBC batches, the compile
+     * cache is checked with one query per language, and the remaining compilation jobs are
+     * published with a single {@link PgmqClient#publishJobs} call.
+     *
+     * @param request the functions to create
+     * @return the outcome of every item, in request order
+     * @throws IllegalArgumentException if the request is empty or exceeds {@link #MAX_BULK_SIZE}
+     */
+    @Transactional
+    public BulkFunctionResponse createBulk(BulkFunctionRequest request) {
+        List<FunctionRequest> items = request == null || request.functions() == null
+                ? List.of()
+                : request.functions();
+        if (items.isEmpty() || items.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException(
+                    "functions must contain between 1 and " + MAX_BULK_SIZE + " items, got: " + items.size());
+        }
 
-        LOG.info("function.created id={} name={} language={}",
-                function.getId(), function.getName(), function.getLanguage());
+        BulkFunctionResponse.Item[] results = new BulkFunctionResponse.Item[items.size()];
+        List<Function> functions = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                functions.add(newBulkFunction(items.get(i)));
+                indexes.add(i);
+            } catch (UnsupportedLanguageException | IllegalArgumentException ex) {
+                results[i] = new BulkFunctionResponse.Item(i, null, null, ex.getMessage());
+            }
+        }
 
-        return toResponse(function);
+        functions = functionRepository.saveAll(functions);
+        int cacheHits = compileOrReuseAll(functions, versionService.createVersions(functions));
+
+        for (int k = 0; k < functions.size(); k++) {
+            Function function = functions.get(k);
+            int index = indexes.get(k);
+            results[index] = new BulkFunctionResponse.Item(index, function.getId(), function.getStatus(), null);
+        }
+
+        int failed = items.size() - functions.size();
+        LOG.info("functions.bulk.created created={} failed={} compileCacheHits={}",
+                functions.size(), failed, cacheHits);
+
+        return new BulkFunctionResponse(functions.size(), failed, List.of(results));
+    }
+
+    /**
+     * List one page of functions in {@code (name, id)} order.
+     *
+     * <p>Uses a metadata-only projection, so no source is loaded. Rows are handed to the
+     * sink as they are read from the database rather than collected first; one extra row is
+     * read to decide whether there is a next page.
+     *
+     * @param query filters, keyset position and page size
+     * @param sink receives each function on the page, in order
+     * @return the cursor for the next page, or empty if this is the last page
+     */
+    public Optional<String> list(FunctionListQuery query, Consumer<FunctionResponse> sink) {
+        FunctionListQuery.Cursor after = query.after();
+        try (Stream<FunctionSummary> rows = functionRepository.streamSummaries(
+                query.status(),
+                query.namePrefix(),
+                after == null ? null : after.name(),
+                after == null ? null : after.id(),
+                query.limit() + 1)) {
+            Iterator<FunctionSummary> iterator = rows.iterator();
+            FunctionSummary last = null;
+            int emitted = 0;
+            while (iterator.hasNext()) {
+                FunctionSummary row = iterator.next();
+                if (emitted == query.limit()) {
+                    return Optional.of(new FunctionListQuery.Cursor(last.getName(), last.getId()).encode());
+                }
+                sink.accept(toResponse(row));
+                last = row;
+                emitted++;
+            }
+            return Optional.empty();
+        }
     }
 
     /**
-     * Find all functions.
+     * Get a function's metadata by ID, without loading source or binary.
+     *
+     * <p>The entity tag is the function's {@code updatedAt}, which moves on every change.
      *
-     * @return list of all functions
+     * @param id the function ID
+     * @return the function response and its entity tag
+     * @throws FunctionNotFoundException if the function is not found
      */
-    public List<FunctionResponse> findAll() {
-        return functionRepository.findAll().stream()
-                .map(this::toResponse)
-                .toList();
+    public ETagged<FunctionResponse> getSummary(UUID id) {
+        FunctionSummary function = functionRepository.findSummaryById(id)
+                .orElseThrow(() -> new FunctionNotFoundException(id));
+        String etag = function.getUpdatedAt() == null ? null : function.getUpdatedAt().toString();
+        return new ETagged<>(toResponse(function), etag, false);
     }
 
     /**
      * Find a function by ID.
      *
+     * <p>Loads the full entity, including source and binary. Use {@link #getSummary},
+     * {@link #requireExists} or {@link #findReadyById} when those aren't needed.
+     *
      * @param id the function ID
      * @return the function
      * @throws FunctionNotFoundException if the function is not found
@@ -106,17 +218,36 @@ public class FunctionService {
     }
 
     /**
-     * Find a function by ID and validate it is ready for execution.
+     * Validate that a function exists.
      *
      * @param id the function ID
-     * @return the function (guaranteed to be in READY status)
      * @throws FunctionNotFoundException if the function is not found
-     * @throws FunctionNotReadyException if the function is not in READY status
      */
-    public Function findReadyById(UUID id) {
-        Function function = findById(id);
+    public void requireExists(UUID id) {
+        if (!functionRepository.existsById(id)) {
+            throw new FunctionNotFoundException(id);
+        }
+    }
+
+    /**
+     * Find a function's execution metadata by ID and validate it is ready for execution.
+     *
+     * <p>Served from {@link FunctionMetadataCache}, so the hot path usually makes no query.
+     * Does not load the binary; that is fetched from {@link ArtifactStore} by hash.
+     *
+     * <p>A function is executable once any version has compiled: while a newer revision is
+     * PENDING or FAILED, the active version keeps serving.
+     *
+     * @param id the function ID
+     * @return the function metadata (guaranteed to have an active artifact)
+     * @throws FunctionNotFoundException if the function is not found
+     * @throws FunctionNotReadyException if no version of the function has compiled
+     */
+    public FunctionExecutionMetadata findReadyById(UUID id) {
+        FunctionExecutionMetadata function = metadataCache.get(id)
+                .orElseThrow(() -> new FunctionNotFoundException(id));
 
-        if (function.getStatus() != FunctionStatus.READY) {
+        if (function.getArtifactHash() == null) {
             LOG.warn("Attempted to execute function {} with status {}",
                     id, function.getStatus());
             throw new FunctionNotReadyException(id, function.getStatus());
@@ -131,8 +262,11 @@ public class FunctionService {
      * <p>Per scope/contracts.md and issue #27:
      * <ul>
      *   <li>Updates name, description, language, source</li>
-     *   <li>If source or language changes, triggers recompilation</li>
-     *   <li>Recompilation: reset status to PENDING, clear wasmBinary/compileError, publish job</li>
+     *   <li>Updates the persistence policy only when one is given</li>
+     *   <li>If source or language changes, creates a new version and triggers its compilation</li>
+     *   <li>Recompilation: reset status to PENDING, clear compileError, publish job; the active
+     *       version and its artifact keep serving executions until the new version is READY</li>
+     *   <li>Recompilation is skipped when the compile cache has an artifact for the new source</li>
      *   <li>Returns expanded view with all fields</li>
      * </ul>
      *
@@ -154,22 +288,21 @@ public class FunctionService {
         function.setDescription(request.description());
         function.setLanguage(request.language());
         function.setSource(request.source());
+        if (request.persistencePolicy() != null) {
+            ExecutionPersistencePolicy.parse(request.persistencePolicy()).applyTo(function);
+        }
 
         if (needsRecompile) {
+            function.setRevision(function.getRevision() + 1);
             function.setStatus(FunctionStatus.PENDING);
-            function.setWasmBinary(null);
             function.setCompileError(null);
-
-            CompilationJob job = new CompilationJob(
-                    function.getId(),
-                    function.getLanguage(),
-                    function.getSource()
-            );
-            pgmqClient.publishJob(job);
-            LOG.info("function.recompilation.triggered id={}", id);
+            Optional<String> cachedArtifact = compileOrReuse(function, versionService.createVersion(function));
+            LOG.info("function.recompilation.triggered id={} revision={} compileCacheHit={}",
+                    id, function.getRevision(), cachedArtifact.isPresent());
         }
 
         function = functionRepository.save(function);
+        metadataCache.invalidateAfterCommit(id);
         LOG.info("function.updated id={} needsRecompile={}", id, needsRecompile);
 
         return toDetailResponse(function);
@@ -183,13 +316,110 @@ public class FunctionService {
      */
     @Transactional
     public void delete(UUID id) {
-        if (!functionRepository.existsById(id)) {
-            throw new FunctionNotFoundException(id);
-        }
+        requireExists(id);
         functionRepository.deleteById(id);
+        metadataCache.invalidateAfterCommit(id);
+        // Executions are deleted with the function
+        executionDetailCache.invalidateFunctionAfterCommit(id);
         LOG.info("function.deleted id={}", id);
     }
 
+    /**
+     * Resolve a new version from the compile cache, or publish a job to compile it.
+     *
+     * @return the cached artifact hash, if there was a hit
+     */
+    private Optional<String> compileOrReuse(Function function, FunctionVersion version) {
+        Optional<String> cachedArtifact = compileCache.lookup(version.getLanguage(), version.getSource());
+        if (cachedArtifact.isPresent()) {
+            versionService.markReady(function, version, cachedArtifact.get());
+        } else {
+            CompilationJob job = new CompilationJob(
+                    function.getId(),
+                    version.getLanguage(),
+                    version.getSource(),
+                    version.getId(),
+                    version.getRevision()
+            );
+            pgmqClient.publishJob(job);
+        }
+        return cachedArtifact;
+    }
+
+    /**
+     * Resolve new versions from the compile cache in one lookup per language, and publish
+     * jobs for the rest as one batch.
+     *
+     * @return the number of cache hits
+     */
+    private int compileOrReuseAll(List<Function> functions, List<FunctionVersion> versions) {
+        Map<String, List<String>> sourcesByLanguage = new LinkedHashMap<>();
+        for (FunctionVersion version : versions) {
+            sourcesByLanguage.computeIfAbsent(version.getLanguage(), l -> new ArrayList<>()).add(version.getSource());
+        }
+        Map<String, Map<String, String>> cachedByLanguage = new LinkedHashMap<>();
+        sourcesByLanguage.forEach((language, sources) ->
+                cachedByLanguage.put(language, compileCache.lookupAll(language, sources)));
+
+        List<CompilationJob> jobs = new ArrayList<>();
+        for (int i = 0; i < functions.size(); i++) {
+            Function function = functions.get(i);
+            FunctionVersion version = versions.get(i);
+            String cachedArtifact = cachedByLanguage.get(version.getLanguage()).get(version.getSource());
+            if (cachedArtifact != null) {
+                versionService.markReady(function, version, cachedArtifact);
+            } else {
+                jobs.add(new CompilationJob(
+                        function.getId(),
+                        version.getLanguage(),
+                        version.getSource(),
+                        version.getId(),
+                        version.getRevision()
+                ));
+            }
+        }
+        pgmqClient.publishJobs(jobs);
+        return functions.size() - jobs.size();
+    }
+
+    private Function newFunction(FunctionRequest request) {
+        validateLanguage(request.language());
+        ExecutionPersistencePolicy policy = request.persistencePolicy() == null
+                ? ExecutionPersistencePolicy.ALL
+                : ExecutionPersistencePolicy.parse(request.persistencePolicy());
+
+        Function function = Function.builder()
+                .name(request.name())
+                .description(request.description())
+                .language(request.language())
+                .source(request.source())
+                .status(FunctionStatus.PENDING)
+                .revision(1)
+                .build();
+        policy.applyTo(function);
+        return function;
+    }
+
+    /**
+     * Like {@link #newFunction}, but also rejects items the database would refuse, since one
+     * failed insert would abort the whole batch.
+     */
+    private Function newBulkFunction(FunctionRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("function must not be null");
+        }
+        if (request.name() == null || request.name().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (request.name().length() > 255) {
+            throw new IllegalArgumentException("name must be at most 255 characters");
+        }
+        if (request.source() == null || request.source().isBlank()) {
+            throw new IllegalArgumentException("source is required");
+        }
+        return newFunction(request);
+    }
+
     private void validateLanguage(String language) {
         if (language == null || !SUPPORTED_LANGUAGES.contains(language.toLowerCase())) {
             throw new UnsupportedLanguageException(language, SUPPORTED_LANGUAGES);
@@ -205,6 +435,15 @@ public class FunctionService {
         );
     }
 
+    private FunctionResponse toResponse(FunctionSummary function) {
+        return new FunctionResponse(
+                function.getId(),
+                function.getName(),
+                function.getStatus(),
+                function.getCreatedAt()
+        );
+    }
+
     private FunctionDetailResponse toDetailResponse(Function function) {
         return new FunctionDetailResponse(
                 function.getId(),
@@ -214,6 +453,9 @@ public class FunctionService {
                 function.getSource(),
                 function.getStatus(),
                 function.getCompileError(),
+                function.getRevision(),
+                function.getActiveVersionId(),
+                ExecutionPersistencePolicy.of(function).toString(),
                 function.getCreatedAt(),
                 function.getUpdatedAt()
         );
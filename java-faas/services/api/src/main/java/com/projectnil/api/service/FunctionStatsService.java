@@ -0,0 +1,142 @@
+package com.projectnil.api.service;
+
+import com.projectnil.api.repository.FunctionExecutionCounterRepository;
+import com.projectnil.api.repository.FunctionStatsRollupRepository;
+import com.projectnil.api.web.FunctionStatsResponse;
+import com.projectnil.common.domain.FunctionExecutionCounter;
+import com.projectnil.common.domain.FunctionStatsRollup;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Answers per-function execution stats from rollups only.
+ *
+ * <p>Cost is proportional to the number of buckets in the requested window, independent of
+ * how many executions exist. Lifetime totals are exact: the counter row plus the deltas
+ * {@link ExecutionCounterRecorder} has not rolled up yet. Windowed stats lag the execution
+ * path by at most one flush interval of {@link ExecutionStatsRecorder}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class FunctionStatsService {
+
+    private final FunctionService functionService;
+    private final FunctionExecutionCounterRepository counterRepository;
+    private final ExecutionCounterRecorder counterRecorder;
+    private final FunctionStatsRollupRepository rollupRepository;
+    private final ExecutionStatsRecorder statsRecorder;
+    private final ExecutionStatsProperties properties;
+
+    public FunctionStatsService(
+            FunctionService functionService,
+            FunctionExecutionCounterRepository counterRepository,
+            ExecutionCounterRecorder counterRecorder,
+            FunctionStatsRollupRepository rollupRepository,
+            ExecutionStatsRecorder statsRecorder,
+            ExecutionStatsProperties properties) {
+        this.functionService = functionService;
+        this.counterRepository = counterRepository;
+        this.counterRecorder = counterRecorder;
+        this.rollupRepository = rollupRepository;
+        this.statsRecorder = statsRecorder;
+        this.properties = properties;
+    }
+
+    /**
+     * Get execution stats for a function.
+     *
+     * @param functionId the function ID
+     * @param from start of the window, or null for {@code to - defaultWindow}
+     * @param to end of the window, or null for now
+     * @return the stats
+     * @throws FunctionNotFoundException if the function is not found
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}
+     */
+    public FunctionStatsResponse getStats(UUID functionId, Instant from, Instant to) {
+        functionService.requireExists(functionId);
+
+        Instant end = to != null ? to : Instant.now();
+        Instant start = statsRecorder.bucketStart(from != null ? from : end.minus(properties.defaultWindow()));
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        Optional<FunctionExecutionCounter> counter = counterRepository.findById(functionId);
+        ExecutionCounterRecorder.Counts pending = counterRecorder.pending(functionId);
+        List<FunctionStatsRollup> rollups = rollupRepository
+                .findByFunctionIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+                        functionId, start, end);
+
+        long executions = 0;
+        long failures = 0;
+        long totalDurationMs = 0;
+        long minDurationMs = Long.MAX_VALUE;
+        long maxDurationMs = Long.MIN_VALUE;
+        long[] histogram = new long[FunctionStatsRollup.LATENCY_SLOTS];
+        for (FunctionStatsRollup rollup : rollups) {
+            executions += rollup.getExecutionCount();
+            failures += rollup.getFailureCount();
+            totalDurationMs += rollup.getTotalDurationMs();
+            minDurationMs = Math.min(minDurationMs, rollup.getMinDurationMs());
+            maxDurationMs = Math.max(maxDurationMs, rollup.getMaxDurationMs());
+            long[] slots = rollup.getLatencyHistogram();
+            for (int i = 0; i < Math.min(slots.length, histogram.length); i++) {
+                histogram[i] += slots[i];
+            }
+        }
+        boolean empty = executions == 0;
+
+        return new FunctionStatsResponse(
+                functionId,
+                counter.map(FunctionExecutionCounter::getTotalCount).orElse(0L) + pending.total(),
+                counter.map(FunctionExecutionCounter::getCompletedCount).orElse(0L) + pending.completed(),
+                counter.map(FunctionExecutionCounter::getFailedCount).orElse(0L) + pending.failed(),
+                start,
+                end,
+                executions,
+                failures,
+                empty ? null : (double) totalDurationMs / executions,
+                empty ? null : minDurationMs,
+                empty ? null : maxDurationMs,
+                empty ? null : percentile(histogram, executions, 0.50, maxDurationMs),
+                empty ? null : percentile(histogram, executions, 0.95, maxDurationMs),
+                empty ? null : percentile(histogram, executions, 0.99, maxDurationMs),
+                rollups.stream().map(FunctionStatsService::toBucket).toList()
+        );
+    }
+
+    /**
+     * Estimate a percentile as the upper bound of the histogram slot containing it.
+     * Values in the overflow slot are reported as the observed maximum.
+     */
+    static long percentile(long[] histogram, long count, double quantile, long maxDurationMs) {
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return i < FunctionStatsRollup.LATENCY_BUCKET_BOUNDS_MS.length
+                        ? Math.min(FunctionStatsRollup.LATENCY_BUCKET_BOUNDS_MS[i], maxDurationMs)
+                        : maxDurationMs;
+            }
+        }
+        return maxDurationMs;
+    }
+
+    private static FunctionStatsResponse.Bucket toBucket(FunctionStatsRollup rollup) {
+        return new FunctionStatsResponse.Bucket(
+                rollup.getBucketStart(),
+                rollup.getExecutionCount(),
+                rollup.getFailureCount(),
+                rollup.getExecutionCount() == 0 ? 0.0
+                        : (double) rollup.getTotalDurationMs() / rollup.getExecutionCount(),
+                rollup.getMinDurationMs(),
+                rollup.getMaxDurationMs()
+        );
+    }
+}
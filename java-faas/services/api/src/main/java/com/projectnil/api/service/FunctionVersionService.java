@@ -0,0 +1,265 @@
+package com.projectnil.api.service;
+
+import com.projectnil.api.repository.FunctionVersionRepository;
+import com.projectnil.common.domain.Function;
+import com.projectnil.common.domain.FunctionStatus;
+import com.projectnil.common.domain.FunctionVersion;
+import com.projectnil.common.domain.queue.CompilationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Creates function versions and moves a function's active version pointer.
+ *
+ * <p>The {@code functions} row mirrors the latest version's source, status and compile error,
+ * so clients see a recompile as PENDING. Executions use the active version instead, via
+ * {@link Function#getArtifactHash()}, so the previous READY version keeps serving until a
+ * newer one compiles. A version only becomes active if it is newer than the current one;
+ * older versions are then deleted.
+ *
+ * <p>Callers save the {@link Function}; versions are saved here.
+ */
+@Service
+public class FunctionVersionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FunctionVersionService.class);
+
+    private static final String DELETE_SUPERSEDED_SQL = """
+            DELETE FROM function_versions v
+            USING unnest(?::uuid[], ?::int[]) AS p(function_id, revision)
+            WHERE v.function_id = p.function_id AND v.revision < p.revision
+            """;
+
+    private final FunctionVersionRepository versionRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public FunctionVersionService(FunctionVersionRepository versionRepository, JdbcTemplate jdbcTemplate) {
+        this.versionRepository = versionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Create a PENDING version from the function's current revision, language and source.
+     *
+     * @param function the function, already saved
+     * @return the new version
+     */
+    public FunctionVersion createVersion(Function function) {
+        return versionRepository.save(newVersion(function));
+    }
+
+    /**
+     * Create a PENDING version for each function, saved as one batch.
+     *
+     * @param functions the functions, already saved
+     * @return the new versions, in the same order as {@code functions}
+     */
+    public List<FunctionVersion> createVersions(List<Function> functions) {
+        return versionRepository.saveAll(functions.stream().map(this::newVersion).toList());
+    }
+
+    /**
+     * Load everything a batch of compilation results needs: the version each result applies
+     * to and the active version of each function, in one query, plus one query for the
+     * latest versions if any result predates versions.
+     *
+     * @param results the compilation results
+     * @param functions the functions the results belong to
+     * @return the batch, to pass to {@link #markReady(ResultBatch, Function, FunctionVersion, String)}
+     *         and {@link #pruneSuperseded(ResultBatch)}
+     */
+    public ResultBatch loadForResults(List<CompilationResult> results, Collection<Function> functions) {
+        Set<UUID> versionIds = new HashSet<>();
+        Set<UUID> legacyFunctionIds = new HashSet<>();
+        for (CompilationResult result : results) {
+            if (result.versionId() != null) {
+                versionIds.add(result.versionId());
+            } else {
+                legacyFunctionIds.add(result.functionId());
+            }
+        }
+        for (Function function : functions) {
+            if (function.getActiveVersionId() != null) {
+                versionIds.add(function.getActiveVersionId());
+            }
+        }
+        Map<UUID, FunctionVersion> versions = new HashMap<>();
+        versionRepository.findAllById(versionIds).forEach(version -> versions.put(version.getId(), version));
+        Map<UUID, FunctionVersion> latest = new HashMap<>();
+        if (!legacyFunctionIds.isEmpty()) {
+            versionRepository.findLatestByFunctionIdIn(legacyFunctionIds)
+                    .forEach(version -> latest.put(version.getFunctionId(), version));
+        }
+
+        List<Optional<FunctionVersion>> found = new ArrayList<>(results.size());
+        for (CompilationResult result : results) {
+            if (result.versionId() == null) {
+                found.add(Optional.ofNullable(latest.get(result.functionId())));
+            } else {
+                found.add(Optional.ofNullable(versions.get(result.versionId()))
+                        .filter(version -> version.getFunctionId().equals(result.functionId())));
+            }
+        }
+        Map<UUID, Integer> activeRevisions = new HashMap<>();
+        for (Function function : functions) {
+            FunctionVersion active = function.getActiveVersionId() == null
+                    ? null : versions.get(function.getActiveVersionId());
+            if (active != null) {
+                activeRevisions.put(function.getId(), active.getRevision());
+            }
+        }
+        return new ResultBatch(found, activeRevisions);
+    }
+
+    /**
+     * Record a successful compilation, activating the version if it is the newest READY one.
+     *
+     * @param function the function owning the version
+     * @param version the compiled version
+     * @param artifactHash the stored artifact
+     */
+    public void markReady(Function function, FunctionVersion version, String artifactHash) {
+        Integer activeRevision = function.getActiveVersionId() == null ? null
+                : versionRepository.findById(function.getActiveVersionId()).map(FunctionVersion::getRevision).orElse(null);
+        if (markReady(function, version, artifactHash, activeRevision)) {
+            // The first revision has nothing to prune
+            int pruned = version.getRevision() > 1
+                    ? versionRepository.deleteSuperseded(function.getId(), version.getRevision())
+                    : 0;
+            LOG.info("function.version.activated id={} revision={} pruned={}",
+                    function.getId(), version.getRevision(), pruned);
+        }
+    }
+
+    /**
+     * Record a successful compilation from a batch of results. Like
+     * {@link #markReady(Function, FunctionVersion, String)}, but without a query: the active
+     * revision comes from the batch, and superseded versions are deleted by
+     * {@link #pruneSuperseded(ResultBatch)}.
+     *
+     * @param batch the batch the result belongs to
+     * @param function the function owning the version
+     * @param version the compiled version
+     * @param artifactHash the stored artifact
+     */
+    public void markReady(ResultBatch batch, Function function, FunctionVersion version, String artifactHash) {
+        if (markReady(function, version, artifactHash, batch.activeRevisions.get(function.getId()))) {
+            batch.activeRevisions.put(function.getId(), version.getRevision());
+            if (version.getRevision() > 1) {
+                batch.prunes.merge(function.getId(), version.getRevision(), Math::max);
+            }
+            LOG.info("function.version.activated id={} revision={}", function.getId(), version.getRevision());
+        }
+    }
+
+    /**
+     * Delete the versions superseded by activations in a batch, in one statement. Call after
+     * the functions are saved: pending changes are flushed first, so the new active version
+     * pointers are written before the versions they replaced are deleted.
+     *
+     * @param batch the batch
+     * @return the number of versions deleted
+     */
+    public int pruneSuperseded(ResultBatch batch) {
+        if (batch.prunes.isEmpty()) {
+            return 0;
+        }
+        versionRepository.flush();
+        UUID[] functionIds = batch.prunes.keySet().toArray(UUID[]::new);
+        Integer[] revisions = batch.prunes.values().toArray(Integer[]::new);
+        int pruned = jdbcTemplate.update(DELETE_SUPERSEDED_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", functionIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("integer", revisions));
+        });
+        LOG.info("function.versions.pruned functions={} versions={}", functionIds.length, pruned);
+        return pruned;
+    }
+
+    /**
+     * Record a failed compilation. The active version, if any, keeps serving.
+     *
+     * @param function the function owning the version
+     * @param version the version that failed
+     * @param error the compiler error
+     */
+    public void markFailed(Function function, FunctionVersion version, String error) {
+        version.setStatus(FunctionStatus.FAILED);
+        version.setArtifactHash(null);
+        version.setCompileError(error);
+        versionRepository.save(version);
+
+        if (version.getRevision() == function.getRevision()) {
+            function.setStatus(FunctionStatus.FAILED);
+            function.setCompileError(error);
+        }
+    }
+
+    private FunctionVersion newVersion(Function function) {
+        return FunctionVersion.builder()
+                .functionId(function.getId())
+                .revision(function.getRevision())
+                .language(function.getLanguage())
+                .source(function.getSource())
+                .status(FunctionStatus.PENDING)
+                .build();
+    }
+
+    /**
+     * @param activeRevision revision of the active version, or null if there is none
+     * @return true if the version became the active one
+     */
+    private boolean markReady(Function function, FunctionVersion version, String artifactHash, Integer activeRevision) {
+        version.setStatus(FunctionStatus.READY);
+        version.setArtifactHash(artifactHash);
+        version.setCompileError(null);
+        versionRepository.save(version);
+
+        if (version.getRevision() == function.getRevision()) {
+            function.setStatus(FunctionStatus.READY);
+            function.setCompileError(null);
+        }
+        if (activeRevision != null && activeRevision >= version.getRevision()) {
+            return false;
+        }
+        function.setActiveVersionId(version.getId());
+        function.setArtifactHash(artifactHash);
+        return true;
+    }
+
+    /**
+     * The versions a batch of compilation results applies to, and the activation state it
+     * builds up while the results are applied in order.
+     */
+    public static final class ResultBatch {
+
+        private final List<Optional<FunctionVersion>> versions;
+        private final Map<UUID, Integer> activeRevisions;
+        private final Map<UUID, Integer> prunes = new LinkedHashMap<>();
+
+        private ResultBatch(List<Optional<FunctionVersion>> versions, Map<UUID, Integer> activeRevisions) {
+            this.versions = versions;
+            this.activeRevisions = activeRevisions;
+        }
+
+        /**
+         * @param index position of the result in the batch
+         * @return the version the result applies to, or empty if it no longer exists
+         */
+        public Optional<FunctionVersion> version(int index) {
+            return versions.get(index);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.projectnil.api.service;
+
+import com.projectnil.common.domain.Artifact;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Node-local, on-disk cache of artifact binaries in front of {@link ArtifactStore}.
+ *
+ * <p>Each artifact is written once to {@code <dir>/<hash>.wasm} (temp file, fsync, atomic
+ * rename) and handed out as a read-only {@link FileChannel#map mapping}, so the bytes are
+ * served from the OS page cache instead of Postgres and never copied onto the heap. The
+ * directory is rescanned on startup, so a restarted node starts warm. Files are evicted least-recently-used once their total size exceeds
+ * {@link ArtifactProperties.LocalCache#maxSize()}.
+ *
+ * <p>Artifacts are content-addressed, so cached files never go stale. Integrity is checked
+ * when a file is written and when it is found on startup, not on every read: a binary whose
+ * hash does not match is not cached, and a file whose content no longer matches its name is
+ * removed.
+ *
+ * <p>Reports the following metrics:
+ * <ul>
+ *   <li>{@code projectnil.artifacts.local.cache.lookups} - lookups, tagged {@code result=hit|miss}</li>
+ *   <li>{@code projectnil.artifacts.local.cache.size} - bytes currently cached on disk</li>
+ * </ul>
+ */
+@Component
+public class LocalArtifactCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalArtifactCache.class);
+
+    private static final String SUFFIX = ".wasm";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{" + Artifact.HASH_LENGTH + "}");
+
+    private final Path dir;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Cached files in access order, guarded by {@code this}. Values are file sizes.
+     */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public LocalArtifactCache(ArtifactProperties properties, MeterRegistry meterRegistry) {
+        this(Path.of(properties.localCache().dir()), properties.localCache().maxSize().toBytes(), meterRegistry);
+    }
+
+    LocalArtifactCache(Path dir, long maxBytes, MeterRegistry meterRegistry) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("projectnil.artifacts.local.cache.size", this, LocalArtifactCache::sizeBytes)
+                .description("Bytes of artifacts cached on local disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        if (isEnabled()) {
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Read a cached artifact.
+     *
+     * @param hash the artifact hash
+     * @return a read-only buffer over the mapped file, or empty if it is not cached on this node
+     */
+    public Optional<ByteBuffer> get(String hash) {
+        if (!isEnabled() || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            if (index.get(hash) == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+        }
+        Optional<ByteBuffer> data = map(hash);
+        (data.isPresent() ? hits : misses).increment();
+        return data;
+    }
+
+    /**
+     * Cache an artifact loaded from the database. No-op if it is already cached, and the
+     * binary is not cached if it does not match its hash.
+     *
+     * @param hash the artifact hash
+     * @param data the binary
+     */
+    public void put(String hash, byte[] data) {
+        if (!isEnabled() || data.length > maxBytes || !HASH.matcher(hash).matches()) {
+            return;
+        }
+        synchronized (this) {
+            if (index.containsKey(hash)) {
+                return;
+            }
+        }
+        if (!hash.equals(Artifact.hashOf(data))) {
+            LOG.warn("Artifact {} does not match its hash, not caching it locally", hash);
+            return;
+        }
+        try {
+            write(hash, data);
+        } catch (IOException ex) {
+            LOG.warn("Failed to cache artifact {} locally", hash, ex);
+            return;
+        }
+        List<String> evicted;
+        synchronized (this) {
+            if (index.put(hash, (long) data.length) == null) {
+                totalBytes += data.length;
+            }
+            evicted = evictOverBudget();
+        }
+        evicted.forEach(this::deleteQuietly);
+        LOG.debug("artifact.local.cached hash={} bytes={} evicted={}", hash, data.length, evicted.size());
+    }
+
+    synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    private boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * The mapping stays valid after the channel is closed, and after the file is evicted.
+     */
+    private Optional<ByteBuffer> map(String hash) {
+        try (FileChannel channel = FileChannel.open(fileFor(hash), StandardOpenOption.READ)) {
+            return Optional.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (NoSuchFileException ex) {
+            forget(hash);
+            return Optional.empty();
+        } catch (IOException ex) {
+            LOG.warn("Failed to read locally cached artifact {}", hash, ex);
+            return Optional.empty();
+        }
+    }
+
+    private void write(String hash, byte[] data) throws IOException {
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(hash + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, fileFor(hash), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void forget(String hash) {
+        synchronized (this) {
+            Long size = index.remove(hash);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        deleteQuietly(hash);
+    }
+
+    /**
+     * Must be called holding {@code this}. Returns evicted hashes so files are deleted outside the lock.
+     */
+    private List<String> evictOverBudget() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    /**
+     * Index files left by a previous run, oldest first so they are evicted first, remove temp
+     * files from interrupted writes and delete files whose content does not match their name.
+     */
+    private void rebuildIndex() {
+        record CachedFile(String hash, long size, FileTime modified) {
+        }
+        List<CachedFile> files = new ArrayList<>();
+        try {
+            Files.createDirectories(dir);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    if (name.endsWith(TEMP_SUFFIX)) {
+                        Files.deleteIfExists(path);
+                        continue;
+                    }
+                    String hash = name.endsWith(SUFFIX) ? name.substring(0, name.length() - SUFFIX.length()) : "";
+                    if (!HASH.matcher(hash).matches()) {
+                        continue;
+                    }
+                    if (isIntact(hash, path)) {
+                        files.add(new CachedFile(hash, Files.size(path), Files.getLastModifiedTime(path)));
+                    } else {
+                        LOG.warn("Locally cached artifact {} is corrupt, discarding", hash);
+                        Files.deleteIfExists(path);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to open local artifact cache at " + dir, ex);
+        }
+        files.sort(Comparator.comparing(CachedFile::modified));
+
+        List<String> evicted;
+        long loadedBytes;
+        synchronized (this) {
+            for (CachedFile file : files) {
+                index.put(file.hash(), file.size());
+                totalBytes += file.size();
+            }
+            evicted = evictOverBudget();
+            loadedBytes = totalBytes;
+        }
+        evicted.forEach(this::deleteQuietly);
+        LOG.info("artifact.local.cache.loaded dir={} artifacts={} bytes={}",
+                dir, files.size() - evicted.size(), loadedBytes);
+    }
+
+    private static boolean isIntact(String hash, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return hash.equals(Artifact.hashOf(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+        }
+    }
+
+    private Path fileFor(String hash) {
+        return dir.resolve(hash + SUFFIX);
+    }
+
+    private void deleteQuietly(String hash) {
+        try {
+            Files.deleteIfExists(fileFor(hash));
+        } catch (IOException ex) {
+            LOG.warn("Failed to delete locally cached artifact {}", hash, ex);
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("projectnil.artifacts.local.cache.lookups")
+                .description("Artifact lookups against the node-local disk cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
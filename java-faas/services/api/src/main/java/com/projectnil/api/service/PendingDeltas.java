@@ -0,0 +1,83 @@
+package com.projectnil.api.service;
+
+import org.springframework.dao.DataAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory deltas waiting to be written as one batch, used by {@link ExecutionStatsRecorder}.
+ *
+ * <p>{@link #update} folds a change into the delta for a key. {@link #flush} drains every
+ * pending delta and hands them to a writer; if the writer fails, the drained deltas are
+ * merged back so the next flush retries them together with anything recorded since.
+ *
+ * <p>Thread-safe: deltas are only mutated inside {@link ConcurrentHashMap#compute} and
+ * {@link ConcurrentHashMap#merge}, and a drained delta is no longer reachable by
+ * {@link #update}.
+ *
+ * @param <K> what a delta is kept per
+ * @param <D> the mutable delta
+ */
+final class PendingDeltas<K, D> {
+
+    private final ConcurrentHashMap<K, D> pending = new ConcurrentHashMap<>();
+    private final Supplier<D> emptyDelta;
+    private final BinaryOperator<D> merge;
+
+    /**
+     * @param emptyDelta creates the delta for a key with nothing pending
+     * @param merge adds the second delta into the first and returns it
+     */
+    PendingDeltas(Supplier<D> emptyDelta, BinaryOperator<D> merge) {
+        this.emptyDelta = emptyDelta;
+        this.merge = merge;
+    }
+
+    /**
+     * Apply a change to the pending delta for a key.
+     */
+    void update(K key, Consumer<D> change) {
+        pending.compute(key, (k, delta) -> {
+            D d = delta == null ? emptyDelta.get() : delta;
+            change.accept(d);
+            return d;
+        });
+    }
+
+    /**
+     * Drain all pending deltas and write them.
+     *
+     * @param writer writes the batch, typically as one batched upsert
+     * @return the number of deltas written
+     * @throws DataAccessException if the writer failed; the deltas are pending again
+     */
+    int flush(Consumer<List<Map.Entry<K, D>>> writer) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Map.Entry<K, D>> batch = new ArrayList<>();
+        for (K key : pending.keySet()) {
+            D delta = pending.remove(key);
+            if (delta != null) {
+                batch.add(Map.entry(key, delta));
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            writer.accept(batch);
+            return batch.size();
+        } catch (DataAccessException ex) {
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), merge));
+            throw ex;
+        }
+    }
+}
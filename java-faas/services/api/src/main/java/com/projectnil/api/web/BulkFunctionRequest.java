@@ -0,0 +1,12 @@
+package com.projectnil.api.web;
+
+import java.util.List;
+
+/**
+ * Request to register many functions at once.
+ *
+ * @param functions the functions to create, each validated independently
+ */
+public record BulkFunctionRequest(
+    List<FunctionRequest> functions
+) {}
@@ -0,0 +1,34 @@
+package com.projectnil.api.web;
+
+import com.projectnil.common.domain.FunctionStatus;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-item outcome of a bulk registration.
+ *
+ * @param created number of functions created
+ * @param failed number of items rejected by validation
+ * @param results one entry per request item, in request order
+ */
+public record BulkFunctionResponse(
+    int created,
+    int failed,
+    List<Item> results
+) {
+
+    /**
+     * Outcome of one request item. Exactly one of {@code id} and {@code error} is set.
+     *
+     * @param index position of the item in the request
+     * @param id the created function, or null if rejected
+     * @param status PENDING, or READY on a compile cache hit; null if rejected
+     * @param error why the item was rejected, or null if created
+     */
+    public record Item(
+        int index,
+        UUID id,
+        FunctionStatus status,
+        String error
+    ) {}
+}
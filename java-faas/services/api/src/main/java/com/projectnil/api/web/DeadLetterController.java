@@ -0,0 +1,59 @@
+package com.projectnil.api.web;
+
+import com.projectnil.api.service.DeadLetterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Admin endpoints for compilation results that were dead-lettered after repeatedly failing
+ * to apply.
+ */
+@RestController
+@RequestMapping("/admin/dead-letters/compilation-results")
+public class DeadLetterController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeadLetterController.class);
+
+    private final DeadLetterService deadLetterService;
+
+    public DeadLetterController(DeadLetterService deadLetterService) {
+        this.deadLetterService = deadLetterService;
+    }
+
+    /**
+     * List dead-lettered compilation results, most recently dead-lettered first.
+     *
+     * @param limit maximum number of results (1-1000, default 100)
+     * @return the dead-lettered results
+     */
+    @GetMapping
+    public ResponseEntity<List<DeadLetterResponse>> list(
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(deadLetterService.list(limit));
+    }
+
+    /**
+     * Send a dead-lettered compilation result back to the results queue.
+     *
+     * <p>Returns 202 Accepted, since the result is applied asynchronously by the poller, and
+     * 404 if the message does not exist.
+     *
+     * @param messageId the dead-lettered message ID
+     * @return the old and new message IDs
+     */
+    @PostMapping("/{messageId}/replay")
+    public ResponseEntity<DeadLetterReplayResponse> replay(@PathVariable long messageId) {
+        LOG.info("Received dead-letter replay request: messageId={}", messageId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(deadLetterService.replay(messageId));
+    }
+}
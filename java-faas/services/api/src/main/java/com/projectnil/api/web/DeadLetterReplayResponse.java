@@ -0,0 +1,12 @@
+package com.projectnil.api.web;
+
+/**
+ * Response for replaying a dead-lettered compilation result.
+ *
+ * @param messageId the dead-lettered message ID, which no longer exists
+ * @param replayedAs the ID of the message sent to the results queue
+ */
+public record DeadLetterReplayResponse(
+    long messageId,
+    long replayedAs
+) {}
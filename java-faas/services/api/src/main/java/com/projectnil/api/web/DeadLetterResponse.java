@@ -0,0 +1,20 @@
+package com.projectnil.api.web;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A dead-lettered compilation result.
+ *
+ * <p>{@code functionId}, {@code versionId} and {@code success} are null if the message
+ * could not be deserialized.
+ */
+public record DeadLetterResponse(
+    long messageId,
+    UUID functionId,
+    UUID versionId,
+    Boolean success,
+    int attempts,
+    LocalDateTime enqueuedAt,
+    LocalDateTime deadLetteredAt
+) {}
@@ -1,14 +1,18 @@
 package com.projectnil.api.web;
 
+import com.projectnil.api.service.ETagged;
 import com.projectnil.api.service.ExecutionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.UUID;
 
 /**
@@ -22,6 +26,13 @@ public class ExecutionController {
 
     private static final Logger LOG = LoggerFactory.getLogger(ExecutionController.class);
 
+    /**
+     * Terminal executions never change, so clients may keep them for as long as they like.
+     */
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePrivate()
+            .immutable();
+
     private final ExecutionService executionService;
 
     public ExecutionController(ExecutionService executionService) {
@@ -38,15 +49,33 @@ public class ExecutionController {
      *   <li>errorMessage is included only for FAILED executions</li>
      * </ul>
      *
+     * <p>COMPLETED and FAILED executions carry a strong ETag and an immutable
+     * {@code Cache-Control}; a matching {@code If-None-Match} gets 304 Not Modified.
+     * Executions still in progress are sent with {@code no-cache}.
+     *
+     * <p>The body is an {@link ExecutionDetailResponse} rendered by {@link ExecutionService}
+     * and written out as is.
+     *
      * @param executionId the execution ID
-     * @return the execution details
+     * @return the execution details as JSON
      */
     @GetMapping("/{executionId}")
-    public ResponseEntity<ExecutionDetailResponse> get(@PathVariable UUID executionId) {
+    public ResponseEntity<byte[]> get(@PathVariable UUID executionId) {
         LOG.debug("Received get execution request: id={}", executionId);
 
-        ExecutionDetailResponse response = executionService.getById(executionId);
+        ETagged<byte[]> response = executionService.getById(executionId);
+        if (!response.immutable()) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache())
+                    .body(response.body());
+        }
 
-        return ResponseEntity.ok(response);
+        // MVC answers a matching If-None-Match with 304 and no body
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(response.etag())
+                .cacheControl(IMMUTABLE)
+                .body(response.body());
     }
 }
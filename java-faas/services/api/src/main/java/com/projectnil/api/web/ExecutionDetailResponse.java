@@ -1,5 +1,6 @@
 package com.projectnil.api.web;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.projectnil.common.domain.ExecutionStatus;
 
 import java.time.LocalDateTime;
@@ -11,7 +12,7 @@ import java.util.UUID;
  * <p>Per scope/contracts.md and issue #30, includes all fields for inspection:
  * <ul>
  *   <li>id, functionId, status</li>
- *   <li>input, output (parsed JSON objects per #55)</li>
+ *   <li>input, output (JSON objects per #55, written as raw values from storage)</li>
  *   <li>errorMessage (only populated if FAILED)</li>
  *   <li>startedAt, completedAt, createdAt</li>
  * </ul>
@@ -20,8 +21,8 @@ public record ExecutionDetailResponse(
     UUID id,
     UUID functionId,
     ExecutionStatus status,
-    Object input,
-    Object output,
+    @JsonRawValue String input,
+    @JsonRawValue String output,
     String errorMessage,
     LocalDateTime startedAt,
     LocalDateTime completedAt,
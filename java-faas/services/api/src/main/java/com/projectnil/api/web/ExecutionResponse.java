@@ -1,5 +1,6 @@
 package com.projectnil.api.web;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.projectnil.common.domain.ExecutionStatus;
 
 import java.time.LocalDateTime;
@@ -8,12 +9,13 @@ import java.util.UUID;
 /**
  * Response DTO for function execution.
  *
- * <p>Per scope/contracts.md, output is returned as a parsed JSON object, not a string.
+ * <p>Per scope/contracts.md, output is returned as a JSON object, not a string. The output
+ * is already validated JSON and is written into the response as-is, without re-parsing.
  *
  * @param id the execution ID
  * @param functionId the function ID
  * @param status the execution status
- * @param output the parsed JSON output (null if failed)
+ * @param output the raw JSON output (null if failed)
  * @param errorMessage error message (only for FAILED status)
  * @param createdAt when the execution was created
  */
@@ -21,7 +23,7 @@ public record ExecutionResponse(
     UUID id,
     UUID functionId,
     ExecutionStatus status,
-    Object output,
+    @JsonRawValue String output,
     String errorMessage,
     LocalDateTime createdAt
 ) {}
@@ -1,10 +1,15 @@
 package com.projectnil.api.web;
 
+import com.projectnil.api.service.ETagged;
 import com.projectnil.api.service.ExecutionService;
+import com.projectnil.api.service.FunctionListQuery;
 import com.projectnil.api.service.FunctionService;
+import com.projectnil.api.service.FunctionStatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,9 +18,15 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -29,10 +40,23 @@ public class FunctionController {
 
     private final FunctionService functionService;
     private final ExecutionService executionService;
+    private final FunctionStatsService functionStatsService;
 
-    public FunctionController(FunctionService functionService, ExecutionService executionService) {
+    /**
+     * The mapper Spring MVC writes responses with, so streamed list items match
+     * {@code GET /functions/{id}}.
+     */
+    private final JsonMapper jsonMapper;
+
+    public FunctionController(
+            FunctionService functionService,
+            ExecutionService executionService,
+            FunctionStatsService functionStatsService,
+            JsonMapper jsonMapper) {
         this.functionService = functionService;
         this.executionService = executionService;
+        this.functionStatsService = functionStatsService;
+        this.jsonMapper = jsonMapper;
     }
 
     /**
@@ -59,30 +83,75 @@ public class FunctionController {
     }
 
     /**
-     * List all functions.
+     * Create many functions at once.
      *
-     * @return list of all functions
+     * <p>Items are validated independently: valid ones are created in a single transaction
+     * and their compilation jobs enqueued with one batch publish, invalid ones are reported
+     * with an error. Returns 200 with one result per item, in request order.
+     *
+     * @param request the functions to create, at most {@link FunctionService#MAX_BULK_SIZE}
+     * @return per-item ids, statuses and validation errors
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkFunctionResponse> createBulk(@RequestBody BulkFunctionRequest request) {
+        LOG.debug("Received bulk create request: count={}",
+                request.functions() == null ? 0 : request.functions().size());
+
+        return ResponseEntity.ok(functionService.createBulk(request));
+    }
+
+    /**
+     * List functions, one page at a time.
+     *
+     * <p>Pages are ordered by name, then ID. The body is {@code {"items": [...], "nextCursor": ...}}
+     * and is streamed while rows are read; {@code nextCursor} is null on the last page.
+     * Parameters are validated before streaming starts, so bad input still gets a 400.
+     *
+     * @param status only functions with this status
+     * @param namePrefix only functions whose name starts with this
+     * @param cursor {@code nextCursor} from the previous page
+     * @param limit page size, 1-500, default 50
+     * @return the page
      */
     @GetMapping
-    public ResponseEntity<List<FunctionResponse>> list() {
-        return ResponseEntity.ok(functionService.findAll());
+    public ResponseEntity<StreamingResponseBody> list(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        FunctionListQuery query = FunctionListQuery.parse(status, namePrefix, cursor, limit);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = jsonMapper.createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayPropertyStart("items");
+                Optional<String> nextCursor = functionService.list(
+                        query, function -> jsonMapper.writeValue(generator, function));
+                generator.writeEndArray();
+                generator.writeStringProperty("nextCursor", nextCursor.orElse(null));
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
      * Get a function by ID.
      *
+     * <p>The response carries an ETag derived from {@code updatedAt} and {@code no-cache}, so
+     * clients revalidate every time; a matching {@code If-None-Match} gets 304 Not Modified.
+     *
      * @param functionId the function ID
      * @return the function details
      */
     @GetMapping("/{functionId}")
     public ResponseEntity<FunctionResponse> get(@PathVariable UUID functionId) {
-        var function = functionService.findById(functionId);
-        return ResponseEntity.ok(new FunctionResponse(
-                function.getId(),
-                function.getName(),
-                function.getStatus(),
-                function.getCreatedAt()
-        ));
+        ETagged<FunctionResponse> function = functionService.getSummary(functionId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        if (function.etag() != null) {
+            response.eTag(function.etag());
+        }
+        return response.body(function.body());
     }
 
     /**
@@ -146,6 +215,25 @@ public class FunctionController {
         return ResponseEntity.ok(executions);
     }
 
+    /**
+     * Get execution statistics for a function.
+     *
+     * <p>Answered from per-bucket rollups only, so the cost does not grow with the number
+     * of executions. Defaults to the last {@code projectnil.executions.stats.default-window}.
+     *
+     * @param functionId the function ID
+     * @param from optional start of the window (ISO-8601 instant)
+     * @param to optional end of the window (ISO-8601 instant), defaults to now
+     * @return the function's execution stats
+     */
+    @GetMapping("/{functionId}/stats")
+    public ResponseEntity<FunctionStatsResponse> stats(
+            @PathVariable UUID functionId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        return ResponseEntity.ok(functionStatsService.getStats(functionId, from, to));
+    }
+
     /**
      * Execute a function with the given input.
      *
@@ -171,4 +259,27 @@ public class FunctionController {
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Execute a function with the raw request body as input.
+     *
+     * <p>The body is the input object itself (not wrapped in an ExecutionRequest). It is
+     * only checked to be a single JSON object and passed to the runtime as-is, so large
+     * inputs never get deserialized. Status codes match {@link #execute}.
+     *
+     * @param functionId the function ID
+     * @param body the raw JSON input object
+     * @return the execution response
+     */
+    @PostMapping(value = "/{functionId}/execute/raw", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ExecutionResponse> executeRaw(
+            @PathVariable UUID functionId,
+            @RequestBody(required = false) byte[] body) {
+
+        LOG.debug("Received raw execute request for function {}", functionId);
+
+        ExecutionResponse response = executionService.executeRaw(functionId, body);
+
+        return ResponseEntity.ok(response);
+    }
 }
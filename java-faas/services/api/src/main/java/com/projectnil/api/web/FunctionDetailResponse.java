@@ -13,6 +13,9 @@ import java.util.UUID;
  *   <li>GET /functions/{id}</li>
  *   <li>PUT /functions/{id}</li>
  * </ul>
+ *
+ * <p>{@code status} and {@code compileError} describe the latest {@code revision}. Executions
+ * run {@code activeVersionId}, the newest version that compiled, which may be older.
  */
 public record FunctionDetailResponse(
     UUID id,
@@ -22,6 +25,9 @@ public record FunctionDetailResponse(
     String source,
     FunctionStatus status,
     String compileError,
+    int revision,
+    UUID activeVersionId,
+    String persistencePolicy,
     LocalDateTime createdAt,
     LocalDateTime updatedAt
 ) {}
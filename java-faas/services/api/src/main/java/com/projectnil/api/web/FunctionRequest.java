@@ -1,8 +1,21 @@
 package com.projectnil.api.web;
 
+/**
+ * Function create/update request.
+ *
+ * @param persistencePolicy optional execution persistence policy, e.g. {@code all},
+ *     {@code failures-only}, {@code sampled(0.01)}, {@code metadata-only}, {@code none}.
+ *     Defaults to {@code all} on create and is left unchanged on update when omitted.
+ */
 public record FunctionRequest(
     String name,
     String description,
     String language,
-    String source
-) {}
+    String source,
+    String persistencePolicy
+) {
+
+    public FunctionRequest(String name, String description, String language, String source) {
+        this(name, description, language, source, null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.projectnil.api.web;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Execution statistics for a function.
+ *
+ * <p>Lifetime totals are exact, from {@code function_execution_counters} plus the deltas not
+ * yet rolled up into it; everything else is
+ * aggregated from the {@code function_stats_rollups} buckets in {@code [from, to)}.
+ * Percentiles are estimated from the latency histogram and report the upper bound of the
+ * histogram slot the percentile falls into.
+ *
+ * @param functionId the function ID
+ * @param totalExecutions lifetime executions
+ * @param completedExecutions lifetime COMPLETED executions
+ * @param failedExecutions lifetime FAILED executions
+ * @param from start of the window (aligned to a bucket)
+ * @param to end of the window
+ * @param executions executions in the window
+ * @param failures FAILED executions in the window
+ * @param avgDurationMs mean duration in the window (null if no executions)
+ * @param minDurationMs fastest execution in the window (null if no executions)
+ * @param maxDurationMs slowest execution in the window (null if no executions)
+ * @param p50DurationMs estimated median duration (null if no executions)
+ * @param p95DurationMs estimated 95th percentile duration (null if no executions)
+ * @param p99DurationMs estimated 99th percentile duration (null if no executions)
+ * @param buckets per-bucket breakdown, oldest first
+ */
+public record FunctionStatsResponse(
+    UUID functionId,
+    long totalExecutions,
+    long completedExecutions,
+    long failedExecutions,
+    Instant from,
+    Instant to,
+    long executions,
+    long failures,
+    Double avgDurationMs,
+    Long minDurationMs,
+    Long maxDurationMs,
+    Long p50DurationMs,
+    Long p95DurationMs,
+    Long p99DurationMs,
+    List<Bucket> buckets
+) {
+
+    /**
+     * Stats for a single time bucket.
+     *
+     * @param start bucket start
+     * @param executions executions in the bucket
+     * @param failures FAILED executions in the bucket
+     * @param avgDurationMs mean duration
+     * @param minDurationMs fastest execution
+     * @param maxDurationMs slowest execution
+     */
+    public record Bucket(
+        Instant start,
+        long executions,
+        long failures,
+        double avgDurationMs,
+        long minDurationMs,
+        long maxDurationMs
+    ) {}
+}
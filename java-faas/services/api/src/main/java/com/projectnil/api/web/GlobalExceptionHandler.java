@@ -1,6 +1,7 @@
 package com.projectnil.api.web;
 
 import com.projectnil.api.runtime.WasmAbiException;
+import com.projectnil.api.service.DeadLetterNotFoundException;
 import com.projectnil.api.service.ExecutionNotFoundException;
 import com.projectnil.api.service.FunctionNotFoundException;
 import com.projectnil.api.service.FunctionNotReadyException;
@@ -22,7 +23,7 @@ import java.util.Map;
  * <p>Error semantics per scope/contracts.md:
  * <ul>
  *   <li>400 Bad Request - Invalid DTO payload, attempt to execute non-READY function</li>
- *   <li>404 Not Found - Unknown function/execution ID</li>
+ *   <li>404 Not Found - Unknown function/execution ID or dead-lettered message</li>
  *   <li>500 Internal Server Error - Unexpected platform failure</li>
  * </ul>
  */
@@ -45,6 +46,13 @@ public class GlobalExceptionHandler {
                 .body(errorBody(HttpStatus.NOT_FOUND, ex.getMessage()));
     }
 
+    @ExceptionHandler(DeadLetterNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleDeadLetterNotFound(DeadLetterNotFoundException ex) {
+        LOG.warn("Dead-lettered message not found: {}", ex.getMessageId());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(errorBody(HttpStatus.NOT_FOUND, ex.getMessage()));
+    }
+
     @ExceptionHandler(FunctionNotReadyException.class)
     public ResponseEntity<Map<String, Object>> handleFunctionNotReady(FunctionNotReadyException ex) {
         LOG.warn("Function not ready: {} (status={})", ex.getFunctionId(), ex.getCurrentStatus());
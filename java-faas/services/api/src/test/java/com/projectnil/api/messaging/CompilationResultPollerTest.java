@@ -0,0 +1,215 @@
+package com.projectnil.api.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.projectnil.api.messaging.PgmqClient.QueuedCompilationResult;
+import com.projectnil.api.service.CompilationResultHandler;
+import com.projectnil.common.domain.queue.CompilationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit tests for {@link CompilationResultPoller}.
+ */
+class CompilationResultPollerTest {
+
+    private PgmqClient pgmqClient;
+    private CompilationResultHandler handler;
+    private PgNotificationListener notificationListener;
+    private SimpleMeterRegistry meterRegistry;
+    private CompilationResultPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        pgmqClient = mock(PgmqClient.class);
+        handler = mock(CompilationResultHandler.class);
+        notificationListener = mock(PgNotificationListener.class);
+        meterRegistry = new SimpleMeterRegistry();
+        poller = new CompilationResultPoller(
+                pgmqClient,
+                new PgmqProperties(null, null, 60_000, 60_000, 30, 2, 2, 3),
+                handler,
+                notificationListener,
+                meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        poller.stop();
+    }
+
+    private static QueuedCompilationResult queued(long messageId, UUID functionId) {
+        return queued(messageId, 1, functionId);
+    }
+
+    private static QueuedCompilationResult queued(long messageId, int readCount, UUID functionId) {
+        return new QueuedCompilationResult(
+                messageId, readCount, CompilationResult.failure(functionId, null, "error"));
+    }
+
+    private static List<Boolean> appliedAll(List<CompilationResult> results) {
+        return results.stream().map(result -> true).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Long> deletedIds(int batches) {
+        ArgumentCaptor<List<Long>> captor = ArgumentCaptor.forClass(List.class);
+        verify(pgmqClient, times(batches)).deleteResults(captor.capture());
+        Set<Long> deleted = new HashSet<>();
+        captor.getAllValues().forEach(deleted::addAll);
+        return deleted;
+    }
+
+    @Test
+    @DisplayName("reads again immediately while batches come back full")
+    void drainsFullBatches() {
+        when(pgmqClient.readResults(anyInt(), anyInt())).thenReturn(
+                List.of(queued(1, UUID.randomUUID()), queued(2, UUID.randomUUID())),
+                List.of(queued(3, UUID.randomUUID())));
+        when(handler.applyResults(any())).thenAnswer(invocation -> appliedAll(invocation.getArgument(0)));
+
+        poller.pollResults();
+
+        verify(pgmqClient, times(2)).readResults(30, 2);
+        verify(handler, times(3)).applyResults(any());
+        verify(handler, never()).applyResult(any());
+        assertEquals(Set.of(1L, 2L, 3L), deletedIds(2));
+    }
+
+    @Test
+    @DisplayName("dead-letters unparseable messages and keeps draining while batches come back full")
+    void unparseableMessagesDoNotPauseDraining() {
+        when(pgmqClient.readResults(anyInt(), anyInt())).thenReturn(
+                List.of(new QueuedCompilationResult(1, 1, null), queued(2, UUID.randomUUID())),
+                List.of(queued(3, UUID.randomUUID())));
+        when(handler.applyResults(any())).thenAnswer(invocation -> appliedAll(invocation.getArgument(0)));
+
+        poller.pollResults();
+
+        verify(pgmqClient, times(2)).readResults(30, 2);
+        verify(pgmqClient).archiveResults(List.of(1L));
+        assertEquals(Set.of(2L, 3L), deletedIds(2));
+        assertEquals(1.0, meterRegistry.counter("projectnil.compilation.results.dead.lettered").count());
+    }
+
+    @Test
+    @DisplayName("retries a failed batch one result at a time and keeps the failing message for redelivery")
+    void failedResultIsNotDeleted() {
+        UUID failing = UUID.randomUUID();
+        UUID ok = UUID.randomUUID();
+        UUID sameChunk = UUID.randomUUID();
+        poller.stop();
+        poller = new CompilationResultPoller(
+                pgmqClient,
+                new PgmqProperties(null, null, 60_000, 60_000, 30, 3, 1, 3),
+                handler,
+                notificationListener,
+                meterRegistry);
+        when(pgmqClient.readResults(anyInt(), anyInt())).thenReturn(
+                List.of(queued(1, failing), queued(2, ok), queued(3, sameChunk)), List.of());
+        when(handler.applyResults(any())).thenThrow(new IllegalStateException("database unavailable"));
+        when(handler.applyResult(any())).thenAnswer(invocation -> {
+            CompilationResult result = invocation.getArgument(0);
+            if (result.functionId().equals(failing)) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return false;
+        });
+
+        poller.pollResults();
+
+        assertEquals(Set.of(2L, 3L), deletedIds(1));
+        verify(handler, times(3)).applyResult(any());
+        verify(pgmqClient, never()).archiveResults(any());
+    }
+
+    @Test
+    @DisplayName("dead-letters a result that still fails on its last delivery")
+    void poisonResultIsDeadLettered() {
+        when(pgmqClient.readResults(anyInt(), anyInt())).thenReturn(List.of(queued(7, 3, UUID.randomUUID())));
+        when(handler.applyResults(any())).thenThrow(new IllegalStateException("constraint violation"));
+        when(handler.applyResult(any())).thenThrow(new IllegalStateException("constraint violation"));
+
+        poller.pollResults();
+
+        verify(pgmqClient).archiveResults(List.of(7L));
+        assertEquals(Set.of(), deletedIds(1));
+        assertEquals(1.0, meterRegistry.counter("projectnil.compilation.results.dead.lettered").count());
+    }
+
+    @Test
+    @DisplayName("wakes up on a results notification instead of waiting for the interval")
+    @SuppressWarnings("unchecked")
+    void notificationWakesPoller() {
+        when(pgmqClient.readResults(anyInt(), anyInt())).thenReturn(List.of());
+        ArgumentCaptor<Consumer<String>> onNotification = ArgumentCaptor.forClass(Consumer.class);
+        verify(notificationListener).subscribe(
+                eq(CompilationResultPoller.CHANNEL), onNotification.capture(), any(), any());
+
+        poller.start();
+        verify(pgmqClient, timeout(1000).times(1)).readResults(anyInt(), anyInt());
+
+        onNotification.getValue().accept("");
+
+        verify(pgmqClient, timeout(1000).times(2)).readResults(anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("falls back to the poll interval when the notification connection drops")
+    void disconnectRestoresPollInterval() {
+        clearInvocations(notificationListener);
+        poller = new CompilationResultPoller(
+                pgmqClient,
+                new PgmqProperties(null, null, 20, 60_000, 30, 2, 2, 3),
+                handler,
+                notificationListener,
+                meterRegistry);
+        when(pgmqClient.readResults(anyInt(), anyInt())).thenReturn(List.of());
+        ArgumentCaptor<Runnable> onListen = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Runnable> onDisconnect = ArgumentCaptor.forClass(Runnable.class);
+        verify(notificationListener).subscribe(
+                eq(CompilationResultPoller.CHANNEL), any(), onListen.capture(), onDisconnect.capture());
+        onListen.getValue().run();
+        poller.start();
+        verify(pgmqClient, timeout(1000).times(2)).readResults(anyInt(), anyInt());
+
+        onDisconnect.getValue().run();
+        poller.wakeUp();
+
+        verify(pgmqClient, timeout(1000).atLeast(10)).readResults(anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("ignores notifications for a result queue without the trigger")
+    void customResultQueueIsPolled() {
+        clearInvocations(notificationListener);
+
+        new CompilationResultPoller(
+                pgmqClient,
+                new PgmqProperties(null, "tenant_results", 60_000, 60_000, 30, 2, 2, 3),
+                handler,
+                notificationListener,
+                meterRegistry);
+
+        verify(notificationListener, never()).subscribe(any(), any(), any(), any());
+    }
+}
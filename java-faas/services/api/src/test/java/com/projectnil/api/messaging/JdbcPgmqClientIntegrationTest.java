@@ -0,0 +1,176 @@
+package com.projectnil.api.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectnil.api.messaging.PgmqClient.ArchivedCompilationResult;
+import com.projectnil.api.messaging.PgmqClient.QueuedCompilationResult;
+import com.projectnil.common.domain.queue.CompilationResult;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Tests {@link JdbcPgmqClient} against a real pgmq, in particular the dead-letter SQL that
+ * queries the {@code pgmq.a_<queue>} archive table directly.
+ */
+@Testcontainers
+class JdbcPgmqClientIntegrationTest {
+
+    static {
+        // Configure Testcontainers for Podman before any container classes load
+        configurePodmanEnvironment();
+    }
+
+    private static void configurePodmanEnvironment() {
+        if (System.getenv("DOCKER_HOST") != null) {
+            return; // Already configured externally
+        }
+        if (Files.exists(Path.of("/var/run/docker.sock"))) {
+            return; // Docker is available
+        }
+        String podmanSocket = discoverPodmanSocketPath();
+        if (podmanSocket != null) {
+            System.setProperty("tc.host", podmanSocket);
+            System.setProperty("docker.host", podmanSocket);
+            System.setProperty("testcontainers.ryuk.disabled", "true");
+        }
+    }
+
+    private static String discoverPodmanSocketPath() {
+        Path linuxSocket = Path.of("/var/run/podman/podman.sock");
+        if (Files.exists(linuxSocket)) {
+            return "unix:///var/run/podman/podman.sock";
+        }
+        try {
+            Process process = new ProcessBuilder("podman", "machine", "inspect",
+                    "--format", "{{.ConnectionInfo.PodmanSocket.Path}}")
+                    .redirectErrorStream(true)
+                    .start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream()))) {
+                String socketPath = reader.readLine();
+                if (process.waitFor() == 0 && socketPath != null && !socketPath.isBlank()) {
+                    Path socket = Path.of(socketPath.trim());
+                    if (Files.exists(socket)) {
+                        return "unix://" + socket;
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            // Podman not available
+        }
+        return null;
+    }
+
+    private static final String RESULT_QUEUE = "compilation_results";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName
+            .parse("ghcr.io/pgmq/pg18-pgmq:v1.8.0")
+            .asCompatibleSubstituteFor("postgres"))
+            .withDatabaseName("projectnil_test")
+            .withUsername("test")
+            .withPassword("test");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JdbcTemplate jdbcTemplate;
+    private JdbcPgmqClient client;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.postgresql.Driver");
+        dataSource.setUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pgmq");
+        jdbcTemplate.execute("SELECT pgmq.create('" + RESULT_QUEUE + "')");
+        jdbcTemplate.execute("SELECT pgmq.purge_queue('" + RESULT_QUEUE + "')");
+        jdbcTemplate.execute("DELETE FROM pgmq.a_" + RESULT_QUEUE);
+        client = new JdbcPgmqClient(jdbcTemplate, objectMapper, "compilation_jobs", RESULT_QUEUE);
+    }
+
+    @Test
+    @DisplayName("Archived results are listed and replayed back onto the result queue")
+    void archiveListAndReplay() throws Exception {
+        UUID functionId = UUID.randomUUID();
+        UUID versionId = UUID.randomUUID();
+        sendResult(objectMapper.writeValueAsString(
+                CompilationResult.failure(functionId, versionId, "boom")));
+
+        List<QueuedCompilationResult> read = client.readResults(30, 10);
+        assertEquals(1, read.size());
+        long messageId = read.get(0).messageId();
+        client.archiveResults(List.of(messageId));
+
+        List<ArchivedCompilationResult> archived = client.listArchivedResults(10);
+        assertEquals(1, archived.size());
+        assertEquals(messageId, archived.get(0).messageId());
+        assertEquals(functionId, archived.get(0).functionId());
+        assertEquals(versionId, archived.get(0).versionId());
+        assertEquals(Boolean.FALSE, archived.get(0).success());
+        assertEquals(0L, queueLength());
+
+        Optional<Long> replayed = client.replayArchivedResult(messageId);
+
+        assertTrue(replayed.isPresent());
+        assertTrue(client.listArchivedResults(10).isEmpty());
+        List<QueuedCompilationResult> requeued = client.readResults(30, 10);
+        assertEquals(1, requeued.size());
+        assertEquals(replayed.get(), requeued.get(0).messageId());
+        assertEquals(functionId, requeued.get(0).result().functionId());
+        assertEquals(versionId, requeued.get(0).result().versionId());
+    }
+
+    @Test
+    @DisplayName("Replaying a message that is not in the archive does nothing")
+    void replayUnknownMessage() {
+        assertEquals(Optional.empty(), client.replayArchivedResult(Long.MAX_VALUE));
+        assertEquals(0L, queueLength());
+    }
+
+    @Test
+    @DisplayName("Unparseable results are read without a result and still listed once archived")
+    void unparseableResultIsDeadLettered() throws Exception {
+        sendResult("{\"unexpected\": true}");
+
+        List<QueuedCompilationResult> read = client.readResults(30, 10);
+        assertEquals(1, read.size());
+        assertNull(read.get(0).result());
+        client.archiveResults(List.of(read.get(0).messageId()));
+
+        List<ArchivedCompilationResult> archived = client.listArchivedResults(10);
+        assertEquals(1, archived.size());
+        assertNull(archived.get(0).functionId());
+        assertEquals(0L, queueLength());
+    }
+
+    private void sendResult(String json) throws Exception {
+        PGobject payload = new PGobject();
+        payload.setType("jsonb");
+        payload.setValue(json);
+        jdbcTemplate.queryForObject("SELECT pgmq.send(?, ?)", Long.class, RESULT_QUEUE, payload);
+    }
+
+    private long queueLength() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM pgmq.q_" + RESULT_QUEUE, Long.class);
+    }
+}
@@ -7,8 +7,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -212,6 +214,42 @@ class ChicoryWasmRuntimeTest {
         }
     }
 
+    @Nested
+    @DisplayName("Module cache")
+    class ModuleCacheTests {
+
+        @Test
+        @DisplayName("loads the binary only on the first keyed execution")
+        void keyedExecutionLoadsBinaryOnce() throws Exception {
+            ByteBuffer wasmBinary = ByteBuffer.wrap(loadWasm("add")).asReadOnlyBuffer();
+            AtomicInteger loads = new AtomicInteger();
+
+            for (int i = 0; i < 3; i++) {
+                byte[] output = runtime.execute("add@1", () -> {
+                    loads.incrementAndGet();
+                    return wasmBinary;
+                }, "{\"a\":2,\"b\":3}");
+                assertEquals("{\"sum\":5}", bytesToString(output));
+            }
+
+            assertEquals(1, loads.get());
+        }
+
+        @Test
+        @DisplayName("evicts the least recently used module when full")
+        void evictsLeastRecentlyUsed() throws Exception {
+            ChicoryWasmRuntime smallCache = new ChicoryWasmRuntime(stringCodec, DEFAULT_TIMEOUT, 1);
+            ByteBuffer echo = ByteBuffer.wrap(loadWasm("echo"));
+            AtomicInteger loads = new AtomicInteger();
+
+            smallCache.execute("a", () -> { loads.incrementAndGet(); return echo; }, "{}");
+            smallCache.execute("b", () -> { loads.incrementAndGet(); return echo; }, "{}");
+            smallCache.execute("a", () -> { loads.incrementAndGet(); return echo; }, "{}");
+
+            assertEquals(3, loads.get());
+        }
+    }
+
     @Nested
     @DisplayName("Configuration")
     class ConfigurationTests {
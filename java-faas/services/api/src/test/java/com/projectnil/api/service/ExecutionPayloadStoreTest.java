@@ -0,0 +1,81 @@
+package com.projectnil.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.projectnil.api.repository.ExecutionPayloadRepository;
+import com.projectnil.common.domain.ExecutionPayload;
+import com.projectnil.common.domain.ExecutionPayloadKind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Unit tests for {@link ExecutionPayloadStore}.
+ */
+class ExecutionPayloadStoreTest {
+
+    private ExecutionPayloadRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutionPayloadStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ExecutionPayloadRepository.class);
+        when(repository.save(any(ExecutionPayload.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        meterRegistry = new SimpleMeterRegistry();
+        store = new ExecutionPayloadStore(
+                repository,
+                new ExecutionPayloadProperties(DataSize.ofBytes(1024)),
+                meterRegistry);
+    }
+
+    @Test
+    @DisplayName("keeps payloads below the threshold inline")
+    void smallPayloadIsNotOffloaded() {
+        assertFalse(store.shouldOffload("{\"a\":1}"));
+        assertFalse(store.shouldOffload(null));
+    }
+
+    @Test
+    @DisplayName("offloads payloads at or above the threshold")
+    void largePayloadIsOffloaded() {
+        assertTrue(store.shouldOffload(largeJson(2048)));
+    }
+
+    @Test
+    @DisplayName("compresses offloaded payloads and round-trips them")
+    void offloadCompressesAndLoadRoundTrips() {
+        UUID executionId = UUID.randomUUID();
+        String json = largeJson(8192);
+
+        store.offload(executionId, ExecutionPayloadKind.OUTPUT, json);
+
+        ArgumentCaptor<ExecutionPayload> saved = ArgumentCaptor.forClass(ExecutionPayload.class);
+        verify(repository).save(saved.capture());
+        ExecutionPayload payload = saved.getValue();
+        assertEquals(ExecutionPayloadStore.ENCODING_GZIP, payload.getEncoding());
+        assertTrue(payload.getStoredSizeBytes() < payload.getOriginalSizeBytes());
+
+        when(repository.findByExecutionIdAndKind(executionId, ExecutionPayloadKind.OUTPUT))
+                .thenReturn(Optional.of(payload));
+        assertEquals(json, store.load(executionId, ExecutionPayloadKind.OUTPUT).orElseThrow());
+
+        double bytesSaved = meterRegistry.get("projectnil.execution.payload.bytes.saved").counter().count();
+        assertEquals(payload.getOriginalSizeBytes() - payload.getStoredSizeBytes(), (long) bytesSaved);
+    }
+
+    private String largeJson(int length) {
+        return "{\"data\":\"" + "x".repeat(length) + "\"}";
+    }
+}
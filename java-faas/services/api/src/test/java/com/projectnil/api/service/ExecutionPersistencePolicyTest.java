@@ -0,0 +1,55 @@
+package com.projectnil.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.projectnil.common.domain.ExecutionPersistenceMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ExecutionPersistencePolicy}.
+ */
+class ExecutionPersistencePolicyTest {
+
+    @Test
+    @DisplayName("parses every textual form and round-trips via toString")
+    void parsesAndFormats() {
+        for (String value : new String[] {"all", "failures-only", "sampled(0.25)", "metadata-only", "none"}) {
+            assertEquals(value, ExecutionPersistencePolicy.parse(value).toString());
+        }
+        assertEquals(ExecutionPersistenceMode.SAMPLED, ExecutionPersistencePolicy.parse(" Sampled( .5 ) ").mode());
+    }
+
+    @Test
+    @DisplayName("rejects unknown policies and out of range sample rates")
+    void rejectsInvalidPolicies() {
+        assertThrows(IllegalArgumentException.class, () -> ExecutionPersistencePolicy.parse("sometimes"));
+        assertThrows(IllegalArgumentException.class, () -> ExecutionPersistencePolicy.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> ExecutionPersistencePolicy.parse("sampled(0)"));
+        assertThrows(IllegalArgumentException.class, () -> ExecutionPersistencePolicy.parse("sampled(1.5)"));
+    }
+
+    @Test
+    @DisplayName("decides persistence per mode")
+    void shouldPersist() {
+        assertTrue(ExecutionPersistencePolicy.parse("all").shouldPersist(false));
+        assertTrue(ExecutionPersistencePolicy.parse("metadata-only").shouldPersist(false));
+        assertFalse(ExecutionPersistencePolicy.parse("failures-only").shouldPersist(false));
+        assertTrue(ExecutionPersistencePolicy.parse("failures-only").shouldPersist(true));
+        assertFalse(ExecutionPersistencePolicy.parse("none").shouldPersist(true));
+        assertTrue(ExecutionPersistencePolicy.parse("sampled(0.01)").shouldPersist(true));
+        assertTrue(ExecutionPersistencePolicy.parse("sampled(1)").shouldPersist(false));
+    }
+
+    @Test
+    @DisplayName("only the default policy writes a RUNNING row, only metadata-only drops payloads")
+    void writePattern() {
+        assertTrue(ExecutionPersistencePolicy.ALL.writesRunningRow());
+        assertFalse(ExecutionPersistencePolicy.parse("sampled(0.5)").writesRunningRow());
+        assertTrue(ExecutionPersistencePolicy.parse("failures-only").storesPayloads());
+        assertFalse(ExecutionPersistencePolicy.parse("metadata-only").storesPayloads());
+    }
+}
@@ -0,0 +1,45 @@
+package com.projectnil.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.projectnil.common.domain.FunctionStatsRollup;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the histogram math behind {@link FunctionStatsService}.
+ */
+class FunctionStatsServiceTest {
+
+    @Test
+    @DisplayName("maps durations to histogram slots by inclusive upper bound")
+    void latencySlot() {
+        assertEquals(0, FunctionStatsRollup.latencySlot(0));
+        assertEquals(0, FunctionStatsRollup.latencySlot(1));
+        assertEquals(1, FunctionStatsRollup.latencySlot(2));
+        assertEquals(5, FunctionStatsRollup.latencySlot(100));
+        assertEquals(FunctionStatsRollup.LATENCY_SLOTS - 1, FunctionStatsRollup.latencySlot(60_000));
+    }
+
+    @Test
+    @DisplayName("estimates percentiles as the upper bound of the containing slot")
+    void percentile() {
+        long[] histogram = new long[FunctionStatsRollup.LATENCY_SLOTS];
+        histogram[FunctionStatsRollup.latencySlot(3)] = 90;
+        histogram[FunctionStatsRollup.latencySlot(200)] = 9;
+        histogram[FunctionStatsRollup.latencySlot(30_000)] = 1;
+
+        assertEquals(5, FunctionStatsService.percentile(histogram, 100, 0.50, 30_000));
+        assertEquals(250, FunctionStatsService.percentile(histogram, 100, 0.95, 30_000));
+        assertEquals(30_000, FunctionStatsService.percentile(histogram, 100, 1.0, 30_000));
+    }
+
+    @Test
+    @DisplayName("never reports a percentile above the observed maximum")
+    void percentileCappedAtMax() {
+        long[] histogram = new long[FunctionStatsRollup.LATENCY_SLOTS];
+        histogram[FunctionStatsRollup.latencySlot(7)] = 10;
+
+        assertEquals(7, FunctionStatsService.percentile(histogram, 10, 0.99, 7));
+    }
+}
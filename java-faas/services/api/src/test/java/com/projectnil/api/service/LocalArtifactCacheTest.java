@@ -0,0 +1,123 @@
+package com.projectnil.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.projectnil.common.domain.Artifact;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link LocalArtifactCache}.
+ */
+class LocalArtifactCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private LocalArtifactCache cache(long maxBytes) {
+        return new LocalArtifactCache(dir, maxBytes, new SimpleMeterRegistry());
+    }
+
+    private static byte[] bytes(int size, int seed) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    @Test
+    @DisplayName("serves a cached artifact from disk")
+    void roundTrip() {
+        LocalArtifactCache cache = cache(1024);
+        byte[] data = bytes(100, 1);
+        String hash = Artifact.hashOf(data);
+
+        assertFalse(cache.get(hash).isPresent());
+        cache.put(hash, data);
+
+        assertEquals(ByteBuffer.wrap(data), cache.get(hash).orElseThrow());
+        assertTrue(Files.exists(dir.resolve(hash + ".wasm")));
+        assertEquals(100, cache.sizeBytes());
+    }
+
+    @Test
+    @DisplayName("evicts least recently used artifacts beyond the disk budget")
+    void evictsOverBudget() {
+        LocalArtifactCache cache = cache(250);
+        byte[] first = bytes(100, 1);
+        byte[] second = bytes(100, 2);
+        byte[] third = bytes(100, 3);
+        cache.put(Artifact.hashOf(first), first);
+        cache.put(Artifact.hashOf(second), second);
+        cache.get(Artifact.hashOf(first));
+
+        cache.put(Artifact.hashOf(third), third);
+
+        assertTrue(cache.get(Artifact.hashOf(first)).isPresent());
+        assertFalse(cache.get(Artifact.hashOf(second)).isPresent());
+        assertFalse(Files.exists(dir.resolve(Artifact.hashOf(second) + ".wasm")));
+        assertEquals(200, cache.sizeBytes());
+    }
+
+    @Test
+    @DisplayName("reloads cached artifacts after a restart and drops partial writes")
+    void survivesRestart() throws IOException {
+        byte[] data = bytes(64, 7);
+        String hash = Artifact.hashOf(data);
+        cache(1024).put(hash, data);
+        Files.write(dir.resolve(hash + ".abc.tmp"), new byte[] {1, 2, 3});
+
+        LocalArtifactCache restarted = cache(1024);
+
+        assertEquals(ByteBuffer.wrap(data), restarted.get(hash).orElseThrow());
+        assertFalse(Files.exists(dir.resolve(hash + ".abc.tmp")));
+    }
+
+    @Test
+    @DisplayName("discards files found on startup whose content does not match their hash")
+    void corruptFileIsAMiss() throws IOException {
+        byte[] data = bytes(64, 9);
+        String hash = Artifact.hashOf(data);
+        Files.write(dir.resolve(hash + ".wasm"), bytes(64, 10));
+
+        LocalArtifactCache cache = cache(1024);
+
+        assertFalse(cache.get(hash).isPresent());
+        assertFalse(Files.exists(dir.resolve(hash + ".wasm")));
+        assertEquals(0, cache.sizeBytes());
+    }
+
+    @Test
+    @DisplayName("does not cache a binary that does not match its hash")
+    void mismatchedPutIsIgnored() {
+        LocalArtifactCache cache = cache(1024);
+        String hash = Artifact.hashOf(bytes(64, 1));
+
+        cache.put(hash, bytes(64, 2));
+
+        assertFalse(cache.get(hash).isPresent());
+        assertFalse(Files.exists(dir.resolve(hash + ".wasm")));
+    }
+
+    @Test
+    @DisplayName("a zero budget disables the cache")
+    void disabled() {
+        LocalArtifactCache cache = cache(0);
+        byte[] data = bytes(10, 1);
+        String hash = Artifact.hashOf(data);
+
+        cache.put(hash, data);
+
+        assertFalse(cache.get(hash).isPresent());
+        assertFalse(Files.exists(dir.resolve(hash + ".wasm")));
+    }
+}
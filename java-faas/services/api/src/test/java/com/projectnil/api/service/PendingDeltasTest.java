@@ -0,0 +1,63 @@
+package com.projectnil.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * Unit tests for {@link PendingDeltas}.
+ */
+class PendingDeltasTest {
+
+    private final PendingDeltas<String, AtomicLong> pending = new PendingDeltas<>(
+            AtomicLong::new,
+            (a, b) -> {
+                a.addAndGet(b.get());
+                return a;
+            });
+
+    private Map<String, Long> flushAll() {
+        Map<String, Long> written = new HashMap<>();
+        pending.flush(batch -> batch.forEach(entry -> written.put(entry.getKey(), entry.getValue().get())));
+        return written;
+    }
+
+    @Test
+    @DisplayName("writes one delta per key and drains them")
+    void flushDrains() {
+        pending.update("a", AtomicLong::incrementAndGet);
+        pending.update("a", AtomicLong::incrementAndGet);
+        pending.update("b", AtomicLong::incrementAndGet);
+
+        assertEquals(Map.of("a", 2L, "b", 1L), flushAll());
+        assertEquals(Map.of(), flushAll());
+    }
+
+    @Test
+    @DisplayName("merges deltas back when the write fails")
+    void failedWriteIsRetried() {
+        pending.update("a", AtomicLong::incrementAndGet);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> pending.flush(batch -> {
+            throw new DataAccessResourceFailureException("database down");
+        }));
+        pending.update("a", AtomicLong::incrementAndGet);
+
+        assertEquals(Map.of("a", 2L), flushAll());
+    }
+
+    @Test
+    @DisplayName("does not call the writer when nothing is pending")
+    void emptyFlush() {
+        assertEquals(0, pending.flush(batch -> {
+            throw new AssertionError("unexpected write of " + List.copyOf(batch));
+        }));
+    }
+}
@@ -3,16 +3,28 @@ package com.projectnil.api.web;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projectnil.api.repository.ExecutionRepository;
 import com.projectnil.api.repository.FunctionRepository;
+import com.projectnil.api.repository.FunctionVersionRepository;
+import com.projectnil.api.repository.ArtifactRepository;
+import com.projectnil.api.service.ArtifactGarbageCollector;
+import com.projectnil.api.service.ArtifactStore;
+import com.projectnil.api.service.CompilationResultHandler;
+import com.projectnil.api.service.ExecutionCounterRecorder;
+import com.projectnil.api.service.ExecutionStatsRecorder;
+import com.projectnil.common.domain.CompileCacheEntry;
+import com.projectnil.common.domain.ExecutionPersistenceMode;
 import com.projectnil.common.domain.ExecutionStatus;
 import com.projectnil.common.domain.Function;
 import com.projectnil.common.domain.FunctionStatus;
+import com.projectnil.common.domain.FunctionVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import com.projectnil.api.messaging.PgmqClient;
+import com.projectnil.api.messaging.PgmqClient.ArchivedCompilationResult;
 import com.projectnil.api.messaging.PgmqClient.QueuedCompilationResult;
 import com.projectnil.common.domain.queue.CompilationJob;
+import com.projectnil.common.domain.queue.CompilationResult;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -21,10 +33,12 @@ import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -33,21 +47,31 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -140,42 +164,98 @@ class FunctionControllerTest {
     @Autowired
     private FunctionRepository functionRepository;
 
+    @Autowired
+    private FunctionVersionRepository functionVersionRepository;
+
     @Autowired
     private ExecutionRepository executionRepository;
 
+    @Autowired
+    private ArtifactRepository artifactRepository;
+
+    @Autowired
+    private ArtifactStore artifactStore;
+
+    @Autowired
+    private ArtifactGarbageCollector artifactGarbageCollector;
+
+    @Autowired
+    private CompilationResultHandler compilationResultHandler;
+
+    @Autowired
+    private ExecutionCounterRecorder counterRecorder;
+
+    @Autowired
+    private ExecutionStatsRecorder statsRecorder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     /**
      * Test configuration that provides a no-op PGMQ client.
      * This avoids needing the PGMQ extension in the test database.
      */
     @TestConfiguration
     static class TestConfig {
+        /**
+         * Jobs passed to the client since the last test started.
+         */
+        static final List<CompilationJob> PUBLISHED_JOBS = new java.util.concurrent.CopyOnWriteArrayList<>();
+
         @Bean
         @Primary
         PgmqClient testPgmqClient() {
             return new PgmqClient() {
                 @Override
                 public long publishJob(CompilationJob job) {
-                    // No-op for tests, return fake message ID
+                    // Recorded only, return fake message ID
+                    PUBLISHED_JOBS.add(job);
                     return 1L;
                 }
 
                 @Override
-                public Optional<QueuedCompilationResult> readResult(int visibilityTimeoutSeconds) {
-                    return Optional.empty();
+                public List<Long> publishJobs(List<CompilationJob> jobs) {
+                    PUBLISHED_JOBS.addAll(jobs);
+                    return jobs.stream().map(job -> 1L).toList();
+                }
+
+                @Override
+                public List<QueuedCompilationResult> readResults(int visibilityTimeoutSeconds, int limit) {
+                    return List.of();
+                }
+
+                @Override
+                public void deleteResults(List<Long> messageIds) {
+                    // No-op for tests
                 }
 
                 @Override
-                public void deleteResult(long messageId) {
+                public void archiveResults(List<Long> messageIds) {
                     // No-op for tests
                 }
+
+                @Override
+                public List<ArchivedCompilationResult> listArchivedResults(int limit) {
+                    return List.of();
+                }
+
+                @Override
+                public Optional<Long> replayArchivedResult(long messageId) {
+                    return Optional.empty();
+                }
             };
         }
     }
 
     @BeforeEach
     void setUp() {
+        TestConfig.PUBLISHED_JOBS.clear();
         executionRepository.deleteAll();
         functionRepository.deleteAll();
+        functionVersionRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM compile_cache");
+        jdbcTemplate.update("DELETE FROM compiler_toolchains");
+        artifactRepository.deleteAll();
     }
 
     private byte[] loadWasm(String name) throws IOException {
@@ -194,9 +274,11 @@ class FunctionControllerTest {
                 .description("Test function")
                 .language("assemblyscript")
                 .source("// test source")
-                .wasmBinary(wasmBinary)
+                .artifactHash(artifactStore.store(wasmBinary))
                 .status(FunctionStatus.READY)
                 .build();
+        function = functionRepository.save(function);
+        function.setActiveVersionId(saveVersion(function).getId());
         return functionRepository.save(function);
     }
 
@@ -208,7 +290,20 @@ class FunctionControllerTest {
                 .source("// test source")
                 .status(FunctionStatus.PENDING)
                 .build();
-        return functionRepository.save(function);
+        function = functionRepository.save(function);
+        saveVersion(function);
+        return function;
+    }
+
+    private FunctionVersion saveVersion(Function function) {
+        return functionVersionRepository.save(FunctionVersion.builder()
+                .functionId(function.getId())
+                .revision(function.getRevision())
+                .language(function.getLanguage())
+                .source(function.getSource())
+                .status(function.getStatus())
+                .artifactHash(function.getArtifactHash())
+                .build());
     }
 
     @Nested
@@ -369,6 +464,72 @@ class FunctionControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("POST /functions/{id}/execute/raw - Raw body execution")
+    class ExecuteRawTests {
+
+        @Test
+        @DisplayName("executes with the raw body as input")
+        void executeRawBody() throws Exception {
+            Function function = createReadyFunction("raw-echo", loadWasm("echo"));
+
+            mockMvc.perform(post("/functions/{id}/execute/raw", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"message\": \"hello\", \"nested\": {\"n\": [1, 2]}}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status", is("COMPLETED")))
+                    .andExpect(jsonPath("$.output.message", is("hello")))
+                    .andExpect(jsonPath("$.output.nested.n", hasSize(2)));
+        }
+
+        @Test
+        @DisplayName("treats an empty body as an empty object")
+        void executeRawEmptyBody() throws Exception {
+            Function function = createReadyFunction("raw-empty", loadWasm("echo"));
+
+            mockMvc.perform(post("/functions/{id}/execute/raw", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.output").isMap())
+                    .andExpect(jsonPath("$.output").isEmpty());
+        }
+
+        @Test
+        @DisplayName("rejects non-object, trailing and malformed bodies")
+        void executeRawRejectsInvalidBodies() throws Exception {
+            Function function = createReadyFunction("raw-invalid", loadWasm("echo"));
+
+            for (String body : new String[] {"[1, 2]", "42", "{\"a\": 1} {\"b\": 2}", "{\"a\": "}) {
+                mockMvc.perform(post("/functions/{id}/execute/raw", function.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andExpect(status().isBadRequest());
+            }
+        }
+
+        @Test
+        @DisplayName("rejects bodies that are not UTF-8")
+        void executeRawRejectsNonUtf8Bodies() throws Exception {
+            Function function = createReadyFunction("raw-utf16", loadWasm("echo"));
+
+            for (Charset charset : new Charset[] {StandardCharsets.UTF_16, StandardCharsets.UTF_16LE}) {
+                mockMvc.perform(post("/functions/{id}/execute/raw", function.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"a\": \"\u00e9\"}".getBytes(charset)))
+                        .andExpect(status().isBadRequest());
+            }
+        }
+
+        @Test
+        @DisplayName("returns 404 when function does not exist")
+        void executeRawNonExistentFunctionReturns404() throws Exception {
+            mockMvc.perform(post("/functions/{id}/execute/raw", UUID.randomUUID())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{}"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
     @Nested
     @DisplayName("Execution persistence")
     class PersistenceTests {
@@ -407,6 +568,778 @@ class FunctionControllerTest {
             org.junit.jupiter.api.Assertions.assertEquals(ExecutionStatus.FAILED, executions.get(0).getStatus());
             org.junit.jupiter.api.Assertions.assertNotNull(executions.get(0).getErrorMessage());
         }
+
+        @Test
+        @DisplayName("offloads large input and output and loads them back on detail")
+        void largePayloadsAreOffloaded() throws Exception {
+            Function function = createReadyFunction("offload-test", loadWasm("echo"));
+            String large = "x".repeat(100_000);
+
+            var result = mockMvc.perform(post("/functions/{id}/execute", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of("data", large)))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.output.data", is(large)))
+                    .andReturn();
+
+            var execution = executionRepository.findByFunctionIdOrderByCreatedAtDesc(function.getId()).get(0);
+            org.junit.jupiter.api.Assertions.assertTrue(execution.isInputOffloaded());
+            org.junit.jupiter.api.Assertions.assertTrue(execution.isOutputOffloaded());
+            org.junit.jupiter.api.Assertions.assertNull(execution.getInput());
+            org.junit.jupiter.api.Assertions.assertNull(execution.getOutput());
+
+            String executionId = objectMapper.readTree(
+                    result.getResponse().getContentAsString()).get("id").asText();
+            mockMvc.perform(get("/executions/{id}", executionId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.input.data", is(large)))
+                    .andExpect(jsonPath("$.output.data", is(large)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Execution persistence policies")
+    class PersistencePolicyTests {
+
+        private Function createReadyFunction(String name, byte[] wasmBinary, ExecutionPersistenceMode mode) {
+            Function function = FunctionControllerTest.this.createReadyFunction(name, wasmBinary);
+            function.setPersistenceMode(mode);
+            return functionRepository.save(function);
+        }
+
+        private void execute(Function function) throws Exception {
+            mockMvc.perform(post("/functions/{id}/execute", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of("k", "v")))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", notNullValue()));
+        }
+
+        private Map<String, Object> counters(Function function) {
+            counterRecorder.flush();
+            return jdbcTemplate.queryForMap(
+                    "SELECT total_count, completed_count, failed_count, persisted_count "
+                            + "FROM function_execution_counters WHERE function_id = ?",
+                    function.getId());
+        }
+
+        @Test
+        @DisplayName("none writes no execution rows but still counts executions")
+        void noneSkipsRowsButCounts() throws Exception {
+            Function function = createReadyFunction("policy-none", loadWasm("echo"), ExecutionPersistenceMode.NONE);
+
+            execute(function);
+            execute(function);
+
+            org.junit.jupiter.api.Assertions.assertTrue(
+                    executionRepository.findByFunctionIdOrderByCreatedAtDesc(function.getId()).isEmpty());
+            Map<String, Object> counters = counters(function);
+            org.junit.jupiter.api.Assertions.assertEquals(2L, ((Number) counters.get("total_count")).longValue());
+            org.junit.jupiter.api.Assertions.assertEquals(2L, ((Number) counters.get("completed_count")).longValue());
+            org.junit.jupiter.api.Assertions.assertEquals(0L, ((Number) counters.get("persisted_count")).longValue());
+        }
+
+        @Test
+        @DisplayName("failures-only persists failed executions only")
+        void failuresOnlyPersistsFailures() throws Exception {
+            Function ok = createReadyFunction("policy-failures-ok", loadWasm("echo"),
+                    ExecutionPersistenceMode.FAILURES_ONLY);
+            Function trap = createReadyFunction("policy-failures-trap", loadWasm("trap"),
+                    ExecutionPersistenceMode.FAILURES_ONLY);
+
+            execute(ok);
+            execute(trap);
+
+            org.junit.jupiter.api.Assertions.assertTrue(
+                    executionRepository.findByFunctionIdOrderByCreatedAtDesc(ok.getId()).isEmpty());
+            var failed = executionRepository.findByFunctionIdOrderByCreatedAtDesc(trap.getId());
+            org.junit.jupiter.api.Assertions.assertEquals(1, failed.size());
+            org.junit.jupiter.api.Assertions.assertEquals(ExecutionStatus.FAILED, failed.get(0).getStatus());
+            org.junit.jupiter.api.Assertions.assertNotNull(failed.get(0).getInput());
+            org.junit.jupiter.api.Assertions.assertEquals(1L,
+                    ((Number) counters(trap).get("failed_count")).longValue());
+        }
+
+        @Test
+        @DisplayName("metadata-only persists executions without input and output")
+        void metadataOnlyDropsPayloads() throws Exception {
+            Function function = createReadyFunction("policy-metadata", loadWasm("echo"),
+                    ExecutionPersistenceMode.METADATA_ONLY);
+
+            execute(function);
+
+            var executions = executionRepository.findByFunctionIdOrderByCreatedAtDesc(function.getId());
+            org.junit.jupiter.api.Assertions.assertEquals(1, executions.size());
+            org.junit.jupiter.api.Assertions.assertEquals(ExecutionStatus.COMPLETED, executions.get(0).getStatus());
+            org.junit.jupiter.api.Assertions.assertNull(executions.get(0).getInput());
+            org.junit.jupiter.api.Assertions.assertNull(executions.get(0).getOutput());
+        }
+
+        @Test
+        @DisplayName("updates policy via PUT and returns it in the expanded view")
+        void updatePersistencePolicy() throws Exception {
+            Function function = FunctionControllerTest.this.createReadyFunction("policy-update", loadWasm("echo"));
+            FunctionRequest updateRequest = new FunctionRequest(
+                    function.getName(), function.getDescription(), function.getLanguage(),
+                    function.getSource(), "sampled(0.25)");
+
+            mockMvc.perform(put("/functions/{id}", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updateRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.persistencePolicy", is("sampled(0.25)")));
+        }
+
+        @Test
+        @DisplayName("returns 400 for unknown policy")
+        void unknownPolicyReturns400() throws Exception {
+            Function function = FunctionControllerTest.this.createReadyFunction("policy-bad", loadWasm("echo"));
+            FunctionRequest updateRequest = new FunctionRequest(
+                    function.getName(), function.getDescription(), function.getLanguage(),
+                    function.getSource(), "sometimes");
+
+            mockMvc.perform(put("/functions/{id}", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updateRequest)))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /functions/{id}/stats - Execution statistics")
+    class StatsTests {
+
+        @Test
+        @DisplayName("aggregates executions from rollups")
+        void statsAggregateExecutions() throws Exception {
+            Function ok = createReadyFunction("stats-ok", loadWasm("echo"));
+            for (int i = 0; i < 3; i++) {
+                mockMvc.perform(post("/functions/{id}/execute", ok.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of()))))
+                        .andExpect(status().isOk());
+            }
+            counterRecorder.flush();
+            statsRecorder.flush();
+
+            mockMvc.perform(get("/functions/{id}/stats", ok.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.functionId", is(ok.getId().toString())))
+                    .andExpect(jsonPath("$.totalExecutions", is(3)))
+                    .andExpect(jsonPath("$.executions", is(3)))
+                    .andExpect(jsonPath("$.failures", is(0)))
+                    .andExpect(jsonPath("$.p50DurationMs", notNullValue()))
+                    .andExpect(jsonPath("$.buckets", hasSize(1)))
+                    .andExpect(jsonPath("$.buckets[0].executions", is(3)));
+        }
+
+        @Test
+        @DisplayName("counts executions exactly before and after the counters are rolled up")
+        void totalsIncludePendingDeltas() throws Exception {
+            Function function = createReadyFunction("stats-exact", loadWasm("echo"));
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(post("/functions/{id}/execute", function.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of()))))
+                        .andExpect(status().isOk());
+            }
+
+            mockMvc.perform(get("/functions/{id}/stats", function.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalExecutions", is(2)));
+
+            counterRecorder.flush();
+
+            org.junit.jupiter.api.Assertions.assertEquals(0L, jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM function_execution_counter_deltas WHERE function_id = ?",
+                    Long.class, function.getId()));
+            mockMvc.perform(get("/functions/{id}/stats", function.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalExecutions", is(2)))
+                    .andExpect(jsonPath("$.completedExecutions", is(2)));
+        }
+
+        @Test
+        @DisplayName("returns empty stats for a function without executions")
+        void statsWithoutExecutions() throws Exception {
+            Function function = createReadyFunction("stats-empty", loadWasm("echo"));
+
+            mockMvc.perform(get("/functions/{id}/stats", function.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalExecutions", is(0)))
+                    .andExpect(jsonPath("$.avgDurationMs", nullValue()))
+                    .andExpect(jsonPath("$.buckets", hasSize(0)));
+        }
+
+        @Test
+        @DisplayName("returns 404 for non-existent function")
+        void statsForNonExistentFunctionReturns404() throws Exception {
+            mockMvc.perform(get("/functions/{id}/stats", UUID.randomUUID()))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("Artifact store")
+    class ArtifactStoreTests {
+
+        @Test
+        @DisplayName("functions compiled to identical bytes share one artifact")
+        void identicalBinariesAreDeduplicated() throws Exception {
+            Function first = createPendingFunction("template-a");
+            Function second = createPendingFunction("template-b");
+            byte[] wasm = loadWasm("echo");
+
+            compilationResultHandler.applyResult(CompilationResult.success(first.getId(), null, wasm, null));
+            compilationResultHandler.applyResult(CompilationResult.success(second.getId(), null, wasm.clone(), null));
+
+            String firstHash = functionRepository.findById(first.getId()).orElseThrow().getArtifactHash();
+            String secondHash = functionRepository.findById(second.getId()).orElseThrow().getArtifactHash();
+            org.junit.jupiter.api.Assertions.assertEquals(firstHash, secondHash);
+            org.junit.jupiter.api.Assertions.assertEquals(1, artifactRepository.count());
+
+            mockMvc.perform(post("/functions/{id}/execute", second.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of("k", "v")))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.output.k", is("v")));
+        }
+
+        @Test
+        @DisplayName("garbage-collects only unreferenced artifacts past the grace period")
+        void unreferencedArtifactsAreCollected() throws Exception {
+            Function function = createReadyFunction("gc-referenced", loadWasm("echo"));
+            String orphan = artifactStore.store(loadWasm("add"));
+            jdbcTemplate.update("UPDATE artifacts SET created_at = created_at - interval '2 days'");
+
+            artifactGarbageCollector.collect();
+
+            org.junit.jupiter.api.Assertions.assertFalse(artifactRepository.existsById(orphan));
+            org.junit.jupiter.api.Assertions.assertTrue(artifactRepository.existsById(
+                    functionRepository.findById(function.getId()).orElseThrow().getArtifactHash()));
+        }
+
+        @Test
+        @DisplayName("results referencing a compiler-stored artifact are applied without a binary")
+        void artifactReferenceIsApplied() throws Exception {
+            Function function = createPendingFunction("artifact-ref");
+            String hash = artifactStore.store(loadWasm("echo"));
+
+            compilationResultHandler.applyResult(
+                    CompilationResult.artifact(function.getId(), null, hash, null));
+
+            Function updated = functionRepository.findById(function.getId()).orElseThrow();
+            org.junit.jupiter.api.Assertions.assertEquals(FunctionStatus.READY, updated.getStatus());
+            org.junit.jupiter.api.Assertions.assertEquals(hash, updated.getArtifactHash());
+        }
+
+        @Test
+        @DisplayName("results referencing a missing artifact queue the version for recompilation")
+        void missingArtifactRecompiles() {
+            Function function = createPendingFunction("artifact-missing");
+            TestConfig.PUBLISHED_JOBS.clear();
+
+            boolean applied = compilationResultHandler.applyResult(
+                    CompilationResult.artifact(function.getId(), null, "0".repeat(64), null));
+
+            org.junit.jupiter.api.Assertions.assertFalse(applied);
+            Function updated = functionRepository.findById(function.getId()).orElseThrow();
+            org.junit.jupiter.api.Assertions.assertEquals(FunctionStatus.PENDING, updated.getStatus());
+            org.junit.jupiter.api.Assertions.assertEquals(1, TestConfig.PUBLISHED_JOBS.size());
+            CompilationJob job = TestConfig.PUBLISHED_JOBS.getFirst();
+            org.junit.jupiter.api.Assertions.assertEquals(function.getId(), job.functionId());
+            org.junit.jupiter.api.Assertions.assertEquals(function.getRevision(), job.revision());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /functions - List Functions")
+    class ListFunctionsTests {
+
+        private com.fasterxml.jackson.databind.JsonNode list(String query) throws Exception {
+            var started = mockMvc.perform(get("/functions" + query))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            return objectMapper.readTree(body);
+        }
+
+        @Test
+        @DisplayName("pages through functions in name order with a cursor")
+        void keysetPagination() throws Exception {
+            for (String name : new String[] {"delta", "alpha", "echo", "charlie", "bravo"}) {
+                createPendingFunction(name);
+            }
+
+            var first = list("?limit=2");
+            org.junit.jupiter.api.Assertions.assertEquals(2, first.get("items").size());
+            org.junit.jupiter.api.Assertions.assertEquals("alpha", first.get("items").get(0).get("name").asText());
+            org.junit.jupiter.api.Assertions.assertEquals("bravo", first.get("items").get(1).get("name").asText());
+
+            var second = list("?limit=2&cursor=" + first.get("nextCursor").asText());
+            org.junit.jupiter.api.Assertions.assertEquals("charlie", second.get("items").get(0).get("name").asText());
+            org.junit.jupiter.api.Assertions.assertEquals("delta", second.get("items").get(1).get("name").asText());
+
+            var last = list("?limit=2&cursor=" + second.get("nextCursor").asText());
+            org.junit.jupiter.api.Assertions.assertEquals(1, last.get("items").size());
+            org.junit.jupiter.api.Assertions.assertEquals("echo", last.get("items").get(0).get("name").asText());
+            org.junit.jupiter.api.Assertions.assertTrue(last.get("nextCursor").isNull());
+        }
+
+        @Test
+        @DisplayName("filters by status and name prefix")
+        void filters() throws Exception {
+            createReadyFunction("api-ready", loadWasm("echo"));
+            createPendingFunction("api-pending");
+            createReadyFunction("web_ready", loadWasm("echo"));
+            createReadyFunction("webXready", loadWasm("echo"));
+
+            var ready = list("?status=ready&namePrefix=api");
+            org.junit.jupiter.api.Assertions.assertEquals(1, ready.get("items").size());
+            org.junit.jupiter.api.Assertions.assertEquals("api-ready", ready.get("items").get(0).get("name").asText());
+            org.junit.jupiter.api.Assertions.assertEquals("READY", ready.get("items").get(0).get("status").asText());
+
+            // LIKE wildcards in the prefix are matched literally
+            var underscore = list("?namePrefix=web_");
+            org.junit.jupiter.api.Assertions.assertEquals(1, underscore.get("items").size());
+            org.junit.jupiter.api.Assertions.assertEquals("web_ready", underscore.get("items").get(0).get("name").asText());
+        }
+
+        @Test
+        @DisplayName("serializes items exactly like GET /functions/{id}")
+        void itemsMatchGet() throws Exception {
+            Function function = createReadyFunction("same-shape", loadWasm("echo"));
+
+            String single = mockMvc.perform(get("/functions/{id}", function.getId()))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            org.junit.jupiter.api.Assertions.assertEquals(
+                    objectMapper.readTree(single), list("").get("items").get(0));
+        }
+
+        @Test
+        @DisplayName("rejects invalid parameters with 400 before streaming")
+        void invalidParameters() throws Exception {
+            mockMvc.perform(get("/functions").param("cursor", "not-a-cursor"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/functions").param("status", "SLEEPING"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/functions").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("Function metadata cache")
+    class MetadataCacheTests {
+
+        private void execute(UUID id, ResultMatcher expected) throws Exception {
+            mockMvc.perform(post("/functions/{id}/execute", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of("k", "v")))))
+                    .andExpect(expected);
+        }
+
+        @Test
+        @DisplayName("an update through the API is visible to the next execution")
+        void localWriteInvalidates() throws Exception {
+            Function function = createReadyFunction("cached-meta", loadWasm("echo"));
+            execute(function.getId(), jsonPath("$.output.k", is("v")));
+
+            // The new source is in the compile cache, so the update activates it straight away
+            String fingerprint = "Version 0.28.9 flags=--optimize,--exportRuntime";
+            jdbcTemplate.update("INSERT INTO compiler_toolchains (language, fingerprint, registered_at) VALUES (?, ?, now())",
+                    "assemblyscript", fingerprint);
+            jdbcTemplate.update("INSERT INTO compile_cache (cache_key, language, artifact_hash, created_at) VALUES (?, ?, ?, now())",
+                    CompileCacheEntry.keyOf("assemblyscript", fingerprint, "// greet"), "assemblyscript",
+                    artifactStore.store(loadWasm("greet")));
+            mockMvc.perform(put("/functions/{id}", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new FunctionRequest("cached-meta", null, "assemblyscript", "// greet"))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status", is("READY")));
+
+            execute(function.getId(), jsonPath("$.output.greeting").exists());
+        }
+
+        @Test
+        @DisplayName("a delete through the API is visible to the next execution")
+        void localDeleteInvalidates() throws Exception {
+            Function function = createReadyFunction("cached-meta", loadWasm("echo"));
+            execute(function.getId(), status().isOk());
+
+            mockMvc.perform(delete("/functions/{id}", function.getId()))
+                    .andExpect(status().isNoContent());
+
+            execute(function.getId(), status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("a function_changes notification evicts the cached entry")
+        void notificationInvalidates() throws Exception {
+            Function function = createReadyFunction("notified-meta", loadWasm("echo"));
+            execute(function.getId(), status().isOk());
+
+            // Simulates a write made by another node: no local invalidation, only the NOTIFY
+            jdbcTemplate.update("UPDATE functions SET status = 'FAILED', artifact_hash = NULL WHERE id = ?",
+                    function.getId());
+            jdbcTemplate.execute("NOTIFY function_changes, '" + function.getId() + "'");
+
+            await().atMost(Duration.ofSeconds(5))
+                    .untilAsserted(() -> execute(function.getId(), status().isBadRequest()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Compile cache")
+    class CompileCacheTests {
+
+        private static final String SOURCE = "export function handle(input: string): string { return input; }";
+        private static final String FINGERPRINT = "Version 0.28.9 flags=--optimize,--exportRuntime";
+
+        private void registerToolchain() {
+            jdbcTemplate.update("INSERT INTO compiler_toolchains (language, fingerprint, registered_at) VALUES (?, ?, now())",
+                    "assemblyscript", FINGERPRINT);
+        }
+
+        private UUID createFunction(String name) throws Exception {
+            String response = mockMvc.perform(post("/functions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new FunctionRequest(name, null, "assemblyscript", SOURCE))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            return UUID.fromString(objectMapper.readTree(response).get("id").asText());
+        }
+
+        @Test
+        @DisplayName("same source and toolchain resolves READY without a compile job")
+        void cacheHitSkipsCompilation() throws Exception {
+            registerToolchain();
+            UUID first = createFunction("cached-first");
+            String cacheKey = CompileCacheEntry.keyOf("assemblyscript", FINGERPRINT, SOURCE);
+            compilationResultHandler.applyResult(CompilationResult.success(first, null, loadWasm("echo"), cacheKey));
+
+            mockMvc.perform(post("/functions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new FunctionRequest("cached-second", null, "assemblyscript", SOURCE))))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.status", is("READY")));
+
+            Function second = functionRepository.findAll().stream()
+                    .filter(f -> f.getName().equals("cached-second"))
+                    .findFirst().orElseThrow();
+            org.junit.jupiter.api.Assertions.assertEquals(
+                    functionRepository.findById(first).orElseThrow().getArtifactHash(), second.getArtifactHash());
+        }
+
+        @Test
+        @DisplayName("misses when no compiler toolchain is registered")
+        void missWithoutToolchain() throws Exception {
+            UUID id = createFunction("uncached");
+
+            org.junit.jupiter.api.Assertions.assertEquals(
+                    FunctionStatus.PENDING, functionRepository.findById(id).orElseThrow().getStatus());
+        }
+
+        @Test
+        @DisplayName("reverting source on update reuses the cached artifact")
+        void updateToCachedSourceIsReady() throws Exception {
+            registerToolchain();
+            UUID id = createFunction("reverted");
+            compilationResultHandler.applyResult(CompilationResult.success(id, null, loadWasm("echo"),
+                    CompileCacheEntry.keyOf("assemblyscript", FINGERPRINT, SOURCE)));
+
+            mockMvc.perform(put("/functions/{id}", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new FunctionRequest("reverted", null, "assemblyscript", "// edited"))))
+                    .andExpect(jsonPath("$.status", is("PENDING")));
+
+            mockMvc.perform(put("/functions/{id}", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new FunctionRequest("reverted", null, "assemblyscript", SOURCE))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status", is("READY")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Function versions")
+    class FunctionVersionTests {
+
+        private void updateSource(UUID id, String source) throws Exception {
+            mockMvc.perform(put("/functions/{id}", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new FunctionRequest("versioned", null, "assemblyscript", source))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status", is("PENDING")));
+        }
+
+        private UUID versionId(UUID functionId, int revision) {
+            return functionVersionRepository.findAll().stream()
+                    .filter(v -> v.getFunctionId().equals(functionId) && v.getRevision() == revision)
+                    .findFirst().orElseThrow().getId();
+        }
+
+        @Test
+        @DisplayName("the active version keeps serving while a new revision compiles")
+        void activeVersionServesDuringRecompile() throws Exception {
+            Function function = createReadyFunction("versioned", loadWasm("echo"));
+            updateSource(function.getId(), "// revision 2");
+
+            mockMvc.perform(post("/functions/{id}/execute", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of("k", "v")))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.output.k", is("v")));
+        }
+
+        @Test
+        @DisplayName("a newer compiled revision activates and a stale result is discarded")
+        void newerRevisionWins() throws Exception {
+            Function function = createReadyFunction("versioned", loadWasm("echo"));
+            updateSource(function.getId(), "// revision 2");
+            UUID second = versionId(function.getId(), 2);
+            updateSource(function.getId(), "// revision 3");
+            UUID third = versionId(function.getId(), 3);
+
+            org.junit.jupiter.api.Assertions.assertTrue(compilationResultHandler.applyResult(
+                    CompilationResult.success(function.getId(), third, loadWasm("add"), null)));
+            org.junit.jupiter.api.Assertions.assertFalse(compilationResultHandler.applyResult(
+                    CompilationResult.success(function.getId(), second, loadWasm("greet"), null)));
+
+            Function updated = functionRepository.findById(function.getId()).orElseThrow();
+            org.junit.jupiter.api.Assertions.assertEquals(FunctionStatus.READY, updated.getStatus());
+            org.junit.jupiter.api.Assertions.assertEquals(third, updated.getActiveVersionId());
+            org.junit.jupiter.api.Assertions.assertEquals(artifactStore.store(loadWasm("add")), updated.getArtifactHash());
+            org.junit.jupiter.api.Assertions.assertEquals(1, functionVersionRepository.count());
+        }
+
+        @Test
+        @DisplayName("a result for a superseded revision is discarded even if it arrives first")
+        void staleRevisionDiscarded() throws Exception {
+            Function function = createReadyFunction("versioned", loadWasm("echo"));
+            updateSource(function.getId(), "// revision 2");
+            UUID second = versionId(function.getId(), 2);
+            updateSource(function.getId(), "// revision 3");
+
+            org.junit.jupiter.api.Assertions.assertFalse(compilationResultHandler.applyResult(
+                    CompilationResult.success(function.getId(), second, loadWasm("add"), null)));
+
+            Function updated = functionRepository.findById(function.getId()).orElseThrow();
+            org.junit.jupiter.api.Assertions.assertEquals(FunctionStatus.PENDING, updated.getStatus());
+            org.junit.jupiter.api.Assertions.assertEquals(function.getActiveVersionId(), updated.getActiveVersionId());
+            org.junit.jupiter.api.Assertions.assertEquals(function.getArtifactHash(), updated.getArtifactHash());
+        }
+
+        @Test
+        @DisplayName("a batch activates revisions in order and prunes the versions they supersede")
+        void batchActivatesAndPrunes() throws Exception {
+            Function function = createReadyFunction("versioned", loadWasm("echo"));
+            updateSource(function.getId(), "// revision 2");
+            UUID second = versionId(function.getId(), 2);
+            updateSource(function.getId(), "// revision 3");
+            UUID third = versionId(function.getId(), 3);
+
+            List<Boolean> outcomes = compilationResultHandler.applyResults(List.of(
+                    CompilationResult.success(function.getId(), third, loadWasm("add"), null),
+                    CompilationResult.success(function.getId(), second, loadWasm("greet"), null)));
+
+            org.junit.jupiter.api.Assertions.assertEquals(List.of(true, false), outcomes);
+            Function updated = functionRepository.findById(function.getId()).orElseThrow();
+            org.junit.jupiter.api.Assertions.assertEquals(third, updated.getActiveVersionId());
+            org.junit.jupiter.api.Assertions.assertEquals(List.of(third),
+                    functionVersionRepository.findAll().stream().map(FunctionVersion::getId).toList());
+        }
+
+        @Test
+        @DisplayName("applies a batch of results with an outcome per result")
+        void batchApply() throws Exception {
+            Function first = createPendingFunction("batch-a");
+            Function second = createPendingFunction("batch-b");
+            CompilationResult firstResult = CompilationResult.success(first.getId(), null, loadWasm("echo"), null);
+
+            List<Boolean> outcomes = compilationResultHandler.applyResults(List.of(
+                    firstResult,
+                    CompilationResult.failure(second.getId(), null, "syntax error"),
+                    CompilationResult.success(UUID.randomUUID(), null, loadWasm("add"), null),
+                    firstResult));
+
+            org.junit.jupiter.api.Assertions.assertEquals(List.of(true, true, false, false), outcomes);
+            org.junit.jupiter.api.Assertions.assertEquals(FunctionStatus.READY,
+                    functionRepository.findById(first.getId()).orElseThrow().getStatus());
+            org.junit.jupiter.api.Assertions.assertEquals(FunctionStatus.FAILED,
+                    functionRepository.findById(second.getId()).orElseThrow().getStatus());
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /functions/bulk - Bulk Registration")
+    class BulkCreateTests {
+
+        private static final String SOURCE = "export function handle(input: string): string { return input; }";
+
+        @Test
+        @DisplayName("creates valid items and reports invalid ones by index")
+        void mixedBatch() throws Exception {
+            BulkFunctionRequest request = new BulkFunctionRequest(List.of(
+                    new FunctionRequest("bulk-a", null, "assemblyscript", SOURCE),
+                    new FunctionRequest("bulk-b", null, "rust", SOURCE),
+                    new FunctionRequest("bulk-c", null, "assemblyscript", SOURCE, "failures-only"),
+                    new FunctionRequest("", null, "assemblyscript", SOURCE),
+                    new FunctionRequest("bulk-e", null, "assemblyscript", SOURCE, "sometimes")));
+
+            mockMvc.perform(post("/functions/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created", is(2)))
+                    .andExpect(jsonPath("$.failed", is(3)))
+                    .andExpect(jsonPath("$.results", hasSize(5)))
+                    .andExpect(jsonPath("$.results[0].id", notNullValue()))
+                    .andExpect(jsonPath("$.results[0].status", is("PENDING")))
+                    .andExpect(jsonPath("$.results[1].id", nullValue()))
+                    .andExpect(jsonPath("$.results[1].error", containsString("rust")))
+                    .andExpect(jsonPath("$.results[2].index", is(2)))
+                    .andExpect(jsonPath("$.results[2].error", nullValue()))
+                    .andExpect(jsonPath("$.results[3].error", is("name is required")))
+                    .andExpect(jsonPath("$.results[4].error", notNullValue()));
+
+            org.junit.jupiter.api.Assertions.assertEquals(2, functionRepository.count());
+            org.junit.jupiter.api.Assertions.assertEquals(2, functionVersionRepository.count());
+            Function failuresOnly = functionRepository.findAll().stream()
+                    .filter(f -> f.getName().equals("bulk-c"))
+                    .findFirst().orElseThrow();
+            org.junit.jupiter.api.Assertions.assertEquals(
+                    ExecutionPersistenceMode.FAILURES_ONLY, failuresOnly.getPersistenceMode());
+        }
+
+        @Test
+        @DisplayName("resolves cached sources READY in the same batch")
+        void compileCacheHits() throws Exception {
+            String fingerprint = "Version 0.28.9 flags=--optimize,--exportRuntime";
+            jdbcTemplate.update("INSERT INTO compiler_toolchains (language, fingerprint, registered_at) VALUES (?, ?, now())",
+                    "assemblyscript", fingerprint);
+            String hash = artifactStore.store(loadWasm("echo"));
+            jdbcTemplate.update("INSERT INTO compile_cache (cache_key, language, artifact_hash, created_at) VALUES (?, ?, ?, now())",
+                    CompileCacheEntry.keyOf("assemblyscript", fingerprint, SOURCE), "assemblyscript", hash);
+
+            BulkFunctionRequest request = new BulkFunctionRequest(List.of(
+                    new FunctionRequest("bulk-cached", null, "assemblyscript", SOURCE),
+                    new FunctionRequest("bulk-uncached", null, "assemblyscript", "// not compiled yet")));
+
+            mockMvc.perform(post("/functions/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.results[0].status", is("READY")))
+                    .andExpect(jsonPath("$.results[1].status", is("PENDING")));
+
+            Function cached = functionRepository.findAll().stream()
+                    .filter(f -> f.getName().equals("bulk-cached"))
+                    .findFirst().orElseThrow();
+            org.junit.jupiter.api.Assertions.assertEquals(hash, cached.getArtifactHash());
+            org.junit.jupiter.api.Assertions.assertNotNull(cached.getActiveVersionId());
+        }
+
+        @Test
+        @DisplayName("rejects an empty batch with 400")
+        void emptyBatch() throws Exception {
+            mockMvc.perform(post("/functions/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"functions\": []}"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("HTTP caching")
+    class HttpCachingTests {
+
+        @Test
+        @DisplayName("terminal executions are immutable and revalidate with 304")
+        void terminalExecutionIsImmutable() throws Exception {
+            Function function = createReadyFunction("etag-exec", loadWasm("echo"));
+            String response = mockMvc.perform(post("/functions/{id}/execute", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of("k", "v")))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String executionId = objectMapper.readTree(response).get("id").asText();
+
+            var first = mockMvc.perform(get("/executions/{id}", executionId))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(header().string("ETag", "\"" + executionId + "\""))
+                    .andExpect(header().string("Cache-Control", containsString("immutable")))
+                    .andReturn().getResponse();
+            String etag = first.getHeader("ETag");
+
+            // the second read is served from the rendered detail cache
+            mockMvc.perform(get("/executions/{id}", executionId))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(content().string(first.getContentAsString()));
+
+            mockMvc.perform(get("/executions/{id}", executionId).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+
+        }
+
+        @Test
+        @DisplayName("executions of a deleted function are no longer served from the detail cache")
+        void deletedFunctionExecutionNotFound() throws Exception {
+            Function function = createReadyFunction("etag-deleted", loadWasm("echo"));
+            String response = mockMvc.perform(post("/functions/{id}/execute", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new ExecutionRequest(Map.of("k", "v")))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String executionId = objectMapper.readTree(response).get("id").asText();
+            mockMvc.perform(get("/executions/{id}", executionId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.output.k", is("v")));
+
+            mockMvc.perform(delete("/functions/{id}", function.getId()))
+                    .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/executions/{id}", executionId))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("function reads revalidate against updatedAt")
+        void functionETagTracksUpdates() throws Exception {
+            Function function = createReadyFunction("etag-function", loadWasm("echo"));
+
+            String etag = mockMvc.perform(get("/functions/{id}", function.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Cache-Control", "no-cache"))
+                    .andReturn().getResponse().getHeader("ETag");
+            org.junit.jupiter.api.Assertions.assertNotNull(etag);
+
+            mockMvc.perform(get("/functions/{id}", function.getId()).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+
+            mockMvc.perform(put("/functions/{id}", function.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new FunctionRequest("etag-renamed", null, "assemblyscript", function.getSource()))))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/functions/{id}", function.getId()).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name", is("etag-renamed")));
+        }
     }
 
     /**
@@ -415,7 +1348,7 @@ class FunctionControllerTest {
      * <p>Per issue #27 acceptance criteria:
      * <ul>
      *   <li>PUT /functions/{id} accepts FunctionRequest fields</li>
-     *   <li>When source or language changes, reset status to PENDING, clear wasmBinary/compileError</li>
+     *   <li>When source or language changes, reset status to PENDING and clear compileError; the active artifact is kept</li>
      *   <li>Returns updated function (expanded view)</li>
      *   <li>Returns 404 if function does not exist</li>
      *   <li>updatedAt is refreshed automatically</li>
@@ -446,9 +1379,9 @@ class FunctionControllerTest {
                     .andExpect(jsonPath("$.status", is("READY")))
                     .andExpect(jsonPath("$.updatedAt", notNullValue()));
 
-            // Verify WASM binary is preserved
+            // Verify WASM artifact is preserved
             Function updated = functionRepository.findById(function.getId()).orElseThrow();
-            org.junit.jupiter.api.Assertions.assertNotNull(updated.getWasmBinary());
+            org.junit.jupiter.api.Assertions.assertNotNull(updated.getArtifactHash());
             org.junit.jupiter.api.Assertions.assertEquals(FunctionStatus.READY, updated.getStatus());
         }
 
@@ -472,9 +1405,11 @@ class FunctionControllerTest {
                     .andExpect(jsonPath("$.source", is(newSource)))
                     .andExpect(jsonPath("$.compileError", nullValue()));
 
-            // Verify WASM binary is cleared
+            // Verify the previous version's artifact stays active
             Function updated = functionRepository.findById(function.getId()).orElseThrow();
-            org.junit.jupiter.api.Assertions.assertNull(updated.getWasmBinary());
+            org.junit.jupiter.api.Assertions.assertEquals(function.getArtifactHash(), updated.getArtifactHash());
+            org.junit.jupiter.api.Assertions.assertEquals(function.getActiveVersionId(), updated.getActiveVersionId());
+            org.junit.jupiter.api.Assertions.assertEquals(2, updated.getRevision());
             org.junit.jupiter.api.Assertions.assertEquals(FunctionStatus.PENDING, updated.getStatus());
         }
 
@@ -772,6 +1707,19 @@ class FunctionControllerTest {
                     .andExpect(jsonPath("$.output.sum", is(8)));
         }
 
+        @Test
+        @DisplayName("writes stored JSON into responses as raw values")
+        void rawJsonIsSplicedIntoResponse() throws Exception {
+            ExecutionResponse response = new ExecutionResponse(
+                    UUID.randomUUID(), UUID.randomUUID(), ExecutionStatus.COMPLETED,
+                    "{\"sum\":8,\"items\":[1,2]}", null, null);
+
+            var json = objectMapper.readTree(objectMapper.writeValueAsString(response));
+            org.junit.jupiter.api.Assertions.assertTrue(json.get("output").isObject());
+            org.junit.jupiter.api.Assertions.assertEquals(8, json.get("output").get("sum").asInt());
+            org.junit.jupiter.api.Assertions.assertEquals(2, json.get("output").get("items").size());
+        }
+
         @Test
         @DisplayName("rejects primitive input (not JSON object)")
         void rejectsPrimitiveInput() throws Exception {
@@ -834,4 +1782,31 @@ class FunctionControllerTest {
                     .andExpect(jsonPath("$.output.sum", is(15)));
         }
     }
+
+    @Nested
+    @DisplayName("Dead letters")
+    class DeadLetterTests {
+
+        @Test
+        @DisplayName("lists dead-lettered compilation results")
+        void listDeadLetters() throws Exception {
+            mockMvc.perform(get("/admin/dead-letters/compilation-results"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(0)));
+        }
+
+        @Test
+        @DisplayName("rejects an out-of-range limit with 400")
+        void invalidLimit() throws Exception {
+            mockMvc.perform(get("/admin/dead-letters/compilation-results").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("replaying an unknown message returns 404")
+        void replayUnknown() throws Exception {
+            mockMvc.perform(post("/admin/dead-letters/compilation-results/{id}/replay", 42))
+                    .andExpect(status().isNotFound());
+        }
+    }
 }
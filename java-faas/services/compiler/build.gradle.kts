@@ -11,6 +11,7 @@ dependencies {
     implementation(project(":common"))
     implementation(libs.spring.boot.starter.web)
     implementation(libs.spring.boot.starter.jdbc)
+    implementation(libs.spring.boot.starter.actuator)
     implementation(libs.postgresql)
     implementation(libs.jackson.databind)
 
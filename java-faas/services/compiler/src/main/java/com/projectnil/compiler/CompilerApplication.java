@@ -3,9 +3,11 @@ package com.projectnil.compiler;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ConfigurationPropertiesScan
+@EnableScheduling
 public class CompilerApplication {
     public static void main(String[] args) {
         SpringApplication.run(CompilerApplication.class, args);
@@ -1,17 +1,28 @@
 package com.projectnil.compiler.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectnil.common.messaging.QueueMetricsSampler;
+import com.projectnil.compiler.core.ArtifactStore;
+import com.projectnil.compiler.core.AscDaemonPool;
 import com.projectnil.compiler.core.AssemblyScriptCompiler;
+import com.projectnil.compiler.core.CompileCache;
 import com.projectnil.compiler.core.CompilerRunner;
 import com.projectnil.compiler.core.DefaultCompilerRunner;
 import com.projectnil.compiler.core.FileSystemWorkspaceManager;
 import com.projectnil.compiler.core.LanguageCompiler;
 import com.projectnil.compiler.core.ProcessExecutor;
+import com.projectnil.compiler.core.RevisionCheck;
 import com.projectnil.compiler.core.WorkspaceManager;
 import com.projectnil.compiler.messaging.JdbcPgmqClient;
 import com.projectnil.compiler.messaging.PgmqClient;
+import com.projectnil.compiler.persistence.JdbcArtifactStore;
+import com.projectnil.compiler.persistence.JdbcCompileCache;
+import com.projectnil.compiler.persistence.JdbcRevisionCheck;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -38,8 +49,8 @@ public class CompilerMessagingConfiguration {
     }
 
     @Bean
-    public WorkspaceManager workspaceManager(CompilerProperties compilerProperties) {
-        return new FileSystemWorkspaceManager(Path.of(compilerProperties.workspaceDir()));
+    public WorkspaceManager workspaceManager(CompilerProperties compilerProperties, MeterRegistry meterRegistry) {
+        return new FileSystemWorkspaceManager(Path.of(compilerProperties.workspaceDir()), meterRegistry);
     }
 
     @Bean
@@ -52,24 +63,79 @@ public class CompilerMessagingConfiguration {
         WorkspaceManager workspaceManager,
         ProcessExecutor processExecutor,
         CompilerProperties compilerProperties
-    ) {
+    ) throws IOException {
         Duration timeout = Duration.ofMillis(compilerProperties.timeoutMs());
+        String ascLibPath = compilerProperties.ascLibPath();
+        AscDaemonPool daemonPool = null;
+        // The daemon loads the compiler API from the library path, so it needs one
+        if (compilerProperties.ascDaemonMaxCompiles() > 0 && ascLibPath != null && !ascLibPath.isEmpty()) {
+            daemonPool = AscDaemonPool.forNode(
+                compilerProperties.nodeBinary(),
+                Path.of(ascLibPath).toAbsolutePath(),
+                compilerProperties.ascDaemonMaxCompiles()
+            );
+        }
         return new AssemblyScriptCompiler(
             workspaceManager,
             processExecutor,
             timeout,
             compilerProperties.ascBinary(),
-            compilerProperties.ascLibPath()
+            ascLibPath,
+            daemonPool
         );
     }
 
+    @Bean
+    public CompileCache compileCache(JdbcTemplate jdbcTemplate) {
+        return new JdbcCompileCache(jdbcTemplate);
+    }
+
+    @Bean
+    public RevisionCheck revisionCheck(JdbcTemplate jdbcTemplate) {
+        return new JdbcRevisionCheck(jdbcTemplate);
+    }
+
+    @Bean
+    public ArtifactStore artifactStore(JdbcTemplate jdbcTemplate) {
+        return new JdbcArtifactStore(jdbcTemplate);
+    }
+
+    /**
+     * Closed with the context, which stops the runner: in-flight compiles finish and
+     * prefetched jobs are released before the connection pool shuts down.
+     */
     @Bean
     public CompilerRunner compilerRunner(
         PgmqClient pgmqClient,
         LanguageCompiler languageCompiler,
-        CompilerProperties compilerProperties
+        CompilerProperties compilerProperties,
+        CompileCache compileCache,
+        RevisionCheck revisionCheck,
+        ArtifactStore artifactStore,
+        MeterRegistry meterRegistry
+    ) {
+        return new DefaultCompilerRunner(
+            pgmqClient,
+            languageCompiler,
+            compilerProperties,
+            compileCache,
+            revisionCheck,
+            artifactStore,
+            meterRegistry
+        );
+    }
+
+    @Bean
+    public QueueMetricsSampler queueMetricsSampler(
+        JdbcTemplate jdbcTemplate,
+        CompilerProperties compilerProperties,
+        MeterRegistry meterRegistry
     ) {
-        return new DefaultCompilerRunner(pgmqClient, languageCompiler, compilerProperties);
+        return new QueueMetricsSampler(
+            jdbcTemplate,
+            List.of(compilerProperties.jobQueue(), compilerProperties.resultQueue()),
+            meterRegistry
+        );
     }
 
     @EventListener(ApplicationReadyEvent.class)
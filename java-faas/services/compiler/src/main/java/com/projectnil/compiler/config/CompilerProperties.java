@@ -2,6 +2,16 @@ package com.projectnil.compiler.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * Compiler settings.
+ *
+ * @param workers jobs compiled concurrently. Zero or less uses one per available processor.
+ * @param prefetchDepth jobs read ahead of the workers, so a worker that frees up does not wait
+ *                      on a read. Jobs held here are invisible to other replicas, so keep it small.
+ * @param nodeBinary Node executable that runs the asc daemons. Default: {@code node}.
+ * @param ascDaemonMaxCompiles compiles after which an asc daemon is replaced. Zero or less
+ *                             compiles every job with a one-shot {@code asc} instead.
+ */
 @ConfigurationProperties(prefix = "compiler")
 public record CompilerProperties(
     String language,
@@ -11,5 +21,21 @@ public record CompilerProperties(
     long pollIntervalMs,
     String ascBinary,
     String workspaceDir,
-    String ascLibPath
-) {}
+    String ascLibPath,
+    int workers,
+    int prefetchDepth,
+    String nodeBinary,
+    int ascDaemonMaxCompiles
+) {
+    public CompilerProperties {
+        if (workers <= 0) {
+            workers = Runtime.getRuntime().availableProcessors();
+        }
+        if (prefetchDepth < 0) {
+            prefetchDepth = 0;
+        }
+        if (nodeBinary == null || nodeBinary.isBlank()) {
+            nodeBinary = "node";
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.projectnil.compiler.core;
+
+import java.util.Optional;
+
+/**
+ * Compiler-side writer for the shared, content-addressed {@code artifacts} table.
+ *
+ * <p>Compiled binaries are stored here and results reference them by hash, so the binary is
+ * written once instead of travelling base64-encoded through {@code compilation_results}.
+ */
+public interface ArtifactStore {
+
+    /**
+     * A store that stores nothing, so results carry their binary inline.
+     */
+    ArtifactStore INLINE = data -> Optional.empty();
+
+    /**
+     * Store a binary unless identical bytes are already stored.
+     *
+     * <p>Either way the artifact's {@code created_at} is refreshed, so garbage collection
+     * gives the API a full grace period to reference it.
+     *
+     * @param data the compiled WASM binary
+     * @return the artifact hash, or empty if the binary could not be stored and must be sent
+     *         inline
+     */
+    Optional<String> store(byte[] data);
+}
@@ -0,0 +1,251 @@
+package com.projectnil.compiler.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of long-lived Node processes running {@code asc-daemon.mjs}, which compile through the
+ * AssemblyScript compiler API instead of paying Node startup, module loading and transform
+ * initialization on every job.
+ *
+ * <p>A daemon compiles one request at a time, so the pool grows to the number of concurrent
+ * callers. A daemon is replaced after {@code maxCompiles} compiles, and when it crashes, answers
+ * with something unreadable or times out. Callers should treat an {@link IOException} from
+ * {@link #execute} as the daemon being unavailable and fall back to running {@code asc}
+ * directly; after a daemon fails to start, no new start is attempted for
+ * {@link #START_BACKOFF_MS}.
+ *
+ * <p>Protocol, one JSON object per line each way: once loaded the daemon writes
+ * {@code {"version": "...", "jsonAs": "..."}}, then answers every {@code {"args": [...]}} request with
+ * {@code {"exitCode": 0, "stdout": "...", "stderr": "..."}}.
+ */
+public class AscDaemonPool implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AscDaemonPool.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(30);
+    private static final long START_BACKOFF_MS = 30_000;
+
+    private final List<String> command;
+    private final int maxCompiles;
+    private final Deque<Daemon> idle = new ArrayDeque<>();
+    private boolean closed;
+    private volatile long startBlockedUntil;
+
+    /**
+     * @param command command that starts one daemon
+     * @param maxCompiles compiles after which a daemon is replaced
+     */
+    public AscDaemonPool(List<String> command, int maxCompiles) {
+        this.command = List.copyOf(command);
+        this.maxCompiles = maxCompiles;
+    }
+
+    /**
+     * Create a pool running the bundled {@code asc-daemon.mjs} with Node.
+     *
+     * @param nodeBinary the Node executable
+     * @param ascLibPath library path holding the {@code assemblyscript} and {@code json-as} packages
+     * @param maxCompiles compiles after which a daemon is replaced
+     */
+    public static AscDaemonPool forNode(String nodeBinary, Path ascLibPath, int maxCompiles) throws IOException {
+        Path script = Files.createTempFile("asc-daemon", ".mjs");
+        script.toFile().deleteOnExit();
+        try (InputStream bundled = AscDaemonPool.class.getResourceAsStream("/asc-daemon.mjs")) {
+            if (bundled == null) {
+                throw new IOException("asc-daemon.mjs is missing from the classpath");
+            }
+            Files.copy(bundled, script, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new AscDaemonPool(List.of(nodeBinary, script.toString(), ascLibPath.toString()), maxCompiles);
+    }
+
+    /**
+     * Run {@code asc} with the given arguments in a daemon.
+     *
+     * @throws IOException if no daemon could run the compile
+     * @throws TimeoutException if the compile did not finish in time; the daemon is killed
+     */
+    public ProcessExecutor.ProcessResult execute(List<String> args, Duration timeout)
+        throws IOException, TimeoutException, InterruptedException {
+        Daemon daemon = borrow();
+        boolean healthy = false;
+        try {
+            ProcessExecutor.ProcessResult result = daemon.execute(args, timeout);
+            healthy = true;
+            return result;
+        } finally {
+            giveBack(daemon, healthy);
+        }
+    }
+
+    /**
+     * @return the AssemblyScript and json-as versions the daemons load
+     * @throws IOException if no daemon could be started
+     */
+    public Versions versions() throws IOException, InterruptedException {
+        Daemon daemon = borrow();
+        giveBack(daemon, true);
+        return daemon.versions;
+    }
+
+    @Override
+    public void close() {
+        List<Daemon> daemons;
+        synchronized (this) {
+            closed = true;
+            daemons = new ArrayList<>(idle);
+            idle.clear();
+        }
+        daemons.forEach(Daemon::destroy);
+    }
+
+    private Daemon borrow() throws IOException, InterruptedException {
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("asc daemon pool is closed");
+            }
+            Daemon daemon;
+            while ((daemon = idle.pollFirst()) != null) {
+                if (daemon.isAlive()) {
+                    return daemon;
+                }
+                daemon.destroy();
+            }
+        }
+        if (System.currentTimeMillis() < startBlockedUntil) {
+            throw new IOException("asc daemon failed to start recently");
+        }
+        try {
+            return Daemon.start(command);
+        } catch (IOException ex) {
+            startBlockedUntil = System.currentTimeMillis() + START_BACKOFF_MS;
+            throw ex;
+        }
+    }
+
+    private void giveBack(Daemon daemon, boolean healthy) {
+        if (healthy && daemon.compiles < maxCompiles && daemon.isAlive()) {
+            synchronized (this) {
+                if (!closed) {
+                    idle.addFirst(daemon);
+                    return;
+                }
+            }
+        }
+        daemon.destroy();
+    }
+
+    /**
+     * Versions a daemon reported when it started; either is null if it could not tell.
+     */
+    public record Versions(String asc, String jsonAs) {}
+
+    private record Request(List<String> args) {}
+
+    private record Hello(String version, String jsonAs) {}
+
+    private record Response(int exitCode, String stdout, String stderr) {}
+
+    /**
+     * One daemon process. Used by one caller at a time.
+     */
+    private static final class Daemon {
+
+        private final Process process;
+        private final Writer requests;
+        private final BlockingQueue<Optional<String>> lines = new LinkedBlockingQueue<>();
+        private Versions versions;
+        private int compiles;
+
+        private Daemon(Process process) {
+            this.process = process;
+            this.requests = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            Thread reader = new Thread(this::readLines, "asc-daemon-" + process.pid());
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        static Daemon start(List<String> command) throws IOException, InterruptedException {
+            ProcessBuilder builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT);
+            builder.environment().putAll(ProcessExecutor.COMPILER_ENVIRONMENT);
+            Daemon daemon = new Daemon(builder.start());
+            try {
+                Hello hello = OBJECT_MAPPER.readValue(daemon.awaitLine(START_TIMEOUT), Hello.class);
+                daemon.versions = new Versions(hello.version(), hello.jsonAs());
+            } catch (IOException | TimeoutException ex) {
+                daemon.destroy();
+                throw new IOException("asc daemon failed to start", ex);
+            }
+            LOGGER.info(
+                "Started asc daemon pid={} version={} jsonAs={}",
+                daemon.process.pid(),
+                daemon.versions.asc(),
+                daemon.versions.jsonAs()
+            );
+            return daemon;
+        }
+
+        ProcessExecutor.ProcessResult execute(List<String> args, Duration timeout)
+            throws IOException, TimeoutException, InterruptedException {
+            compiles++;
+            requests.write(OBJECT_MAPPER.writeValueAsString(new Request(args)));
+            requests.write('\n');
+            requests.flush();
+            Response response = OBJECT_MAPPER.readValue(awaitLine(timeout), Response.class);
+            return new ProcessExecutor.ProcessResult(response.exitCode(), response.stdout(), response.stderr());
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+        }
+
+        private String awaitLine(Duration timeout) throws IOException, TimeoutException, InterruptedException {
+            Optional<String> line = lines.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (line == null) {
+                throw new TimeoutException("asc daemon did not answer within " + timeout.toMillis() + "ms");
+            }
+            return line.orElseThrow(() -> new IOException("asc daemon pid=" + process.pid() + " exited"));
+        }
+
+        private void readLines() {
+            try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)
+            )) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(Optional.of(line));
+                }
+            } catch (IOException ex) {
+                // Stream closed by destroy()
+            }
+            lines.add(Optional.empty());
+        }
+    }
+}
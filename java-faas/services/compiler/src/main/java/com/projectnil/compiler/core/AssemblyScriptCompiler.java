@@ -7,19 +7,42 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class AssemblyScriptCompiler implements LanguageCompiler {
+/**
+ * Compiles AssemblyScript with {@code asc}.
+ *
+ * <p>Given an {@link AscDaemonPool}, compiles run in a long-lived daemon and fall back to a
+ * one-shot {@code asc} process only when no daemon is available. The daemons are only used if
+ * they load the AssemblyScript and json-as versions in {@link #toolchainFingerprint()}, so
+ * cached and fresh compiles come from the same toolchain.
+ */
+public class AssemblyScriptCompiler implements LanguageCompiler, AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AssemblyScriptCompiler.class);
     private static final String WASM_FILENAME = "module.wasm";
+    private static final Duration VERSION_TIMEOUT = Duration.ofSeconds(10);
+    private static final Pattern PACKAGE_VERSION = Pattern.compile("\"version\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ASC_VERSION = Pattern.compile("\\d+\\.\\d+\\.\\d+\\S*");
 
     private final WorkspaceManager workspaceManager;
     private final ProcessExecutor processExecutor;
     private final Duration timeout;
     private final String ascBinary;
     private final String ascLibPath;
+    private final AscDaemonPool daemonPool;
+    private volatile Optional<String> toolchainFingerprint;
+    private volatile String ascVersion;
+    private volatile String jsonAsVersion;
+    private volatile Boolean daemonMatchesToolchain;
 
     public AssemblyScriptCompiler(
         WorkspaceManager workspaceManager,
@@ -27,12 +50,24 @@ public class AssemblyScriptCompiler implements LanguageCompiler {
         Duration timeout,
         String ascBinary,
         String ascLibPath
+    ) {
+        this(workspaceManager, processExecutor, timeout, ascBinary, ascLibPath, null);
+    }
+
+    public AssemblyScriptCompiler(
+        WorkspaceManager workspaceManager,
+        ProcessExecutor processExecutor,
+        Duration timeout,
+        String ascBinary,
+        String ascLibPath,
+        AscDaemonPool daemonPool
     ) {
         this.workspaceManager = workspaceManager;
         this.processExecutor = processExecutor;
         this.timeout = timeout;
         this.ascBinary = ascBinary;
         this.ascLibPath = ascLibPath;
+        this.daemonPool = daemonPool;
     }
 
     @Override
@@ -53,12 +88,12 @@ public class AssemblyScriptCompiler implements LanguageCompiler {
         try {
             Path sourceFile = workspaceManager.writeSource(workspace, job.source());
             List<String> command = ascCommand(sourceFile, workspaceManager.wasmFile(workspace));
-            ProcessExecutor.ProcessResult result = processExecutor.execute(command, timeout);
+            ProcessExecutor.ProcessResult result = runAsc(command);
             long duration = System.currentTimeMillis() - start;
             if (!result.success()) {
                 return CompilationOutcome.failure(result.stderr(), duration);
             }
-            byte[] wasmBytes = Files.readAllBytes(workspaceManager.wasmFile(workspace));
+            byte[] wasmBytes = workspaceManager.readWasm(workspace);
             return CompilationOutcome.success(wasmBytes, duration);
         } catch (IOException ex) {
             throw new CompilationException("Failed to compile AssemblyScript source", ex);
@@ -70,21 +105,155 @@ public class AssemblyScriptCompiler implements LanguageCompiler {
         }
     }
 
+    @Override
+    public void close() {
+        if (daemonPool != null) {
+            daemonPool.close();
+        }
+    }
+
+    private ProcessExecutor.ProcessResult runAsc(List<String> command) throws IOException, InterruptedException {
+        if (daemonPool != null && daemonMatchesToolchain()) {
+            try {
+                return daemonPool.execute(command.subList(1, command.size()), timeout);
+            } catch (TimeoutException ex) {
+                throw new IOException("Process timed out after " + timeout.toMillis() + "ms", ex);
+            } catch (IOException ex) {
+                LOGGER.warn("asc daemon unavailable, compiling with a one-shot asc: {}", ex.getMessage());
+            }
+        }
+        return processExecutor.execute(command, timeout);
+    }
+
+    /**
+     * Whether the daemons load the same AssemblyScript and json-as versions as
+     * {@code ascBinary}, as recorded by {@link #probeToolchain()}. Checked once a daemon starts;
+     * without a fingerprint nothing is cached, so any version will do.
+     */
+    private boolean daemonMatchesToolchain() throws InterruptedException {
+        Boolean matches = daemonMatchesToolchain;
+        if (matches != null) {
+            return matches;
+        }
+        AscDaemonPool.Versions daemonVersions;
+        try {
+            daemonVersions = daemonPool.versions();
+        } catch (IOException ex) {
+            return false;
+        }
+        if (toolchainFingerprint().isEmpty()) {
+            matches = true;
+        } else {
+            // Without a library path compiles don't use json-as, so its version doesn't matter
+            matches = Objects.equals(ascVersion, daemonVersions.asc())
+                && (!hasLibPath() || Objects.equals(jsonAsVersion, daemonVersions.jsonAs()));
+        }
+        if (!matches) {
+            LOGGER.warn(
+                "asc daemon loads AssemblyScript {} with json-as {} but {} uses {} with json-as {}, "
+                    + "compiling with one-shot asc only",
+                daemonVersions.asc(),
+                daemonVersions.jsonAs(),
+                ascBinary,
+                ascVersion,
+                jsonAsVersion
+            );
+            daemonPool.close();
+        }
+        daemonMatchesToolchain = matches;
+        return matches;
+    }
+
+    /**
+     * Fingerprint of {@code asc --version}, the compile flags with the json-as version in place
+     * of the transform, and the compiler environment. Library paths are left out so that
+     * compilers installed in different locations share cache entries. Computed once, recording
+     * the asc and json-as versions for the daemon check; a failed probe disables caching until
+     * restart.
+     */
+    @Override
+    public Optional<String> toolchainFingerprint() {
+        Optional<String> fingerprint = toolchainFingerprint;
+        if (fingerprint == null) {
+            fingerprint = probeToolchain();
+            toolchainFingerprint = fingerprint;
+        }
+        return fingerprint;
+    }
+
+    private Optional<String> probeToolchain() {
+        try {
+            ProcessExecutor.ProcessResult result = processExecutor.execute(List.of(ascBinary, "--version"), VERSION_TIMEOUT);
+            if (!result.success()) {
+                LOGGER.warn("asc --version exited with {}, compile cache disabled", result.exitCode());
+                return Optional.empty();
+            }
+            Matcher version = ASC_VERSION.matcher(result.stdout());
+            ascVersion = version.find() ? version.group() : null;
+            jsonAsVersion = hasLibPath() ? readJsonAsVersion() : null;
+            List<String> flags = hasLibPath()
+                ? ascFlags("$ASC_LIB_PATH", "json-as@" + jsonAsVersion)
+                : ascFlags(null, null);
+            String environment = ProcessExecutor.COMPILER_ENVIRONMENT.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+            String fingerprint = result.stdout().strip()
+                + " flags=" + String.join(",", flags)
+                + " env=" + environment;
+            LOGGER.info("AssemblyScript toolchain fingerprint: {}", fingerprint);
+            return Optional.of(fingerprint);
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to determine asc version, compile cache disabled", ex);
+            return Optional.empty();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private String readJsonAsVersion() throws IOException {
+        Path packageJson = Path.of(ascLibPath, "json-as", "package.json");
+        Matcher matcher = PACKAGE_VERSION.matcher(Files.readString(packageJson));
+        if (!matcher.find()) {
+            throw new IOException("No version in " + packageJson);
+        }
+        return matcher.group(1);
+    }
+
     private List<String> ascCommand(Path sourceFile, Path wasmFile) {
         List<String> command = new ArrayList<>();
         command.add(ascBinary);
         command.add(sourceFile.toString());
         command.add("--outFile");
         command.add(wasmFile.toString());
-        command.add("--optimize");
-        command.add("--exportRuntime");
-        if (ascLibPath != null && !ascLibPath.isEmpty()) {
-            command.add("--path");
-            command.add(ascLibPath);
+        command.addAll(ascFlags(ascLibPath, ascLibPath + "/json-as/transform"));
+        return command;
+    }
+
+    /**
+     * Flags every compile passes after the source and output file. Shared with the toolchain
+     * fingerprint, which passes stand-ins for the paths.
+     *
+     * @param libPath value of {@code --path}, used only if an {@code ascLibPath} is configured
+     * @param transform value of {@code --transform}, likewise
+     */
+    private List<String> ascFlags(String libPath, String transform) {
+        List<String> flags = new ArrayList<>();
+        flags.add("--optimize");
+        flags.add("--exportRuntime");
+        if (hasLibPath()) {
+            flags.add("--path");
+            flags.add(libPath);
             // json-as requires a transform for JSON support
-            command.add("--transform");
-            command.add(ascLibPath + "/json-as/transform");
+            flags.add("--transform");
+            flags.add(transform);
         }
-        return command;
+        return flags;
+    }
+
+    private boolean hasLibPath() {
+        return ascLibPath != null && !ascLibPath.isEmpty();
     }
 }
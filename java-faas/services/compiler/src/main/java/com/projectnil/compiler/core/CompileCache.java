@@ -0,0 +1,44 @@
+package com.projectnil.compiler.core;
+
+import java.util.Optional;
+
+/**
+ * Compiler-side view of the shared compile cache.
+ *
+ * <p>Entries are written by the API when it applies a successful result carrying a cache key;
+ * the compiler only reads them, so a job that raced a cache hit is answered without running
+ * the toolchain.
+ */
+public interface CompileCache {
+
+    /**
+     * A cache that never hits and registers nothing.
+     */
+    CompileCache DISABLED = new CompileCache() {
+        @Override
+        public void registerToolchain(String language, String fingerprint) {
+        }
+
+        @Override
+        public Optional<String> find(String cacheKey) {
+            return Optional.empty();
+        }
+    };
+
+    /**
+     * Publish the toolchain fingerprint so the API can compute cache keys.
+     *
+     * @param language the language compiled
+     * @param fingerprint the toolchain fingerprint
+     */
+    void registerToolchain(String language, String fingerprint);
+
+    /**
+     * Find the artifact compiled for a cache key, refreshing its {@code created_at} so it
+     * outlives garbage collection until the API references it.
+     *
+     * @param cacheKey the compile cache key
+     * @return the artifact hash, or empty on a miss
+     */
+    Optional<String> find(String cacheKey);
+}
@@ -1,7 +1,16 @@
 package com.projectnil.compiler.core;
 
-public interface CompilerRunner {
+/**
+ * Consumes compilation jobs until stopped. Closing a runner stops it, so a Spring context
+ * drains it on shutdown.
+ */
+public interface CompilerRunner extends AutoCloseable {
     void start();
 
     void stop();
+
+    @Override
+    default void close() {
+        stop();
+    }
 }
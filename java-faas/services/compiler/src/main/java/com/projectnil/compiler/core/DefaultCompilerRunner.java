@@ -1,28 +1,72 @@
 package com.projectnil.compiler.core;
 
+import com.projectnil.common.domain.CompileCacheEntry;
 import com.projectnil.common.domain.queue.CompilationJob;
 import com.projectnil.common.domain.queue.CompilationResult;
 import com.projectnil.compiler.config.CompilerProperties;
 import com.projectnil.compiler.messaging.PgmqClient;
 import com.projectnil.compiler.messaging.QueuedCompilationJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Job loop that compiles up to {@link CompilerProperties#workers()} jobs concurrently.
+ *
+ * <p>A single reader thread keeps at most {@code workers + prefetchDepth} jobs claimed. Whenever
+ * slots free up it reads that many jobs in one {@link PgmqClient#readJobs} call, which waits
+ * for jobs to arrive when the queue is empty, and buffers them in the worker pool's queue.
+ * The prefetch depth keeps a freed worker from waiting on a read, while holding back the rest
+ * of the queue for other replicas. Each compile gets its own workspace from the
+ * {@link WorkspaceManager}.
+ *
+ * <p>On {@link #stop()}, which runs when the application context closes, the reader stops
+ * taking jobs, buffered jobs are released back to the queue so other replicas can take them
+ * straight away, and in-flight compiles are given {@link CompilerProperties#timeoutMs()} to
+ * finish. A compile interrupted past that is released too, rather than reported as failed.
+ *
+ * <p>Counts every job in {@code projectnil.compiler.jobs}, tagged
+ * {@code outcome=compiled|failed|cache_hit|superseded|skipped}, and times toolchain runs in
+ * {@code projectnil.compiler.compile.duration}. Jobs being worked on are reported in
+ * {@code projectnil.compiler.jobs.in.flight}, and jobs waiting for a worker in
+ * {@code projectnil.compiler.jobs.buffered}.
+ */
 public class DefaultCompilerRunner implements CompilerRunner, Runnable {
 
-
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCompilerRunner.class);
+    private static final long SHUTDOWN_GRACE_MS = 5000;
 
     private final PgmqClient pgmqClient;
     private final LanguageCompiler languageCompiler;
     private final CompilerProperties compilerProperties;
-    private final ExecutorService executorService;
+    private final CompileCache compileCache;
+    private final RevisionCheck revisionCheck;
+    private final ArtifactStore artifactStore;
+    private final ExecutorService readerExecutor;
+    private final ExecutorService workerExecutor;
+    private final Semaphore slots;
+    private final AtomicInteger inFlight;
+    private final AtomicInteger buffered;
+    private final Counter compiled;
+    private final Counter failed;
+    private final Counter cacheHits;
+    private final Counter superseded;
+    private final Counter skipped;
+    private final Timer compileDuration;
 
     private final AtomicBoolean running;
 
@@ -30,16 +74,62 @@ public class DefaultCompilerRunner implements CompilerRunner, Runnable {
         PgmqClient pgmqClient,
         LanguageCompiler languageCompiler,
         CompilerProperties compilerProperties
+    ) {
+        this(
+            pgmqClient,
+            languageCompiler,
+            compilerProperties,
+            CompileCache.DISABLED,
+            RevisionCheck.DISABLED,
+            ArtifactStore.INLINE,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    public DefaultCompilerRunner(
+        PgmqClient pgmqClient,
+        LanguageCompiler languageCompiler,
+        CompilerProperties compilerProperties,
+        CompileCache compileCache,
+        RevisionCheck revisionCheck,
+        ArtifactStore artifactStore,
+        MeterRegistry meterRegistry
     ) {
         this.pgmqClient = pgmqClient;
         this.languageCompiler = languageCompiler;
         this.compilerProperties = compilerProperties;
-        this.executorService = Executors.newSingleThreadExecutor(r -> {
+        this.compileCache = compileCache;
+        this.revisionCheck = revisionCheck;
+        this.artifactStore = artifactStore;
+        this.readerExecutor = Executors.newSingleThreadExecutor(r -> {
             Thread thread = new Thread(r, "compiler-runner");
             thread.setDaemon(true);
             return thread;
         });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workerExecutor = Executors.newFixedThreadPool(compilerProperties.workers(), r -> {
+            Thread thread = new Thread(r, "compiler-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.slots = new Semaphore(compilerProperties.workers() + compilerProperties.prefetchDepth());
+        this.inFlight = new AtomicInteger();
+        this.buffered = new AtomicInteger();
         this.running = new AtomicBoolean(false);
+        this.compiled = jobCounter(meterRegistry, "compiled");
+        this.failed = jobCounter(meterRegistry, "failed");
+        this.cacheHits = jobCounter(meterRegistry, "cache_hit");
+        this.superseded = jobCounter(meterRegistry, "superseded");
+        this.skipped = jobCounter(meterRegistry, "skipped");
+        this.compileDuration = Timer.builder("projectnil.compiler.compile.duration")
+            .description("Time spent running the toolchain, including failed compilations")
+            .register(meterRegistry);
+        Gauge.builder("projectnil.compiler.jobs.in.flight", inFlight, AtomicInteger::get)
+            .description("Compilation jobs currently being worked on by this compiler")
+            .register(meterRegistry);
+        Gauge.builder("projectnil.compiler.jobs.buffered", buffered, AtomicInteger::get)
+            .description("Compilation jobs read by this compiler and waiting for a worker")
+            .register(meterRegistry);
     }
 
     @Override
@@ -47,8 +137,15 @@ public class DefaultCompilerRunner implements CompilerRunner, Runnable {
         if (!running.compareAndSet(false, true)) {
             return;
         }
-        executorService.submit(this);
-        LOGGER.info("Compiler runner started for language {}", languageCompiler.language());
+        languageCompiler.toolchainFingerprint()
+            .ifPresent(fingerprint -> compileCache.registerToolchain(languageCompiler.language(), fingerprint));
+        readerExecutor.submit(this);
+        LOGGER.info(
+            "Compiler runner started for language {} with {} workers, prefetch depth {}",
+            languageCompiler.language(),
+            compilerProperties.workers(),
+            compilerProperties.prefetchDepth()
+        );
     }
 
     @Override
@@ -56,32 +153,88 @@ public class DefaultCompilerRunner implements CompilerRunner, Runnable {
         if (!running.compareAndSet(true, false)) {
             return;
         }
-        executorService.shutdownNow();
+        readerExecutor.shutdownNow();
+        workerExecutor.shutdown();
         try {
-            executorService.awaitTermination(5, TimeUnit.SECONDS);
+            // A read in progress is not interruptible; wait for it so the jobs it returns are released
+            if (!readerExecutor.awaitTermination(
+                Math.max(compilerProperties.pollIntervalMs(), 0L) + SHUTDOWN_GRACE_MS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Compiler runner reader did not stop, jobs it reads stay invisible until their visibility timeout");
+            }
+            long drainMs = Math.max(compilerProperties.timeoutMs(), 0L) + SHUTDOWN_GRACE_MS;
+            if (!workerExecutor.awaitTermination(drainMs, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Interrupting {} compilation jobs still running after {}ms", inFlight.get(), drainMs);
+                workerExecutor.shutdownNow();
+                workerExecutor.awaitTermination(SHUTDOWN_GRACE_MS, TimeUnit.MILLISECONDS);
+            }
         } catch (InterruptedException ex) {
+            workerExecutor.shutdownNow();
             Thread.currentThread().interrupt();
         }
         LOGGER.info("Compiler runner stopped");
     }
 
+    /**
+     * Reader loop: waits for a free slot, then reads a job for every free slot and buffers them.
+     */
     @Override
     public void run() {
         while (running.get()) {
             try {
-                Optional<QueuedCompilationJob> queuedJob = pgmqClient.readJob();
-                if (queuedJob.isEmpty()) {
-                    sleepQuietly();
-                    continue;
-                }
-                processJob(queuedJob.get());
+                slots.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            int requested = 1 + slots.drainPermits();
+            List<QueuedCompilationJob> jobs = List.of();
+            try {
+                jobs = pgmqClient.readJobs(requested);
             } catch (Exception ex) {
-                LOGGER.error("Unexpected error in compiler runner", ex);
+                LOGGER.error("Failed to read compilation jobs", ex);
                 sleepQuietly();
+            } finally {
+                slots.release(requested - jobs.size());
+            }
+            for (QueuedCompilationJob queuedJob : jobs) {
+                dispatch(queuedJob);
             }
         }
     }
 
+    private void dispatch(QueuedCompilationJob queuedJob) {
+        buffered.incrementAndGet();
+        try {
+            workerExecutor.execute(() -> work(queuedJob));
+        } catch (RejectedExecutionException ex) {
+            // Stopped while reading
+            buffered.decrementAndGet();
+            slots.release();
+            pgmqClient.releaseJob(queuedJob.messageId());
+        }
+    }
+
+    private void work(QueuedCompilationJob queuedJob) {
+        buffered.decrementAndGet();
+        try {
+            if (!running.get()) {
+                // Hand buffered jobs back instead of draining them, so shutdown only waits for in-flight compiles
+                pgmqClient.releaseJob(queuedJob.messageId());
+                return;
+            }
+            inFlight.incrementAndGet();
+            try {
+                processJob(queuedJob);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Unexpected error processing job {}", queuedJob.messageId(), ex);
+        } finally {
+            slots.release();
+        }
+    }
+
     private void processJob(QueuedCompilationJob queuedJob) {
         CompilationJob job = queuedJob.job();
         if (!Objects.equals(job.language(), languageCompiler.language())) {
@@ -91,42 +244,100 @@ public class DefaultCompilerRunner implements CompilerRunner, Runnable {
                 job.language(),
                 languageCompiler.language()
             );
+            skipped.increment();
+            pgmqClient.deleteJob(queuedJob.messageId());
+            return;
+        }
+        if (revisionCheck.isSuperseded(job)) {
+            LOGGER.info(
+                "Dropping job for function {} revision {}, superseded by a newer revision",
+                job.functionId(),
+                job.revision()
+            );
+            superseded.increment();
             pgmqClient.deleteJob(queuedJob.messageId());
             return;
         }
         LOGGER.info("Processing compilation job for function {}", job.functionId());
         long start = System.currentTimeMillis();
+        String cacheKey = languageCompiler.toolchainFingerprint()
+            .map(fingerprint -> CompileCacheEntry.keyOf(job.language(), fingerprint, job.source()))
+            .orElse(null);
+        boolean acknowledge = true;
         try {
-            CompilationOutcome outcome = languageCompiler.compile(job);
+            Optional<String> cached = cacheKey == null ? Optional.empty() : compileCache.find(cacheKey);
+            if (cached.isPresent()) {
+                LOGGER.info("Compile cache hit for function {}", job.functionId());
+                cacheHits.increment();
+                publishResult(job, null, cached.get(), cacheKey, System.currentTimeMillis() - start);
+                return;
+            }
+            CompilationOutcome outcome;
+            Timer.Sample compileSample = Timer.start();
+            try {
+                outcome = languageCompiler.compile(job);
+            } finally {
+                compileSample.stop(compileDuration);
+            }
             long duration = System.currentTimeMillis() - start;
-            publishResult(job, outcome, duration);
+            if (outcome.success()) {
+                compiled.increment();
+                byte[] wasmBinary = outcome.wasmBinary().orElseThrow();
+                Optional<String> artifactHash = artifactStore.store(wasmBinary);
+                publishResult(
+                    job,
+                    artifactHash.isPresent() ? null : wasmBinary,
+                    artifactHash.orElse(null),
+                    cacheKey,
+                    duration
+                );
+            } else {
+                failed.increment();
+                publishFailure(job, outcome.errorMessage().orElse(null), duration);
+            }
         } catch (CompilationException ex) {
+            if (!running.get() && Thread.currentThread().isInterrupted()) {
+                // Interrupted by shutdown: hand the job to another replica instead of failing the function
+                LOGGER.info("Compilation of function {} interrupted by shutdown, releasing it", job.functionId());
+                acknowledge = false;
+                // Clear the interrupt for the release, or the connection pool refuses to hand out a connection
+                Thread.interrupted();
+                pgmqClient.releaseJob(queuedJob.messageId());
+                Thread.currentThread().interrupt();
+                return;
+            }
+            failed.increment();
             long duration = System.currentTimeMillis() - start;
             LOGGER.warn("Compilation failed for function {}", job.functionId(), ex);
             publishFailure(job, ex.getMessage(), duration);
         } finally {
-            pgmqClient.deleteJob(queuedJob.messageId());
+            if (acknowledge) {
+                pgmqClient.deleteJob(queuedJob.messageId());
+            }
         }
     }
 
-    private void publishResult(CompilationJob job, CompilationOutcome outcome, long duration) {
-        CompilationResult result = new CompilationResult(
-            job.functionId(),
-            outcome.success(),
-            outcome.wasmBinary().orElse(null),
-            outcome.errorMessage().orElse(null)
-        );
+    private void publishResult(
+        CompilationJob job,
+        byte[] wasmBinary,
+        String artifactHash,
+        String cacheKey,
+        long duration
+    ) {
+        CompilationResult result = artifactHash != null
+            ? CompilationResult.artifact(job.functionId(), job.versionId(), artifactHash, cacheKey)
+            : CompilationResult.success(job.functionId(), job.versionId(), wasmBinary, cacheKey);
         pgmqClient.publishResult(result);
         LOGGER.info(
-            "Published compilation result for function {} (success={}, duration={}ms)",
+            "Published compilation result for function {} (success=true, artifact={}, duration={}ms)",
             job.functionId(),
-            outcome.success(),
+            artifactHash != null ? artifactHash : "inline",
             duration
         );
     }
 
     private void publishFailure(CompilationJob job, String errorMessage, long duration) {
-        CompilationResult result = new CompilationResult(job.functionId(), false, null, errorMessage);
+        CompilationResult result = CompilationResult.failure(job.functionId(), job.versionId(), errorMessage);
         pgmqClient.publishResult(result);
         LOGGER.info(
             "Published failure result for function {} (duration={}ms)",
@@ -135,6 +346,13 @@ public class DefaultCompilerRunner implements CompilerRunner, Runnable {
         );
     }
 
+    private static Counter jobCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("projectnil.compiler.jobs")
+            .description("Compilation jobs processed by this compiler")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
     private void sleepQuietly() {
         long interval = Math.max(compilerProperties.pollIntervalMs(), 100L);
         try {
@@ -1,47 +1,104 @@
 package com.projectnil.compiler.core;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.FileSystemUtils;
 
-public class FileSystemWorkspaceManager implements WorkspaceManager {
+/**
+ * Pool of reusable workspace slots under a base directory, which should be on a RAM-backed
+ * filesystem such as tmpfs.
+ *
+ * <p>{@link #createWorkspace} hands out an idle slot, or creates one if all are in use, so
+ * every compile attempt has a directory of its own even when several compile the same
+ * function. {@link #cleanup} empties the slot and returns it to the pool rather than deleting
+ * it. Slots are deleted on {@link #close()}.
+ *
+ * <p>The filesystem time of each compile, from taking a slot to returning it and excluding the
+ * compiler itself, is recorded in {@code projectnil.compiler.workspace.duration}.
+ */
+public class FileSystemWorkspaceManager implements WorkspaceManager, AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemWorkspaceManager.class);
 
     private final Path baseDirectory;
+    private final Timer filesystemTime;
+    private final Deque<Path> idleSlots = new ArrayDeque<>();
+    private final Map<Path, Long> busySlotNanos = new ConcurrentHashMap<>();
 
     public FileSystemWorkspaceManager(Path baseDirectory) {
+        this(baseDirectory, new SimpleMeterRegistry());
+    }
+
+    public FileSystemWorkspaceManager(Path baseDirectory, MeterRegistry meterRegistry) {
         this.baseDirectory = baseDirectory;
+        this.filesystemTime = Timer.builder("projectnil.compiler.workspace.duration")
+            .description("Filesystem time per compile: preparing the workspace, writing source, reading output and cleaning up")
+            .register(meterRegistry);
     }
 
     @Override
     public Path createWorkspace(UUID functionId) throws IOException {
-        Path workspace = baseDirectory.resolve(functionId.toString());
-        Files.createDirectories(workspace);
-        Files.createDirectories(outputDirectory(workspace));
+        long start = System.nanoTime();
+        Path workspace;
+        synchronized (this) {
+            workspace = idleSlots.pollFirst();
+        }
+        if (workspace == null) {
+            Files.createDirectories(baseDirectory);
+            workspace = Files.createTempDirectory(baseDirectory, "slot-");
+            Files.createDirectories(outputDirectory(workspace));
+        }
+        busySlotNanos.put(workspace, System.nanoTime() - start);
         return workspace;
     }
 
     @Override
     public Path writeSource(Path workspace, String source) throws IOException {
+        long start = System.nanoTime();
         Path sourceFile = workspace.resolve("module.ts");
-        Files.writeString(
-            sourceFile,
-            source,
-            StandardCharsets.UTF_8,
-            StandardOpenOption.CREATE,
-            StandardOpenOption.TRUNCATE_EXISTING,
-            StandardOpenOption.WRITE
-        );
+        try {
+            Files.writeString(
+                sourceFile,
+                source,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            );
+        } finally {
+            addTime(workspace, start);
+        }
         return sourceFile;
     }
 
+    @Override
+    public byte[] readWasm(Path workspace) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return Files.readAllBytes(wasmFile(workspace));
+        } finally {
+            addTime(workspace, start);
+        }
+    }
+
     @Override
     public Path outputDirectory(Path workspace) {
         return workspace.resolve("out");
@@ -52,15 +109,75 @@ public class FileSystemWorkspaceManager implements WorkspaceManager {
         return outputDirectory(workspace).resolve("module.wasm");
     }
 
+    /**
+     * Empty a slot and return it to the pool. Any other directory is deleted.
+     */
     @Override
     public void cleanup(Path workspace) {
         if (workspace == null) {
             return;
         }
+        Long busyNanos = busySlotNanos.remove(workspace);
+        if (busyNanos == null) {
+            delete(workspace);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean reusable = empty(workspace);
+        if (reusable) {
+            synchronized (this) {
+                idleSlots.addFirst(workspace);
+            }
+        } else {
+            delete(workspace);
+        }
+        filesystemTime.record(busyNanos + System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() {
+        List<Path> slots;
+        synchronized (this) {
+            slots = new ArrayList<>(idleSlots);
+            idleSlots.clear();
+        }
+        slots.forEach(this::delete);
+    }
+
+    synchronized int idleSlotCount() {
+        return idleSlots.size();
+    }
+
+    /**
+     * Delete everything in a slot except the slot and its output directory.
+     *
+     * @return whether the slot is empty and can be reused
+     */
+    private boolean empty(Path workspace) {
+        Path outputDirectory = outputDirectory(workspace);
+        try (Stream<Path> paths = Files.walk(workspace)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                if (!path.equals(workspace) && !path.equals(outputDirectory)) {
+                    Files.delete(path);
+                }
+            }
+            return Files.isDirectory(outputDirectory);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to clean workspace {}, discarding it", workspace, ex);
+            return false;
+        }
+    }
+
+    private void delete(Path workspace) {
         try {
             FileSystemUtils.deleteRecursively(workspace);
         } catch (IOException ex) {
             LOGGER.warn("Failed to cleanup workspace {}", workspace, ex);
         }
     }
+
+    private void addTime(Path workspace, long start) {
+        long elapsed = System.nanoTime() - start;
+        busySlotNanos.computeIfPresent(workspace, (slot, nanos) -> nanos + elapsed);
+    }
 }
@@ -1,6 +1,7 @@
 package com.projectnil.compiler.core;
 
 import com.projectnil.common.domain.queue.CompilationJob;
+import java.util.Optional;
 
 public interface LanguageCompiler {
     /**
@@ -16,4 +17,15 @@ public interface LanguageCompiler {
      * @throws CompilationException when compilation cannot be completed
      */
     CompilationOutcome compile(CompilationJob job) throws CompilationException;
+
+    /**
+     * Identify the toolchain that {@link #compile} runs: compiler version, flags and
+     * libraries. Two compilations of the same source under the same fingerprint must
+     * produce equivalent output, since the fingerprint keys the compile cache.
+     *
+     * @return the fingerprint, or empty if it cannot be determined (disables caching)
+     */
+    default Optional<String> toolchainFingerprint() {
+        return Optional.empty();
+    }
 }
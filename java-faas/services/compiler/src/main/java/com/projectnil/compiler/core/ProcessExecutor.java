@@ -5,6 +5,7 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,11 +14,15 @@ public class ProcessExecutor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProcessExecutor.class);
 
+    /**
+     * Environment every compiler process runs with, one-shot or daemon. JSON_MODE=SWAR keeps
+     * json-as from emitting SIMD, which the Chicory WASM runtime doesn't support.
+     */
+    public static final Map<String, String> COMPILER_ENVIRONMENT = Map.of("JSON_MODE", "SWAR");
+
     public ProcessResult execute(List<String> command, Duration timeout) throws IOException, InterruptedException {
         ProcessBuilder builder = new ProcessBuilder(command);
-        // Set JSON_MODE for json-as library
-        // Using SWAR mode as Chicory WASM runtime doesn't support SIMD instructions
-        builder.environment().put("JSON_MODE", "SWAR");
+        builder.environment().putAll(COMPILER_ENVIRONMENT);
         Process process = builder.start();
         boolean finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
         if (!finished) {
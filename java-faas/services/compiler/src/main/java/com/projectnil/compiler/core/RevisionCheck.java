@@ -0,0 +1,26 @@
+package com.projectnil.compiler.core;
+
+import com.projectnil.common.domain.queue.CompilationJob;
+
+/**
+ * Decides whether a job is still worth compiling.
+ *
+ * <p>Every source edit publishes a new job with the next revision, so a function edited in
+ * quick succession has several jobs queued of which only the last matters. Superseded jobs
+ * are dropped before the toolchain runs; the API would discard their results anyway.
+ */
+public interface RevisionCheck {
+
+    /**
+     * A check that never drops a job.
+     */
+    RevisionCheck DISABLED = job -> false;
+
+    /**
+     * Whether the job's function has moved past the job's revision, or no longer exists.
+     *
+     * @param job the queued job
+     * @return true if the job should be dropped without compiling
+     */
+    boolean isSuperseded(CompilationJob job);
+}
@@ -9,6 +9,8 @@ public interface WorkspaceManager {
 
     Path writeSource(Path workspace, String source) throws IOException;
 
+    byte[] readWasm(Path workspace) throws IOException;
+
     Path outputDirectory(Path workspace);
 
     Path wasmFile(Path workspace);
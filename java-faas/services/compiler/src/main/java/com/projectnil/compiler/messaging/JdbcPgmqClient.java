@@ -5,10 +5,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projectnil.common.domain.queue.CompilationJob;
 import com.projectnil.common.domain.queue.CompilationResult;
 import com.projectnil.compiler.config.CompilerProperties;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.postgresql.util.PGobject;
 import org.slf4j.Logger;
@@ -19,8 +18,10 @@ import org.springframework.jdbc.core.JdbcTemplate;
 public class JdbcPgmqClient implements PgmqClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcPgmqClient.class);
-    private static final String READ_SQL = "SELECT msg_id, message FROM pgmq.read(?, ?, 1)";
+    private static final String READ_SQL = "SELECT msg_id, message FROM pgmq.read_with_poll(?, ?, ?, ?)";
     private static final String DELETE_SQL = "SELECT pgmq.delete(?, ?)";
+    private static final String ARCHIVE_SQL = "SELECT pgmq.archive(?, ?)";
+    private static final String RELEASE_SQL = "SELECT msg_id FROM pgmq.set_vt(?, ?, 0)";
     private static final String SEND_SQL = "SELECT pgmq.send(?, ?)";
     private static final int DEFAULT_VT_SECONDS = 30;
 
@@ -39,21 +40,31 @@ public class JdbcPgmqClient implements PgmqClient {
     }
 
     @Override
-    public Optional<QueuedCompilationJob> readJob() {
-        try {
-            List<QueuedCompilationJob> jobs = jdbcTemplate.query(
-                READ_SQL,
-                ps -> {
-                    ps.setString(1, compilerProperties.jobQueue());
-                    ps.setInt(2, visibilityTimeoutSeconds());
-                },
-                this::mapQueuedCompilationJob
-            );
-            return jobs.stream().findFirst();
-        } catch (DataAccessException ex) {
-            LOGGER.error("Failed to read job from queue {}", compilerProperties.jobQueue(), ex);
-            return Optional.empty();
+    public List<QueuedCompilationJob> readJobs(int limit) {
+        List<RawMessage> messages = jdbcTemplate.query(
+            READ_SQL,
+            ps -> {
+                ps.setString(1, compilerProperties.jobQueue());
+                ps.setInt(2, visibilityTimeoutSeconds(limit));
+                ps.setInt(3, limit);
+                ps.setInt(4, maxPollSeconds());
+            },
+            (rs, rowNum) -> new RawMessage(rs.getLong("msg_id"), rs.getString("message"))
+        );
+        List<QueuedCompilationJob> jobs = new ArrayList<>(messages.size());
+        for (RawMessage message : messages) {
+            try {
+                jobs.add(new QueuedCompilationJob(
+                    message.messageId(),
+                    objectMapper.readValue(message.payload(), CompilationJob.class)
+                ));
+            } catch (JsonProcessingException ex) {
+                // It will never parse, so dead-letter it rather than have it redelivered forever
+                LOGGER.error("Unable to deserialize compilation job {}, archiving it", message.messageId(), ex);
+                archiveJob(message.messageId());
+            }
         }
+        return jobs;
     }
 
     @Override
@@ -73,6 +84,30 @@ public class JdbcPgmqClient implements PgmqClient {
         }
     }
 
+    @Override
+    public void releaseJob(long messageId) {
+        try {
+            jdbcTemplate.query(
+                RELEASE_SQL,
+                ps -> {
+                    ps.setString(1, compilerProperties.jobQueue());
+                    ps.setLong(2, messageId);
+                },
+                rs -> { }
+            );
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Failed to release message {} on queue {}", messageId, compilerProperties.jobQueue(), ex);
+        }
+    }
+
+    private void archiveJob(long messageId) {
+        try {
+            jdbcTemplate.queryForObject(ARCHIVE_SQL, Boolean.class, compilerProperties.jobQueue(), messageId);
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to archive message {} on queue {}", messageId, compilerProperties.jobQueue(), ex);
+        }
+    }
+
     @Override
     public void publishResult(CompilationResult result) {
         try {
@@ -92,26 +127,21 @@ public class JdbcPgmqClient implements PgmqClient {
         }
     }
 
-    private QueuedCompilationJob mapQueuedCompilationJob(ResultSet rs, int rowNum) throws SQLException {
-        long messageId = rs.getLong("msg_id");
-        String payload = rs.getString("message");
-        try {
-            CompilationJob job = objectMapper.readValue(payload, CompilationJob.class);
-            return new QueuedCompilationJob(messageId, job);
-        } catch (JsonProcessingException ex) {
-            throw new IllegalStateException("Unable to deserialize compilation job " + messageId, ex);
-        }
+    /**
+     * Jobs in a batch are compiled {@code workers} at a time, after the compiles already
+     * running, so the batch stays hidden for one compile timeout per round it takes plus one.
+     */
+    private int visibilityTimeoutSeconds(int batchSize) {
+        long timeoutMs = compilerProperties.timeoutMs();
+        long perCompile = timeoutMs <= 0 ? DEFAULT_VT_SECONDS : Math.max(TimeUnit.MILLISECONDS.toSeconds(timeoutMs), 1);
+        int workers = compilerProperties.workers();
+        long rounds = 1 + (batchSize + workers - 1) / workers;
+        return (int) Math.min(perCompile * rounds, Integer.MAX_VALUE);
     }
 
-    private int visibilityTimeoutSeconds() {
-        long timeoutMs = compilerProperties.timeoutMs();
-        if (timeoutMs <= 0) {
-            return DEFAULT_VT_SECONDS;
-        }
-        long seconds = TimeUnit.MILLISECONDS.toSeconds(timeoutMs);
-        if (seconds <= 0) {
-            seconds = 1;
-        }
-        return (int) Math.min(seconds, Integer.MAX_VALUE);
+    private int maxPollSeconds() {
+        return (int) Math.max(TimeUnit.MILLISECONDS.toSeconds(compilerProperties.pollIntervalMs()), 1);
     }
+
+    private record RawMessage(long messageId, String payload) {}
 }
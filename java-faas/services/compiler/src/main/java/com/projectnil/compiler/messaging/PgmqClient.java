@@ -1,13 +1,22 @@
 package com.projectnil.compiler.messaging;
 
 import com.projectnil.common.domain.queue.CompilationResult;
-import java.util.Optional;
+import java.util.List;
 
 public interface PgmqClient {
-    Optional<QueuedCompilationJob> readJob();
+    /**
+     * Read up to {@code limit} jobs, waiting up to the poll interval for one to arrive if the
+     * queue is empty. The jobs stay hidden from other readers for long enough to work through
+     * the whole batch.
+     */
+    List<QueuedCompilationJob> readJobs(int limit);
 
     void deleteJob(long messageId);
 
+    /**
+     * Make a job that was read but not worked on visible to other readers again.
+     */
+    void releaseJob(long messageId);
+
     void publishResult(CompilationResult result);
 }
-
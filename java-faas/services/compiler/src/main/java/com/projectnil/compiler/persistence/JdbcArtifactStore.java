@@ -0,0 +1,39 @@
+package com.projectnil.compiler.persistence;
+
+import com.projectnil.common.domain.Artifact;
+import com.projectnil.compiler.core.ArtifactStore;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class JdbcArtifactStore implements ArtifactStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcArtifactStore.class);
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO artifacts (hash, data, size_bytes, created_at)
+        VALUES (?, ?, ?, now())
+        ON CONFLICT (hash) DO UPDATE SET created_at = now()
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcArtifactStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<String> store(byte[] data) {
+        String hash = Artifact.hashOf(data);
+        try {
+            jdbcTemplate.update(UPSERT_SQL, hash, data, (long) data.length);
+            LOGGER.debug("Stored artifact {} ({} bytes)", hash, data.length);
+            return Optional.of(hash);
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Failed to store artifact {}, sending binary inline", hash, ex);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.projectnil.compiler.persistence;
+
+import com.projectnil.compiler.core.CompileCache;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Compile cache backed by the {@code compile_cache} table.
+ *
+ * <p>A hit hands out an artifact the garbage collector may consider unreferenced, so its
+ * {@code created_at} is refreshed to restart the GC grace period. The lookup itself is a plain
+ * read; the refresh is a separate update issued only when the artifact is more than ten minutes
+ * old, well inside the default one-hour grace period, so a hot entry is written at most once
+ * every ten minutes rather than on every lookup.
+ */
+public class JdbcCompileCache implements CompileCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcCompileCache.class);
+
+    private static final String REGISTER_SQL = """
+        INSERT INTO compiler_toolchains (language, fingerprint, registered_at)
+        VALUES (?, ?, now())
+        ON CONFLICT (language) DO UPDATE SET
+            fingerprint = EXCLUDED.fingerprint,
+            registered_at = EXCLUDED.registered_at
+        """;
+
+    private static final String FIND_SQL = """
+        SELECT a.hash, a.created_at < now() - interval '10 minutes' AS stale
+        FROM compile_cache c
+        JOIN artifacts a ON a.hash = c.artifact_hash
+        WHERE c.cache_key = ?
+        """;
+
+    private static final String REFRESH_SQL = """
+        UPDATE artifacts SET created_at = now()
+        WHERE hash = ? AND created_at < now() - interval '10 minutes'
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcCompileCache(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void registerToolchain(String language, String fingerprint) {
+        try {
+            jdbcTemplate.update(REGISTER_SQL, language, fingerprint);
+            LOGGER.info("Registered {} toolchain for compile cache", language);
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Failed to register {} toolchain, API-side compile cache lookups will miss", language, ex);
+        }
+    }
+
+    @Override
+    public Optional<String> find(String cacheKey) {
+        try {
+            Optional<Hit> hit = jdbcTemplate.query(
+                FIND_SQL,
+                (rs, rowNum) -> new Hit(rs.getString("hash"), rs.getBoolean("stale")),
+                cacheKey
+            ).stream().findFirst();
+            hit.filter(Hit::stale).ifPresent(h -> jdbcTemplate.update(REFRESH_SQL, h.hash()));
+            return hit.map(Hit::hash);
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Compile cache lookup failed for key {}, compiling", cacheKey, ex);
+            return Optional.empty();
+        }
+    }
+
+    private record Hit(String hash, boolean stale) {}
+}
@@ -0,0 +1,36 @@
+package com.projectnil.compiler.persistence;
+
+import com.projectnil.common.domain.queue.CompilationJob;
+import com.projectnil.compiler.core.RevisionCheck;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class JdbcRevisionCheck implements RevisionCheck {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcRevisionCheck.class);
+
+    private static final String REVISION_SQL = "SELECT revision FROM functions WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcRevisionCheck(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean isSuperseded(CompilationJob job) {
+        if (job.revision() == null) {
+            return false;
+        }
+        try {
+            List<Integer> revisions = jdbcTemplate.queryForList(REVISION_SQL, Integer.class, job.functionId());
+            return revisions.isEmpty() || revisions.getFirst() > job.revision();
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Revision check failed for function {}, compiling", job.functionId(), ex);
+            return false;
+        }
+    }
+}
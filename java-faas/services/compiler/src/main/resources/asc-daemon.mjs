@@ -0,0 +1,43 @@
+// Long-lived AssemblyScript compiler used by AscDaemonPool.
+//
+// Usage: node asc-daemon.mjs <asc library path>
+//
+// Loads assemblyscript/dist/asc.js from the library path, writes {"version": "...", "jsonAs": "..."}
+// with the AssemblyScript and json-as versions found there, then answers each {"args": [...]} line
+// on stdin, compiled as `asc <args>` would be, with one {"exitCode", "stdout", "stderr"} line.
+// Everything else goes to stderr so stdout only ever carries protocol lines.
+import { readFileSync } from "node:fs";
+import { join } from "node:path";
+import { createInterface } from "node:readline";
+import { pathToFileURL } from "node:url";
+
+const protocol = process.stdout;
+console.log = console.info = console.debug = console.warn = console.error;
+
+const libPath = process.argv[2];
+const asc = await import(pathToFileURL(join(libPath, "assemblyscript", "dist", "asc.js")).href);
+let jsonAs = null;
+try {
+  jsonAs = JSON.parse(readFileSync(join(libPath, "json-as", "package.json"), "utf8")).version ?? null;
+} catch {
+  // No json-as in the library path
+}
+protocol.write(JSON.stringify({ version: asc.version ?? null, jsonAs }) + "\n");
+
+for await (const line of createInterface({ input: process.stdin, terminal: false })) {
+  const { args } = JSON.parse(line);
+  const stdout = asc.createMemoryStream();
+  const stderr = asc.createMemoryStream();
+  let exitCode;
+  try {
+    const result = await asc.main(args, { stdout, stderr });
+    exitCode = result.error ? 1 : 0;
+    if (result.error && stderr.toString().length === 0) {
+      stderr.write(String(result.error));
+    }
+  } catch (err) {
+    stderr.write(String(err?.stack ?? err));
+    exitCode = 1;
+  }
+  protocol.write(JSON.stringify({ exitCode, stdout: stdout.toString(), stderr: stderr.toString() }) + "\n");
+}
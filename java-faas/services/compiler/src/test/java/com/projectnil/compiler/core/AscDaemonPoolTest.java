@@ -0,0 +1,93 @@
+package com.projectnil.compiler.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AscDaemonPoolTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+    private Path starts;
+    private AscDaemonPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        starts = Files.createTempFile("asc-daemon-starts", ".log");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (pool != null) {
+            pool.close();
+        }
+        Files.deleteIfExists(starts);
+    }
+
+    @Test
+    void reusesDaemonAcrossCompiles() throws Exception {
+        pool = new AscDaemonPool(daemon("while read line; do echo '{\"exitCode\":0,\"stdout\":\"ok\",\"stderr\":\"\"}'; done"), 10);
+
+        ProcessExecutor.ProcessResult first = pool.execute(List.of("a.ts"), TIMEOUT);
+        ProcessExecutor.ProcessResult second = pool.execute(List.of("b.ts"), TIMEOUT);
+
+        assertThat(first.success()).isTrue();
+        assertThat(second.stdout()).isEqualTo("ok");
+        assertThat(pool.versions()).isEqualTo(new AscDaemonPool.Versions("0.28.9", "1.1.7"));
+        assertThat(Files.readAllLines(starts)).hasSize(1);
+    }
+
+    @Test
+    void replacesDaemonAfterMaxCompiles() throws Exception {
+        pool = new AscDaemonPool(daemon("while read line; do echo '{\"exitCode\":1,\"stdout\":\"\",\"stderr\":\"err\"}'; done"), 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(pool.execute(List.of("a.ts"), TIMEOUT).stderr()).isEqualTo("err");
+        }
+
+        assertThat(Files.readAllLines(starts)).hasSize(2);
+    }
+
+    @Test
+    void restartsDaemonAfterCrash() throws Exception {
+        pool = new AscDaemonPool(daemon("read line; exit 1"), 10);
+
+        assertThatThrownBy(() -> pool.execute(List.of("a.ts"), TIMEOUT))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("exited");
+        assertThatThrownBy(() -> pool.execute(List.of("a.ts"), TIMEOUT))
+            .isInstanceOf(IOException.class);
+
+        assertThat(Files.readAllLines(starts)).hasSize(2);
+    }
+
+    @Test
+    void throwsOnTimeout() {
+        pool = new AscDaemonPool(daemon("read line; sleep 5"), 10);
+
+        assertThatThrownBy(() -> pool.execute(List.of("a.ts"), Duration.ofMillis(100)))
+            .isInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void failsWhenDaemonCannotStart() {
+        pool = new AscDaemonPool(List.of("/bin/sh", "-c", "exit 1"), 10);
+
+        assertThatThrownBy(() -> pool.execute(List.of("a.ts"), TIMEOUT))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("failed to start");
+    }
+
+    private List<String> daemon(String loop) {
+        return List.of("/bin/sh", "-c", "echo started >> " + starts + "; echo '{\"version\":\"0.28.9\",\"jsonAs\":\"1.1.7\"}'; " + loop);
+    }
+}
@@ -2,12 +2,17 @@ package com.projectnil.compiler.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.projectnil.common.domain.queue.CompilationJob;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
@@ -43,7 +48,7 @@ class AssemblyScriptCompilerTest {
         CompilationJob job = new CompilationJob(functionId, "assemblyscript", "export function add(a: i32, b: i32) { return a + b; }");
         Path sourceFile = workspace.resolve("module.ts");
         Path wasmFile = workspace.resolve("module.wasm");
-        Files.writeString(wasmFile, "fake-wasm");
+        when(workspaceManager.readWasm(workspace)).thenReturn("fake-wasm".getBytes(StandardCharsets.UTF_8));
 
         when(workspaceManager.createWorkspace(functionId)).thenReturn(workspace);
         when(workspaceManager.writeSource(workspace, job.source())).thenReturn(sourceFile);
@@ -84,6 +89,98 @@ class AssemblyScriptCompilerTest {
         verify(workspaceManager).cleanup(workspace);
     }
 
+    @Test
+    void compilesInDaemonAndFallsBackWhenItIsUnavailable() throws Exception {
+        AscDaemonPool daemonPool = mock(AscDaemonPool.class);
+        compiler = new AssemblyScriptCompiler(workspaceManager, processExecutor, Duration.ofSeconds(1), "asc", null, daemonPool);
+        UUID functionId = UUID.randomUUID();
+        CompilationJob job = new CompilationJob(functionId, "assemblyscript", "code");
+        Path sourceFile = workspace.resolve("module.ts");
+        Path wasmFile = workspace.resolve("module.wasm");
+        when(workspaceManager.readWasm(workspace)).thenReturn("fake-wasm".getBytes(StandardCharsets.UTF_8));
+        List<String> args = List.of(sourceFile.toString(), "--outFile", wasmFile.toString(), "--optimize", "--exportRuntime");
+
+        when(workspaceManager.createWorkspace(functionId)).thenReturn(workspace);
+        when(workspaceManager.writeSource(workspace, job.source())).thenReturn(sourceFile);
+        when(workspaceManager.wasmFile(workspace)).thenReturn(wasmFile);
+        when(processExecutor.execute(List.of("asc", "--version"), Duration.ofSeconds(10)))
+            .thenReturn(new ProcessExecutor.ProcessResult(0, "Version 0.28.9\n", ""));
+        when(daemonPool.versions()).thenReturn(new AscDaemonPool.Versions("0.28.9", null));
+        when(daemonPool.execute(args, Duration.ofSeconds(1)))
+            .thenReturn(new ProcessExecutor.ProcessResult(0, "", ""))
+            .thenThrow(new IOException("asc daemon exited"));
+        when(processExecutor.execute(
+            List.of("asc", sourceFile.toString(), "--outFile", wasmFile.toString(), "--optimize", "--exportRuntime"),
+            Duration.ofSeconds(1)
+        )).thenReturn(new ProcessExecutor.ProcessResult(0, "", ""));
+
+        assertThat(compiler.compile(job).success()).isTrue();
+        verify(processExecutor, never()).execute(
+            List.of("asc", sourceFile.toString(), "--outFile", wasmFile.toString(), "--optimize", "--exportRuntime"),
+            Duration.ofSeconds(1)
+        );
+
+        assertThat(compiler.compile(job).success()).isTrue();
+        verify(processExecutor).execute(
+            List.of("asc", sourceFile.toString(), "--outFile", wasmFile.toString(), "--optimize", "--exportRuntime"),
+            Duration.ofSeconds(1)
+        );
+    }
+
+    @Test
+    void skipsDaemonRunningAnotherVersion() throws Exception {
+        AscDaemonPool daemonPool = mock(AscDaemonPool.class);
+        compiler = new AssemblyScriptCompiler(workspaceManager, processExecutor, Duration.ofSeconds(1), "asc", null, daemonPool);
+        UUID functionId = UUID.randomUUID();
+        CompilationJob job = new CompilationJob(functionId, "assemblyscript", "code");
+        Path sourceFile = workspace.resolve("module.ts");
+        Path wasmFile = workspace.resolve("module.wasm");
+        when(workspaceManager.readWasm(workspace)).thenReturn("fake-wasm".getBytes(StandardCharsets.UTF_8));
+
+        when(workspaceManager.createWorkspace(functionId)).thenReturn(workspace);
+        when(workspaceManager.writeSource(workspace, job.source())).thenReturn(sourceFile);
+        when(workspaceManager.wasmFile(workspace)).thenReturn(wasmFile);
+        when(processExecutor.execute(List.of("asc", "--version"), Duration.ofSeconds(10)))
+            .thenReturn(new ProcessExecutor.ProcessResult(0, "Version 0.28.9\n", ""));
+        when(daemonPool.versions()).thenReturn(new AscDaemonPool.Versions("0.27.0", null));
+        when(processExecutor.execute(
+            List.of("asc", sourceFile.toString(), "--outFile", wasmFile.toString(), "--optimize", "--exportRuntime"),
+            Duration.ofSeconds(1)
+        )).thenReturn(new ProcessExecutor.ProcessResult(0, "", ""));
+
+        assertThat(compiler.compile(job).success()).isTrue();
+        verify(daemonPool).close();
+        verify(daemonPool, never()).execute(anyList(), any());
+    }
+
+    @Test
+    void skipsDaemonLoadingAnotherJsonAsVersion() throws Exception {
+        Path libPath = Files.createDirectories(workspace.resolve("lib/json-as"));
+        Files.writeString(libPath.resolve("package.json"), "{\"name\": \"json-as\", \"version\": \"1.1.7\"}");
+        AscDaemonPool daemonPool = mock(AscDaemonPool.class);
+        compiler = new AssemblyScriptCompiler(
+            workspaceManager,
+            processExecutor,
+            Duration.ofSeconds(1),
+            "asc",
+            workspace.resolve("lib").toString(),
+            daemonPool
+        );
+        UUID functionId = UUID.randomUUID();
+        CompilationJob job = new CompilationJob(functionId, "assemblyscript", "code");
+        when(workspaceManager.createWorkspace(functionId)).thenReturn(workspace);
+        when(workspaceManager.writeSource(workspace, job.source())).thenReturn(workspace.resolve("module.ts"));
+        when(workspaceManager.wasmFile(workspace)).thenReturn(workspace.resolve("module.wasm"));
+        when(workspaceManager.readWasm(workspace)).thenReturn("fake-wasm".getBytes(StandardCharsets.UTF_8));
+        when(processExecutor.execute(anyList(), any()))
+            .thenReturn(new ProcessExecutor.ProcessResult(0, "Version 0.28.9\n", ""));
+        when(daemonPool.versions()).thenReturn(new AscDaemonPool.Versions("0.28.9", "1.0.0"));
+
+        assertThat(compiler.compile(job).success()).isTrue();
+        verify(daemonPool).close();
+        verify(daemonPool, never()).execute(anyList(), any());
+    }
+
     @Test
     void propagatesIOException() throws Exception {
         UUID functionId = UUID.randomUUID();
@@ -95,4 +192,26 @@ class AssemblyScriptCompilerTest {
             .isInstanceOf(CompilationException.class)
             .hasMessageContaining("Unable to create workspace");
     }
+
+    @Test
+    void fingerprintIncludesVersionAndIsProbedOnce() throws Exception {
+        when(processExecutor.execute(List.of("asc", "--version"), Duration.ofSeconds(10)))
+            .thenReturn(new ProcessExecutor.ProcessResult(0, "Version 0.28.9\n", ""));
+
+        assertThat(compiler.toolchainFingerprint()).hasValueSatisfying(fingerprint ->
+            assertThat(fingerprint).startsWith("Version 0.28.9")
+                .contains("flags=--optimize,--exportRuntime")
+                .contains("env=JSON_MODE=SWAR"));
+        compiler.toolchainFingerprint();
+
+        verify(processExecutor, times(1)).execute(List.of("asc", "--version"), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void fingerprintIsEmptyWhenVersionProbeFails() throws Exception {
+        when(processExecutor.execute(List.of("asc", "--version"), Duration.ofSeconds(10)))
+            .thenReturn(new ProcessExecutor.ProcessResult(127, "", "asc: not found"));
+
+        assertThat(compiler.toolchainFingerprint()).isEmpty();
+    }
 }
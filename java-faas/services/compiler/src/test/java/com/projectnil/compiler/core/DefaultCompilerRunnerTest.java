@@ -0,0 +1,119 @@
+package com.projectnil.compiler.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.projectnil.common.domain.queue.CompilationJob;
+import com.projectnil.common.domain.queue.CompilationResult;
+import com.projectnil.compiler.config.CompilerProperties;
+import com.projectnil.compiler.messaging.PgmqClient;
+import com.projectnil.compiler.messaging.QueuedCompilationJob;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+class DefaultCompilerRunnerTest {
+
+    private static final long COMPILE_MS = 300;
+
+    private final FakePgmqClient pgmqClient = new FakePgmqClient();
+    private final CountDownLatch compiling = new CountDownLatch(1);
+
+    @Test
+    void closingContextFinishesInFlightJobsAndReleasesBufferedOnes() throws Exception {
+        QueuedCompilationJob inFlight = pgmqClient.enqueue(1);
+        QueuedCompilationJob buffered = pgmqClient.enqueue(2);
+        CompilerProperties properties = new CompilerProperties(
+            "assemblyscript", "jobs", "results", 5_000L, 100L, "asc", "/tmp", null, 1, 1, null, 0
+        );
+
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(CompilerRunner.class, () -> new DefaultCompilerRunner(pgmqClient, new SlowCompiler(), properties));
+        context.refresh();
+        context.getBean(CompilerRunner.class).start();
+        assertThat(compiling.await(5, TimeUnit.SECONDS)).isTrue();
+
+        context.close();
+
+        assertThat(pgmqClient.published).extracting(CompilationResult::functionId)
+            .containsExactly(inFlight.job().functionId());
+        assertThat(pgmqClient.deleted).containsExactly(inFlight.messageId());
+        assertThat(pgmqClient.released).containsExactly(buffered.messageId());
+    }
+
+    private final class SlowCompiler implements LanguageCompiler {
+
+        @Override
+        public String language() {
+            return "assemblyscript";
+        }
+
+        @Override
+        public CompilationOutcome compile(CompilationJob job) {
+            compiling.countDown();
+            try {
+                Thread.sleep(COMPILE_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CompilationException("interrupted", ex);
+            }
+            return CompilationOutcome.success(new byte[] {0}, COMPILE_MS);
+        }
+    }
+
+    private static final class FakePgmqClient implements PgmqClient {
+
+        private final Deque<QueuedCompilationJob> queue = new ArrayDeque<>();
+        private final List<CompilationResult> published = new CopyOnWriteArrayList<>();
+        private final List<Long> deleted = new CopyOnWriteArrayList<>();
+        private final List<Long> released = new CopyOnWriteArrayList<>();
+
+        synchronized QueuedCompilationJob enqueue(long messageId) {
+            QueuedCompilationJob job = new QueuedCompilationJob(
+                messageId,
+                new CompilationJob(UUID.randomUUID(), "assemblyscript", "export function ok() { return 1; }")
+            );
+            queue.add(job);
+            return job;
+        }
+
+        @Override
+        public List<QueuedCompilationJob> readJobs(int limit) {
+            List<QueuedCompilationJob> jobs = new ArrayList<>();
+            synchronized (this) {
+                while (jobs.size() < limit && !queue.isEmpty()) {
+                    jobs.add(queue.poll());
+                }
+            }
+            if (jobs.isEmpty()) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return jobs;
+        }
+
+        @Override
+        public void deleteJob(long messageId) {
+            deleted.add(messageId);
+        }
+
+        @Override
+        public void releaseJob(long messageId) {
+            released.add(messageId);
+        }
+
+        @Override
+        public void publishResult(CompilationResult result) {
+            published.add(result);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.projectnil.compiler.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,12 +14,14 @@ import org.junit.jupiter.api.Test;
 class FileSystemWorkspaceManagerTest {
 
     private Path baseDir;
+    private SimpleMeterRegistry meterRegistry;
     private FileSystemWorkspaceManager workspaceManager;
 
     @BeforeEach
     void setUp() throws IOException {
         baseDir = Files.createTempDirectory("compiler-test");
-        workspaceManager = new FileSystemWorkspaceManager(baseDir);
+        meterRegistry = new SimpleMeterRegistry();
+        workspaceManager = new FileSystemWorkspaceManager(baseDir, meterRegistry);
     }
 
     @AfterEach
@@ -36,6 +39,17 @@ class FileSystemWorkspaceManagerTest {
         assertThat(workspaceManager.outputDirectory(workspace)).exists().isDirectory();
     }
 
+    @Test
+    void createsSeparateWorkspacesForTheSameFunction() throws IOException {
+        UUID functionId = UUID.randomUUID();
+
+        Path first = workspaceManager.createWorkspace(functionId);
+        Path second = workspaceManager.createWorkspace(functionId);
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(second).exists().isDirectory();
+    }
+
     @Test
     void writesSourceFile() throws IOException {
         UUID functionId = UUID.randomUUID();
@@ -49,12 +63,39 @@ class FileSystemWorkspaceManagerTest {
     }
 
     @Test
-    void cleanupRemovesWorkspace() throws IOException {
+    void cleanupEmptiesWorkspaceForReuse() throws IOException {
         UUID functionId = UUID.randomUUID();
         Path workspace = workspaceManager.createWorkspace(functionId);
+        Path sourceFile = workspaceManager.writeSource(workspace, "export function one(): i32 { return 1; }");
+        Files.writeString(workspaceManager.wasmFile(workspace), "wasm");
+
+        workspaceManager.cleanup(workspace);
+
+        assertThat(sourceFile).doesNotExist();
+        assertThat(workspaceManager.outputDirectory(workspace)).isEmptyDirectory();
+        assertThat(workspaceManager.idleSlotCount()).isEqualTo(1);
+        assertThat(workspaceManager.createWorkspace(UUID.randomUUID())).isEqualTo(workspace);
+    }
+
+    @Test
+    void recordsFilesystemTimePerCompile() throws IOException {
+        Path workspace = workspaceManager.createWorkspace(UUID.randomUUID());
+        workspaceManager.writeSource(workspace, "export function one(): i32 { return 1; }");
+        Files.writeString(workspaceManager.wasmFile(workspace), "wasm");
 
+        assertThat(workspaceManager.readWasm(workspace)).asString().isEqualTo("wasm");
         workspaceManager.cleanup(workspace);
 
+        assertThat(meterRegistry.get("projectnil.compiler.workspace.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void closeDeletesIdleWorkspaces() throws IOException {
+        Path workspace = workspaceManager.createWorkspace(UUID.randomUUID());
+        workspaceManager.cleanup(workspace);
+
+        workspaceManager.close();
+
         assertThat(workspace).doesNotExist();
     }
 }
@@ -3,19 +3,30 @@ package com.projectnil.compiler.integration;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectnil.common.domain.Artifact;
 import com.projectnil.common.domain.queue.CompilationJob;
 import com.projectnil.common.domain.queue.CompilationResult;
+import com.projectnil.common.messaging.QueueMetricsSampler;
 import com.projectnil.compiler.config.CompilerProperties;
+import com.projectnil.compiler.core.ArtifactStore;
+import com.projectnil.compiler.core.AscDaemonPool;
 import com.projectnil.compiler.core.AssemblyScriptCompiler;
+import com.projectnil.compiler.core.CompileCache;
 import com.projectnil.compiler.core.CompilerRunner;
 import com.projectnil.compiler.core.DefaultCompilerRunner;
 import com.projectnil.compiler.core.FileSystemWorkspaceManager;
 import com.projectnil.compiler.core.LanguageCompiler;
 import com.projectnil.compiler.core.ProcessExecutor;
+import com.projectnil.compiler.core.RevisionCheck;
 import com.projectnil.compiler.core.WorkspaceManager;
 import com.projectnil.compiler.messaging.JdbcPgmqClient;
 import com.projectnil.compiler.messaging.PgmqClient;
+import com.projectnil.compiler.messaging.QueuedCompilationJob;
+import com.projectnil.compiler.persistence.JdbcArtifactStore;
+import com.projectnil.compiler.persistence.JdbcRevisionCheck;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -102,6 +113,9 @@ class CompilerIntegrationTest {
     private JdbcTemplate jdbcTemplate;
     private CompilerRunner runner;
     private Path workspaceRoot;
+    private CompilerProperties compilerProperties;
+    private LanguageCompiler languageCompiler;
+    private PgmqClient pgmqClient;
 
     @BeforeAll
     void startContainer() {
@@ -141,7 +155,7 @@ class CompilerIntegrationTest {
             Objects.requireNonNull(getClass().getResource("/bin/asc")).toURI()
         );
 
-        CompilerProperties compilerProperties = new CompilerProperties(
+        compilerProperties = new CompilerProperties(
             "assemblyscript",
             "compilation_jobs",
             "compilation_results",
@@ -149,19 +163,23 @@ class CompilerIntegrationTest {
             200L,
             ascBinary.toString(),
             workspaceRoot.toString(),
-            null
+            null,
+            2,
+            1,
+            null,
+            0
         );
 
         WorkspaceManager workspaceManager = new FileSystemWorkspaceManager(workspaceRoot);
         ProcessExecutor processExecutor = new ProcessExecutor();
-        LanguageCompiler languageCompiler = new AssemblyScriptCompiler(
+        languageCompiler = new AssemblyScriptCompiler(
             workspaceManager,
             processExecutor,
             Duration.ofSeconds(5),
             ascBinary.toString(),
             null
         );
-        PgmqClient pgmqClient = new JdbcPgmqClient(jdbcTemplate, compilerProperties, objectMapper);
+        pgmqClient = new JdbcPgmqClient(jdbcTemplate, compilerProperties, objectMapper);
         runner = new DefaultCompilerRunner(pgmqClient, languageCompiler, compilerProperties);
         runner.start();
     }
@@ -198,6 +216,196 @@ class CompilerIntegrationTest {
         assertThat(failureResult.error()).contains("compile error");
     }
 
+    @Test
+    void compilesJobsOnEveryWorker() throws Exception {
+        runner.stop();
+        List<UUID> functionIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        for (UUID functionId : functionIds) {
+            enqueueJob(new CompilationJob(functionId, "assemblyscript", "export function ok() { return 1; }"));
+        }
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        runner = new DefaultCompilerRunner(
+            pgmqClient,
+            languageCompiler,
+            compilerProperties,
+            CompileCache.DISABLED,
+            RevisionCheck.DISABLED,
+            ArtifactStore.INLINE,
+            meterRegistry
+        );
+        runner.start();
+
+        for (UUID functionId : functionIds) {
+            assertThat(awaitResult(functionId).success()).isTrue();
+        }
+        runner.stop();
+        assertThat(meterRegistry.get("projectnil.compiler.jobs").tag("outcome", "compiled").counter().count())
+            .isEqualTo(4.0);
+        assertThat(meterRegistry.get("projectnil.compiler.jobs.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void readsJobsInBatchesAndReleasesUnworkedOnes() throws Exception {
+        runner.stop();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        enqueueJob(new CompilationJob(first, "assemblyscript", "export function ok() { return 1; }"));
+        enqueueJob(new CompilationJob(second, "assemblyscript", "export function ok() { return 2; }"));
+
+        List<QueuedCompilationJob> batch = pgmqClient.readJobs(5);
+        assertThat(batch).extracting(queued -> queued.job().functionId()).containsExactly(first, second);
+
+        pgmqClient.releaseJob(batch.get(1).messageId());
+
+        List<QueuedCompilationJob> released = pgmqClient.readJobs(5);
+        assertThat(released).extracting(queued -> queued.job().functionId()).containsExactly(second);
+    }
+
+    @Test
+    void archivesUnparseableJobs() throws Exception {
+        runner.stop();
+        jdbcTemplate.execute("SELECT pgmq.purge_queue('compilation_jobs')");
+        PGobject payload = new PGobject();
+        payload.setType("jsonb");
+        payload.setValue("{\"functionId\": \"not-a-uuid\"}");
+        Long messageId = jdbcTemplate.queryForObject("SELECT pgmq.send(?, ?)", Long.class, "compilation_jobs", payload);
+
+        assertThat(pgmqClient.readJobs(5)).isEmpty();
+
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM pgmq.a_compilation_jobs WHERE msg_id = ?",
+            Long.class,
+            messageId
+        )).isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM pgmq.q_compilation_jobs WHERE msg_id = ?",
+            Long.class,
+            messageId
+        )).isZero();
+    }
+
+    @Test
+    void dropsJobsSupersededByNewerRevision() throws Exception {
+        runner.stop();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS functions (id uuid PRIMARY KEY, revision int NOT NULL)");
+        UUID functionId = UUID.randomUUID();
+        UUID staleVersion = UUID.randomUUID();
+        UUID currentVersion = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO functions (id, revision) VALUES (?, 2)", functionId);
+
+        enqueueJob(new CompilationJob(functionId, "assemblyscript", "export function ok() { return 1; }", staleVersion, 1));
+        enqueueJob(new CompilationJob(functionId, "assemblyscript", "export function ok() { return 2; }", currentVersion, 2));
+        runner = new DefaultCompilerRunner(
+            pgmqClient,
+            languageCompiler,
+            compilerProperties,
+            CompileCache.DISABLED,
+            new JdbcRevisionCheck(jdbcTemplate),
+            ArtifactStore.INLINE,
+            new SimpleMeterRegistry()
+        );
+        runner.start();
+
+        // A compiled stale job would publish a result for the same function
+        CompilationResult result = awaitResult(functionId);
+        assertThat(result.versionId()).isEqualTo(currentVersion);
+        assertThat(result.success()).isTrue();
+    }
+
+    @Test
+    void storesArtifactAndPublishesItsHash() throws Exception {
+        runner.stop();
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS artifacts (
+                hash varchar(64) PRIMARY KEY,
+                data bytea NOT NULL,
+                size_bytes bigint NOT NULL,
+                created_at timestamptz NOT NULL DEFAULT now()
+            )
+            """);
+        runner = new DefaultCompilerRunner(
+            pgmqClient,
+            languageCompiler,
+            compilerProperties,
+            CompileCache.DISABLED,
+            RevisionCheck.DISABLED,
+            new JdbcArtifactStore(jdbcTemplate),
+            new SimpleMeterRegistry()
+        );
+        runner.start();
+        UUID functionId = UUID.randomUUID();
+
+        enqueueJob(new CompilationJob(functionId, "assemblyscript", "export function ok() { return 1; }"));
+
+        CompilationResult result = awaitResult(functionId);
+        assertThat(result.success()).isTrue();
+        assertThat(result.wasmBinary()).isNull();
+        byte[] stored = jdbcTemplate.queryForObject(
+            "SELECT data FROM artifacts WHERE hash = ?",
+            byte[].class,
+            result.artifactHash()
+        );
+        assertThat(Artifact.hashOf(stored)).isEqualTo(result.artifactHash());
+    }
+
+    @Test
+    void samplesQueueMetrics() throws Exception {
+        runner.stop();
+        enqueueJob(new CompilationJob(UUID.randomUUID(), "assemblyscript", "export function ok() { return 1; }"));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        QueueMetricsSampler sampler = new QueueMetricsSampler(jdbcTemplate, List.of("compilation_jobs"), meterRegistry);
+
+        sampler.sample();
+
+        assertThat(meterRegistry.get("projectnil.queue.depth").tag("queue", "compilation_jobs").gauge().value())
+            .isGreaterThanOrEqualTo(1.0);
+        assertThat(meterRegistry.get("projectnil.queue.sent").tag("queue", "compilation_jobs").functionCounter().count())
+            .isGreaterThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void compilesInAscDaemon() throws Exception {
+        runner.stop();
+        Path ascLibPath = Path.of(Objects.requireNonNullElse(System.getenv("ASC_LIB_PATH"), "asc-libs/node_modules"))
+            .toAbsolutePath();
+        Assumptions.assumeTrue(
+            Files.exists(ascLibPath.resolve("assemblyscript/dist/asc.js")) && commandExists("node"),
+            "Node and an installed AssemblyScript are required for the asc daemon"
+        );
+        // Only the toolchain probe may run asc directly, so a compile can only succeed in a daemon
+        ProcessExecutor probeOnly = new ProcessExecutor() {
+            @Override
+            public ProcessResult execute(List<String> command, Duration timeout) throws IOException, InterruptedException {
+                if (!command.contains("--version")) {
+                    throw new IOException("Compiled outside the asc daemon: " + command);
+                }
+                return super.execute(command, timeout);
+            }
+        };
+        AssemblyScriptCompiler daemonCompiler = new AssemblyScriptCompiler(
+            new FileSystemWorkspaceManager(workspaceRoot),
+            probeOnly,
+            Duration.ofSeconds(60),
+            ascLibPath.resolve(".bin/asc").toString(),
+            ascLibPath.toString(),
+            AscDaemonPool.forNode("node", ascLibPath, 10)
+        );
+        runner = new DefaultCompilerRunner(pgmqClient, daemonCompiler, compilerProperties);
+        runner.start();
+        UUID functionId = UUID.randomUUID();
+
+        try {
+            enqueueJob(new CompilationJob(functionId, "assemblyscript", "export function add(a: i32, b: i32): i32 { return a + b; }"));
+
+            CompilationResult result = awaitResult(functionId);
+            assertThat(result.success()).as(result.error()).isTrue();
+            assertThat(result.wasmBinary()).startsWith(0x00, 'a', 's', 'm');
+        } finally {
+            runner.stop();
+            daemonCompiler.close();
+        }
+    }
+
     private void enqueueJob(CompilationJob job) throws Exception {
         PGobject payload = new PGobject();
         payload.setType("jsonb");